@@ -4,9 +4,20 @@ import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.maps.tiled.TiledMap;
 import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
 import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.physics.box2d.World;
+import com.superduckinvaders.game.ai.BehaviourTreeAI;
+import com.superduckinvaders.game.ai.FlowField;
+import com.superduckinvaders.game.ai.HierarchicalSearch;
+import com.superduckinvaders.game.ai.LevelOfDetail;
+import com.superduckinvaders.game.ai.NavMesh;
+import com.superduckinvaders.game.ai.NavMeshAI;
+import com.superduckinvaders.game.ai.PathScheduler;
+import com.superduckinvaders.game.ai.PathfindingAI;
+import com.superduckinvaders.game.ai.Squads;
+import com.superduckinvaders.game.ai.ThinkPhase;
 import com.superduckinvaders.game.assets.Assets;
 import com.superduckinvaders.game.entity.*;
 import com.superduckinvaders.game.entity.item.CollectItem;
@@ -23,12 +34,18 @@ import com.superduckinvaders.game.objective.SurviveObjective;
 import com.superduckinvaders.game.screen.GameScreen;
 import com.superduckinvaders.game.screen.LoseScreen;
 import com.superduckinvaders.game.screen.WinScreen;
+import com.superduckinvaders.game.util.ClearanceMap;
 import com.superduckinvaders.game.util.Collision;
 import com.superduckinvaders.game.util.CustomContactListener;
+import com.superduckinvaders.game.util.GridRay;
+import com.superduckinvaders.game.util.KinematicMover;
 import com.superduckinvaders.game.util.RayCast;
+import com.superduckinvaders.game.util.SpatialHash;
+import com.superduckinvaders.game.util.TileBitmap;
+import com.superduckinvaders.game.util.VisibilityField;
 
 import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 /**
  * Represents a round of the game played on one level with a single objective.
@@ -40,6 +57,35 @@ public class Round {
      */
     public static final int UPDATE_DISTANCE = DuckGame.GAME_WIDTH / 2;
 
+    /**
+     * The size of each cell in the entity spatial hash, in pixels.
+     */
+    public static final int SPATIAL_HASH_CELL_SIZE = 128;
+
+    /**
+     * How long each update may spend finding paths for mobs by default, in microseconds.
+     */
+    public static final int DEFAULT_PATH_BUDGET = 1000;
+
+    /**
+     * How fast kinematic mobs on top of each other are pushed apart, in pixels per second.
+     */
+    public static final float MOB_SEPARATION_SPEED = 60f;
+
+    /**
+     * How the static map geometry is turned into Box2D bodies.
+     */
+    public enum ColliderMode {
+        /**
+         * One body for every blocked tile.
+         */
+        PER_TILE,
+        /**
+         * Adjacent blocked tiles are merged into rectangles, one body per rectangle.
+         */
+        MERGED
+    }
+
     /**
      * The GameTest instance this Round belongs to.
      */
@@ -59,15 +105,167 @@ public class Round {
     private TiledMapTileLayer obstaclesLayer;
     private TiledMapTileLayer collisionLayer;
 
+    /**
+     * How the static map geometry was turned into bodies.
+     */
+    private ColliderMode colliderMode;
+
+    /**
+     * How many static bodies were created for the map geometry.
+     */
+    private int environmentBodyCount = 0;
+
+    /**
+     * How many mob bodies were inactive after the last update.
+     */
+    private int inactiveBodyCount = 0;
+
+    /**
+     * Which map tiles are blocked by the Collision layer or the chosen Obstacles layer.
+     */
+    private TileBitmap collisionMap;
+
+    /**
+     * How much room there is around each map tile, so path finding can tell which tiles a mob fits through.
+     */
+    private ClearanceMap clearanceMap;
+
+    /**
+     * The clearance of each tile counting water as blocked, for placing mobs without their bodies.
+     */
+    private ClearanceMap mobClearanceMap;
+
+    /**
+     * Which map tiles are water.
+     */
+    private TileBitmap waterMap;
+
+    /**
+     * Leads every mob that uses it towards the player. Rebuilt when the player moves to another tile.
+     */
+    private FlowField playerFlowField;
+
+    /**
+     * Find paths between tiles for mobs using PathfindingAI, indexed by the clearance the mob needs.
+     * Built for a clearance when a mob that size is added, so no build lands in the PathScheduler's budget,
+     * and shared, as only one search runs at a time.
+     */
+    private HierarchicalSearch[] pathfinders = new HierarchicalSearch[2];
+
+    /**
+     * Navigation meshes for mobs using NavMeshAI, indexed by the clearance the mob needs like the pathfinders.
+     */
+    private NavMesh[] navMeshes = new NavMesh[2];
+
+    /**
+     * Serves mobs' requests for paths within a time budget each update.
+     */
+    private PathScheduler pathScheduler = new PathScheduler(DEFAULT_PATH_BUDGET);
+
+    /**
+     * The tiles the player can see, shared by every mob that asks.
+     */
+    private VisibilityField visibilityField;
+
+    /**
+     * The tile the visibility field was last worked out from, and the player's tile as of the last snapshot.
+     */
+    private int visibilityTileX = -1, visibilityTileY = -1;
+    private int playerTileX, playerTileY;
+
+    /**
+     * The centre of the player when the last snapshot was taken, read by mobs while they think.
+     */
+    private final Vector2 playerSnapshot = new Vector2();
+
+    /**
+     * Runs the decision half of the AI for every mob being updated, in parallel unless switched off.
+     */
+    private final ThinkPhase thinkPhase = new ThinkPhase(true);
+
+    /**
+     * How long the last world step took, in nanoseconds.
+     */
+    private long lastStepTime = 0;
+
+    /**
+     * How far between the last two updates to draw entities, from 0 at the one before to 1 at the last.
+     */
+    private float interpolationAlpha = 1;
+
+    /**
+     * Whether mobs are moved by kinematicMover instead of Box2D, the mobs it moved in the last update, and how long
+     * that took, in nanoseconds.
+     */
+    private boolean kinematicMobs = false;
+    private KinematicMover kinematicMover;
+    private final ArrayList<Mob> kinematicList = new ArrayList<>();
+    private long lastMoveTime = 0;
+
     /**
      * The player.
      */
     private Player player;
 
     /**
-     * Array of all entities currently in the Round.
+     * All entities currently in the Round, grouped by kind.
+     */
+    private EntityRegistry entities;
+
+    /**
+     * Awards score for each dead mob swept out of the entity registry.
+     */
+    private final EntityRegistry.RemovalListener removalListener = (Entity entity) -> {
+        if (entity instanceof Mob && ((Mob) entity).isDead()) {
+            player.addScore((int) (10 * (player.hasPickup(Player.Pickup.SCORE_MULTIPLIER) ? Player.PLAYER_SCORE_MULTIPLIER : 1)));
+        }
+    };
+
+    /**
+     * Every projectile in the round. Created once the collision map has been built.
+     */
+    private ProjectileManager projectiles;
+
+    /**
+     * Every particle effect in the round.
      */
-    private List<Entity> entities;
+    private final ParticleSystem particles = new ParticleSystem();
+
+    /**
+     * Buckets entities by position so nearby ones can be found quickly. Rebuilt every update.
+     */
+    private SpatialHash spatialHash;
+
+    /**
+     * The entities near enough to the player to be updated this update, and the mobs among them.
+     */
+    private final ArrayList<Entity> updateList = new ArrayList<>();
+    private final ArrayList<Mob> thinkList = new ArrayList<>();
+
+    /**
+     * Decides how much AI each mob gets, and the mobs in its cheaper tiers this update.
+     */
+    private final LevelOfDetail levelOfDetail = new LevelOfDetail();
+    private final ArrayList<Mob> midList = new ArrayList<>();
+    private final ArrayList<Mob> farList = new ArrayList<>();
+
+    /**
+     * Groups bunched up mobs so they can share one path.
+     */
+    private final Squads squads = new Squads();
+
+    /**
+     * Collects each entity found near the player.
+     */
+    private final SpatialHash.Callback updateCallback = (Entity entity) -> {
+        if (!entity.isRemoved()) {
+            updateList.add(entity);
+            if (entity instanceof Mob) {
+                thinkList.add((Mob) entity);
+            }
+        }
+        return true;
+    };
 
     /**
      * The current objective.
@@ -79,24 +277,44 @@ public class Round {
      */
     public World world;
 
+    /**
+     * Passes contacts in the world on to the entities that handle them.
+     */
+    private CustomContactListener contactListener;
+
     /**
      * The screen this round belongs to.
      */
     public GameScreen gameScreen;
 
     /**
-     * Initialises a new Round with the specified map.
+     * Initialises a new Round with the specified map, merging the map geometry into as few bodies as possible.
      *
      * @param parent the game the round is associated with
      */
     public Round(DuckGame parent) {
+        this(parent, ColliderMode.MERGED);
+    }
+
+    /**
+     * Initialises a new Round with the specified map.
+     *
+     * @param parent       the game the round is associated with
+     * @param colliderMode how to create bodies for the map geometry
+     */
+    public Round(DuckGame parent, ColliderMode colliderMode) {
 
         this.parent = parent;
+        this.colliderMode = colliderMode;
         this.map = Assets.maps[DuckGame.session.currentLevel-1];
         
         world = new World(Vector2.Zero.cpy(), true);
         
-        world.setContactListener(new CustomContactListener());
+        // Only items do anything when they touch something.
+        contactListener = new CustomContactListener();
+        contactListener.register(PhysicsEntity.ITEM_BITS, PhysicsEntity.PLAYER_BITS,
+                CustomContactListener.BEGIN_SENSOR_CONTACT);
+        world.setContactListener(contactListener);
 
         // Choose which obstacles to use.
         obstaclesLayer = chooseObstacles();
@@ -105,6 +323,32 @@ public class Round {
         tileWidth = collisionLayer.getTileWidth();
         tileHeight = collisionLayer.getTileHeight();
 
+        collisionMap = TileBitmap.fromLayers(collisionLayer.getWidth(), collisionLayer.getHeight(), collisionLayer, obstaclesLayer);
+        waterMap = TileBitmap.fromLayers(collisionLayer.getWidth(), collisionLayer.getHeight(), getWaterLayer());
+        projectiles = new ProjectileManager(this, collisionMap, tileWidth, tileHeight,
+                Assets.projectile.getRegionWidth(), Assets.projectile.getRegionHeight());
+
+        playerFlowField = new FlowField(collisionMap);
+        clearanceMap = new ClearanceMap(collisionMap);
+        pathfinders[1] = new HierarchicalSearch(collisionMap);
+        navMeshes[1] = new NavMesh(collisionMap);
+
+        // Mobs further away than UPDATE_DISTANCE aren't updated, so they never ask whether they can see the player.
+        visibilityField = new VisibilityField(collisionMap, (int) Math.ceil(UPDATE_DISTANCE / tileWidth) + 1);
+
+        // Kinematic mobs don't touch the map's bodies, and far mobs hop without theirs, so they are kept out of walls
+        // and water by the tiles instead.
+        TileBitmap mobBlocked = collisionMap.copy();
+        for (int y = 0; y < waterMap.getHeight(); y++) {
+            for (int x = 0; x < waterMap.getWidth(); x++) {
+                if (waterMap.get(x, y)) {
+                    mobBlocked.set(x, y);
+                }
+            }
+        }
+        mobClearanceMap = new ClearanceMap(mobBlocked);
+        kinematicMover = new KinematicMover(mobBlocked, tileWidth, tileHeight, Mob.LINEAR_DAMPING, MOB_SEPARATION_SPEED);
+
         createEnvironmentBodies();
 
         // Determine starting coordinates for player (0, 0 default).
@@ -113,9 +357,11 @@ public class Round {
 
         player = new Player(this, startX, startY);
 
-        entities = new ArrayList<>(128);
+        entities = new EntityRegistry();
         entities.add(player);
 
+        spatialHash = new SpatialHash(getMapWidth(), getMapHeight(), SPATIAL_HASH_CELL_SIZE);
+
         //Pickups
         if (parent.session.currentLevel == 1){
             createPickup(startX + 60, startY, Player.Pickup.GUN);
@@ -134,13 +380,7 @@ public class Round {
             addMob(new BossMob(this, getPlayer().getX(), getPlayer().getX()));
         }
 
-        ArrayList<Mob> targets = new ArrayList<>();
-
-        for (Entity entity : entities){
-            if (entity instanceof Mob){
-                targets.add((Mob)entity);
-            }
-        }
+        ArrayList<Mob> targets = new ArrayList<>(entities.getMobs());
 
 
         //
@@ -205,19 +445,42 @@ public class Round {
                     float tileY = y * th;
                     // obstacleEntities.add(new Obstacle(this, tileX, tileY, tw, th));
                     constructor.construct(tileX, tileY, tw, th);
+                    environmentBodyCount++;
                 }
             }
         }
     }
 
+    /**
+     * Creates one body for each rectangle needed to cover the set tiles of a bitmap.
+     *
+     * @param bitmap      the tiles to cover
+     * @param constructor creates the body for a rectangle
+     */
+    private void rectangleMap(TileBitmap bitmap, Constructor constructor) {
+        float tw = collisionLayer.getTileWidth();
+        float th = collisionLayer.getTileHeight();
+
+        for (Rectangle rectangle : bitmap.toRectangles()) {
+            constructor.construct(rectangle.x * tw, rectangle.y * th, rectangle.width * tw, rectangle.height * th);
+            environmentBodyCount++;
+        }
+    }
+
 
     private void createEnvironmentBodies() {
         Constructor createObstacle = (float x, float y, float w, float h) -> (new Obstacle(this, x, y, w, h));
         Constructor createWater = (float x, float y, float w, float h) -> (new WaterEntity(this, x, y, w, h));
 
-        layerMap(getCollisionLayer(), createObstacle);
-        layerMap(getObstaclesLayer(), createObstacle);
-        layerMap(getWaterLayer(),     createWater   );
+        if (colliderMode == ColliderMode.MERGED) {
+            rectangleMap(collisionMap, createObstacle);
+        } else {
+            layerMap(getCollisionLayer(), createObstacle);
+            layerMap(getObstaclesLayer(), createObstacle);
+        }
+
+        // Water only blocks mobs, the player's swimming state comes from the water map.
+        rectangleMap(waterMap, createWater);
 
         
         float mapHeight = getMapHeight();
@@ -231,26 +494,70 @@ public class Round {
         new Obstacle(this, -tw,      -tw,       mapWidth+tw, tw          );
         new Obstacle(this, -tw,      mapHeight, mapWidth+tw, tw          );
         new Obstacle(this, mapWidth, -tw,       tw,          mapHeight+tw);
+        environmentBodyCount += 4;
     }
     
     
     /**
-     * Tests if a point resides inside a body
+     * Tests if a point resides inside the static map geometry.
      * @param x x
      * @param y y
-     * @return whether the point is in the body
+     * @return whether the point is blocked
      */
     public boolean collidePoint(float x, float y) {
-        return collidePoint(new Vector2(x, y));
+        return isPointBlocked(x, y);
     }
     public boolean collidePoint(Vector2 p) {
-        return collidePoint(p, PhysicsEntity.WORLD_BITS);
+        return isPointBlocked(p.x, p.y);
     }
+
+    /**
+     * Tests if a point resides inside a body with any of the given category bits.
+     * The static map geometry is looked up in the collision map; only other categories need a Box2D query.
+     * @param p        the point, which is scaled to metres if a Box2D query is needed
+     * @param maskBits the categories to test against
+     * @return whether the point is in a body
+     */
     public boolean collidePoint(Vector2 p, short maskBits) {
+        if ((maskBits & PhysicsEntity.WORLD_BITS) != 0 && isPointBlocked(p.x, p.y)) {
+            return true;
+        }
+        maskBits &= ~PhysicsEntity.WORLD_BITS;
+        if (maskBits == 0) {
+            return false;
+        }
         p.scl(PhysicsEntity.METRES_PER_PIXEL);
         Collision.Query q = new Collision.QueryPoint(world, p, maskBits);
         return q.query();
     }
+
+    /**
+     * Tests if a point lies on a blocked map tile. Everything outside the map is blocked.
+     * @param x the x coordinate, in pixels
+     * @param y the y coordinate, in pixels
+     * @return whether the point is blocked
+     */
+    public boolean isPointBlocked(float x, float y) {
+        return isBlockedTile((int) Math.floor(x / tileWidth), (int) Math.floor(y / tileHeight));
+    }
+
+    /**
+     * Tests if a map tile is blocked. Everything outside the map is blocked.
+     * @param tileX the x index of the tile
+     * @param tileY the y index of the tile
+     * @return whether the tile is blocked
+     */
+    public boolean isBlockedTile(int tileX, int tileY) {
+        return !collisionMap.inBounds(tileX, tileY) || collisionMap.get(tileX, tileY);
+    }
+
+    /**
+     * Gets the map of blocked tiles, built once from the Collision and chosen Obstacles layers.
+     * @return the collision map
+     */
+    public TileBitmap getCollisionMap() {
+        return collisionMap;
+    }
     
     public boolean collideArea(Vector2 pos, Vector2 size) {
         return collideArea(pos, size, PhysicsEntity.WORLD_BITS);
@@ -262,10 +569,32 @@ public class Round {
         return q.query();
     }
     
+    /**
+     * Tests whether the straight line between two points is free of static map geometry.
+     * @param pos1 the start of the line, in pixels
+     * @param pos2 the end of the line, in pixels
+     * @return whether the line is clear
+     */
     public boolean rayCast(Vector2 pos1, Vector2 pos2){
-        return rayCast(pos1, pos2, PhysicsEntity.WORLD_BITS);
+        return isLineClear(pos1.x, pos1.y, pos2.x, pos2.y);
     }
+
+    /**
+     * Tests whether the straight line between two points is free of bodies with any of the given category bits.
+     * The static map geometry is tested on the collision map; only other categories need a Box2D ray cast.
+     * @param pos1     the start of the line, in pixels
+     * @param pos2     the end of the line, in pixels
+     * @param maskBits the categories that block the line
+     * @return whether the line is clear
+     */
     public boolean rayCast(Vector2 pos1, Vector2 pos2, short maskBits) {
+        if ((maskBits & PhysicsEntity.WORLD_BITS) != 0 && !isLineClear(pos1.x, pos1.y, pos2.x, pos2.y)) {
+            return false;
+        }
+        maskBits &= ~PhysicsEntity.WORLD_BITS;
+        if (maskBits == 0) {
+            return true;
+        }
         RayCast.RayCastCB r = new RayCast.RayCastCB(maskBits);
         world.rayCast(
                 r,
@@ -274,23 +603,255 @@ public class Round {
         );
         return r.clear;
     }
-    
-    public boolean pathIsClear(Vector2 pos, Vector2 size, Vector2 target){
-        float width  = size.x;
-        float height = size.y;
-        Vector2[] corners = {new Vector2( width/2,  height/2),
-                             new Vector2(-width/2,  height/2),
-                             new Vector2(-width/2,  -height/2),
-                             new Vector2(width/2,  -height/2)
-                         };
-        boolean result = true;
-        
-        for (Vector2 corner : corners){
-            result = result && rayCast(corner.cpy().add(pos), corner.cpy().add(target));
-            
+
+    /**
+     * Tests whether the straight line between two points crosses no blocked map tiles.
+     * @param x1 the x coordinate of the start of the line, in pixels
+     * @param y1 the y coordinate of the start of the line, in pixels
+     * @param x2 the x coordinate of the end of the line, in pixels
+     * @param y2 the y coordinate of the end of the line, in pixels
+     * @return whether the line is clear
+     */
+    public boolean isLineClear(float x1, float y1, float x2, float y2) {
+        return GridRay.isClear(collisionMap, x1 / tileWidth, y1 / tileHeight, x2 / tileWidth, y2 / tileHeight);
+    }
+
+    /**
+     * Tests whether the player could see a point, looking through the static map geometry only.
+     * Answered from a field computed from the player's tile when the snapshot is taken, if a mob said it might ask,
+     * so it is safe to call while mobs think. Falls back to a ray if the field is out of date or doesn't reach.
+     * @param x the x coordinate of the point, in pixels
+     * @param y the y coordinate of the point, in pixels
+     * @return whether the point is visible from the player
+     */
+    public boolean canSeePlayer(float x, float y) {
+        int tileX = (int) Math.floor(x / tileWidth);
+        int tileY = (int) Math.floor(y / tileHeight);
+
+        if (visibilityTileX == playerTileX && visibilityTileY == playerTileY && visibilityField.inRange(tileX, tileY)) {
+            return visibilityField.isVisible(tileX, tileY);
         }
-        
-        return result;
+
+        return isLineClear(x, y, playerSnapshot.x, playerSnapshot.y);
+    }
+
+    /**
+     * Gets the flow field leading to the player's tile as of the last snapshot.
+     * @return the flow field
+     */
+    public FlowField getPlayerFlowField() {
+        return playerFlowField;
+    }
+
+    /**
+     * Gets the centre of the player as of the last snapshot, which is what mobs should chase while they think.
+     * @return the player's centre, which must not be changed
+     */
+    public Vector2 getPlayerSnapshot() {
+        return playerSnapshot;
+    }
+
+    /**
+     * Records the player's and mobs' positions for the think phase, and brings the fields and squads shared by
+     * mobs up to date with them, so nothing needs writing while mobs think. The visibility field is only worked out
+     * if a mob might ask about it, and the player has changed tile since it last was.
+     */
+    private void takeSnapshot() {
+        playerSnapshot.set(player.getCentre());
+        playerTileX = (int) Math.floor(playerSnapshot.x / tileWidth);
+        playerTileY = (int) Math.floor(playerSnapshot.y / tileHeight);
+
+        playerFlowField.setTarget(playerTileX, playerTileY);
+
+        boolean visibilityWanted = false;
+        for (Mob mob : thinkList) {
+            mob.takeSnapshot();
+            visibilityWanted |= mob.mayAskVisibility();
+        }
+        if (visibilityWanted && (visibilityTileX != playerTileX || visibilityTileY != playerTileY)) {
+            visibilityField.compute(playerTileX, playerTileY);
+            visibilityTileX = playerTileX;
+            visibilityTileY = playerTileY;
+        }
+        squads.form(thinkList, this);
+    }
+
+    /**
+     * Gets the squads of mobs sharing paths, for their statistics.
+     * @return the squads
+     */
+    public Squads getSquads() {
+        return squads;
+    }
+
+    /**
+     * Gets the level of detail settings and statistics for mob AI.
+     * @return the level of detail
+     */
+    public LevelOfDetail getLevelOfDetail() {
+        return levelOfDetail;
+    }
+
+    /**
+     * @param parallel whether mobs should think in parallel, which gives the same results as thinking one at a time
+     */
+    public void setParallelAI(boolean parallel) {
+        thinkPhase.setParallel(parallel);
+    }
+
+    /**
+     * @return whether mobs think in parallel
+     */
+    public boolean isParallelAI() {
+        return thinkPhase.isParallel();
+    }
+
+    /**
+     * Switches every mob, and every mob added later, between Box2D movement and kinematic movement through the tile
+     * grid. Kinematic mobs keep their bodies for touching the player and projectiles, but Box2D doesn't solve their
+     * contacts with the map. Must not be called during a world step.
+     * @param kinematic whether mobs should move kinematically
+     */
+    public void setKinematicMobs(boolean kinematic) {
+        kinematicMobs = kinematic;
+        if (!kinematic) {
+            kinematicList.clear();
+            lastMoveTime = 0;
+        }
+        for (Mob mob : entities.getMobs()) {
+            mob.setKinematic(kinematic);
+        }
+    }
+
+    /**
+     * @return whether mobs move kinematically
+     */
+    public boolean isKinematicMobs() {
+        return kinematicMobs;
+    }
+
+    /**
+     * @return how long moving kinematic mobs took in the last update, in nanoseconds
+     */
+    public long getLastMoveTime() {
+        return lastMoveTime;
+    }
+
+    /**
+     * @return how many kinematic mobs were moved in the last update
+     */
+    public int getKinematicMobCount() {
+        return kinematicList.size();
+    }
+
+    /**
+     * @return how long mobs spent thinking in the last update, in nanoseconds
+     */
+    public long getLastThinkTime() {
+        return thinkPhase.getLastTime();
+    }
+
+    /**
+     * Gets the scheduler that mobs request paths from. Its budget can be changed with setBudget.
+     * @return the path scheduler
+     */
+    public PathScheduler getPathScheduler() {
+        return pathScheduler;
+    }
+
+    /**
+     * Gets the search used to find paths for mobs of a given size, which only uses tiles wide enough for them.
+     * Built the first time it is asked for, which addMob does for every mob using PathfindingAI.
+     * @param size the size of the mob
+     * @return the search
+     */
+    public HierarchicalSearch getPathfinder(Vector2 size) {
+        int clearance = getRequiredClearance(size);
+        if (clearance >= pathfinders.length) {
+            pathfinders = Arrays.copyOf(pathfinders, clearance + 1);
+        }
+        if (pathfinders[clearance] == null) {
+            pathfinders[clearance] = new HierarchicalSearch(clearanceMap.narrowerThan(clearance));
+        }
+        return pathfinders[clearance];
+    }
+
+    /**
+     * Gets the navigation mesh for mobs of a given size, which only covers tiles wide enough for them.
+     * Built the first time it is asked for, which addMob does for every mob using NavMeshAI or BehaviourTreeAI.
+     * @param size the size of the mob
+     * @return the navigation mesh
+     */
+    public NavMesh getNavMesh(Vector2 size) {
+        int clearance = getRequiredClearance(size);
+        if (clearance >= navMeshes.length) {
+            navMeshes = Arrays.copyOf(navMeshes, clearance + 1);
+        }
+        if (navMeshes[clearance] == null) {
+            navMeshes[clearance] = new NavMesh(clearanceMap.narrowerThan(clearance));
+        }
+        return navMeshes[clearance];
+    }
+
+    /**
+     * Gets the clearance map, built once from the collision map.
+     * @return the clearance map
+     */
+    public ClearanceMap getClearanceMap() {
+        return clearanceMap;
+    }
+
+    /**
+     * Gets the clearance a box needs to fit through the map's tiles.
+     * @param size the size of the box
+     * @return the clearance, which is 1 for boxes no bigger than a tile
+     */
+    public int getRequiredClearance(Vector2 size) {
+        return ClearanceMap.requiredClearance(Math.max(size.x, size.y), Math.min(tileWidth, tileHeight));
+    }
+
+    /**
+     * Tests whether a mob centred on a tile would be clear of walls and water.
+     * @param tileX the x index of the tile
+     * @param tileY the y index of the tile
+     * @param size  the size of the mob
+     * @return whether the mob fits there
+     */
+    public boolean mobFits(int tileX, int tileY, Vector2 size) {
+        return mobClearanceMap.getClearance(tileX, tileY) >= getRequiredClearance(size);
+    }
+
+    /**
+     * Tests whether a box can move in a straight line through tiles wide enough for it, using the clearance map.
+     * The line traced by the centre is walked through tiles with enough clearance, which catches walls that would
+     * pass between the corners of a large box, and the lines traced by the corners are tested as in pathIsClear,
+     * which catches wall corners the box would graze when it isn't centred on its tile.
+     * @param pos    the centre of the box now
+     * @param size   the size of the box
+     * @param target the centre of the box at the end of the move
+     * @return whether the box fits all the way along the line
+     */
+    public boolean pathFits(Vector2 pos, Vector2 size, Vector2 target) {
+        return clearanceMap.isLineClear(pos.x / tileWidth, pos.y / tileHeight, target.x / tileWidth, target.y / tileHeight,
+                getRequiredClearance(size)) && pathIsClear(pos, size, target);
+    }
+
+    /**
+     * Tests whether a box can move in a straight line without hitting static map geometry,
+     * by testing the lines traced by its four corners.
+     * @param pos    the centre of the box now
+     * @param size   the size of the box
+     * @param target the centre of the box at the end of the move
+     * @return whether the path is clear
+     */
+    public boolean pathIsClear(Vector2 pos, Vector2 size, Vector2 target){
+        float halfWidth  = size.x / 2;
+        float halfHeight = size.y / 2;
+
+        return isLineClear(pos.x + halfWidth, pos.y + halfHeight, target.x + halfWidth, target.y + halfHeight)
+            && isLineClear(pos.x - halfWidth, pos.y + halfHeight, target.x - halfWidth, target.y + halfHeight)
+            && isLineClear(pos.x - halfWidth, pos.y - halfHeight, target.x - halfWidth, target.y - halfHeight)
+            && isLineClear(pos.x + halfWidth, pos.y - halfHeight, target.x + halfWidth, target.y - halfHeight);
     }
 
 
@@ -311,6 +872,12 @@ public class Round {
 
 
     public Mob addMob(Mob mob) {
+        mob.setKinematic(kinematicMobs);
+        if (mob.getAI() instanceof PathfindingAI) {
+            getPathfinder(mob.getSize());
+        } else if (mob.getAI() instanceof NavMeshAI || mob.getAI() instanceof BehaviourTreeAI) {
+            getNavMesh(mob.getSize());
+        }
         entities.add(mob);
         return mob;
     }
@@ -390,6 +957,94 @@ public class Round {
         return (int) getBaseLayer().getTileHeight();
     }
 
+    /**
+     * Gets how the map geometry was turned into bodies.
+     * @return this Round's collider mode
+     */
+    public ColliderMode getColliderMode() {
+        return colliderMode;
+    }
+
+    /**
+     * Gets how many static bodies were created for the map geometry, including the map edges.
+     * @return the number of environment bodies
+     */
+    public int getEnvironmentBodyCount() {
+        return environmentBodyCount;
+    }
+
+    /**
+     * Gets how long the most recent world step took.
+     * @return the duration of the last world step, in nanoseconds
+     */
+    public long getLastStepTime() {
+        return lastStepTime;
+    }
+
+    /**
+     * Gets how far between the last two updates entities are drawn.
+     * @return the interpolation alpha, from 0 to 1
+     */
+    public float getInterpolationAlpha() {
+        return interpolationAlpha;
+    }
+
+    /**
+     * Sets how far between the last two updates entities are drawn, from how much time is left over before the next.
+     * @param interpolationAlpha the interpolation alpha, from 0 to 1
+     */
+    public void setInterpolationAlpha(float interpolationAlpha) {
+        this.interpolationAlpha = interpolationAlpha;
+    }
+
+    /**
+     * Gets the projectiles, to draw them, deflect them and for their statistics.
+     * @return the projectile manager
+     */
+    public ProjectileManager getProjectiles() {
+        return projectiles;
+    }
+
+    /**
+     * Gets the particle effects, to draw them and for their statistics.
+     * @return the particle system
+     */
+    public ParticleSystem getParticles() {
+        return particles;
+    }
+
+    /**
+     * Gets the listener that passes contacts on to entities, which also counts contacts between categories.
+     * @return the contact listener
+     */
+    public CustomContactListener getContactListener() {
+        return contactListener;
+    }
+
+    /**
+     * Gets how many contacts Box2D is tracking, touching or not, as of the last world step.
+     * @return the number of contacts
+     */
+    public int getContactCount() {
+        return world.getContactCount();
+    }
+
+    /**
+     * Gets how many bodies took part in the simulation in the last update.
+     * @return the number of active bodies
+     */
+    public int getActiveBodyCount() {
+        return world.getBodyCount() - inactiveBodyCount;
+    }
+
+    /**
+     * Gets how many bodies were left out of the simulation in the last update because they were far from the player.
+     * @return the number of inactive bodies
+     */
+    public int getInactiveBodyCount() {
+        return inactiveBodyCount;
+    }
+
     /**
      * Gets whether the map tile at the specified coordinates is blocked or not.
      *
@@ -398,10 +1053,32 @@ public class Round {
      * @return whether or not the map tile is blocked
      */
     public boolean isTileBlocked(int x, int y) {
-        int tileX = x / getTileWidth();
-        int tileY = y / getTileHeight();
+        return isPointBlocked(x, y);
+    }
 
-        return getCollisionLayer().getCell(tileX, tileY) != null || (getObstaclesLayer() != null && getObstaclesLayer().getCell(tileX, tileY) != null);
+    /**
+     * Gets whether any part of an area overlaps a water tile.
+     *
+     * @param x      the x coordinate of the bottom left corner of the area
+     * @param y      the y coordinate of the bottom left corner of the area
+     * @param width  the width of the area
+     * @param height the height of the area
+     * @return whether the area touches water
+     */
+    public boolean isInWater(float x, float y, float width, float height) {
+        int minX = (int) Math.floor(x / tileWidth);
+        int minY = (int) Math.floor(y / tileHeight);
+        int maxX = (int) Math.ceil((x + width) / tileWidth) - 1;
+        int maxY = (int) Math.ceil((y + height) / tileHeight) - 1;
+
+        for (int tileX = minX; tileX <= maxX; tileX++) {
+            for (int tileY = minY; tileY <= maxY; tileY++) {
+                if (waterMap.get(tileX, tileY)) {
+                    return true;
+                }
+            }
+        }
+        return false;
     }
 
     /**
@@ -429,9 +1106,9 @@ public class Round {
 
     /**
      * Gets all entities in the round
-     * @return the list of all entities currently in the Round
+     * @return the registry of all entities currently in the Round
      */
-    public List<Entity> getEntities() {
+    public EntityRegistry getEntities() {
         return entities;
     }
 
@@ -445,6 +1122,102 @@ public class Round {
         entities.add(newEntity);
     }
 
+    /**
+     * Sorts mobs into level of detail tiers, which also activates or deactivates their bodies.
+     * NEAR mobs are found again by the spatial hash query, so only the cheaper tiers are kept.
+     */
+    private void updateTiers() {
+        // Measured from the same point as UPDATE_DISTANCE so every NEAR mob is one the query finds.
+        float playerX = player.getX();
+        float playerY = player.getY();
+
+        levelOfDetail.begin();
+        midList.clear();
+        farList.clear();
+        inactiveBodyCount = 0;
+
+        for (Mob mob : entities.getMobs()) {
+            Vector2 centre = mob.getCentre();
+            float distance = Vector2.dst(centre.x, centre.y, playerX, playerY);
+
+            switch (levelOfDetail.classify(mob, distance)) {
+                case MID:
+                    midList.add(mob);
+                    break;
+                case FAR:
+                    farList.add(mob);
+                    break;
+                default:
+                    break;
+            }
+
+            if (!mob.isBodyActive()) {
+                inactiveBodyCount++;
+            }
+        }
+    }
+
+    /**
+     * Moves every mob with an active body by its kinematic velocity, keeping it out of blocked tiles and apart from
+     * its neighbours. Mobs in the FAR tier have inactive bodies and hop from tile to tile instead.
+     * @param delta time since the previous update
+     */
+    private void moveKinematicMobs(float delta) {
+        long moveStart = System.nanoTime();
+
+        kinematicMover.clear();
+        kinematicList.clear();
+        for (Mob mob : entities.getMobs()) {
+            if (!mob.isRemoved() && mob.isBodyActive()) {
+                Vector2 centre = mob.getCentre();
+                Vector2 velocity = mob.getKinematicVelocity();
+                kinematicMover.add(centre.x, centre.y, mob.getWidth() / 2, mob.getHeight() / 2,
+                        velocity.x * PhysicsEntity.PIXELS_PER_METRE, velocity.y * PhysicsEntity.PIXELS_PER_METRE);
+                kinematicList.add(mob);
+            }
+        }
+
+        kinematicMover.move(delta);
+
+        for (int i = 0; i < kinematicList.size(); i++) {
+            Mob mob = kinematicList.get(i);
+            mob.setCentre(kinematicMover.getX(i), kinematicMover.getY(i));
+            mob.getKinematicVelocity().set(kinematicMover.getVelocityX(i), kinematicMover.getVelocityY(i))
+                    .scl(PhysicsEntity.METRES_PER_PIXEL);
+        }
+
+        lastMoveTime = System.nanoTime() - moveStart;
+    }
+
+    /**
+     * Finds every entity whose centre lies inside a rectangle, as of the start of the current update.
+     * Nothing is allocated, so this is safe to call every frame.
+     *
+     * @param minX     the left edge of the rectangle
+     * @param minY     the bottom edge of the rectangle
+     * @param maxX     the right edge of the rectangle
+     * @param maxY     the top edge of the rectangle
+     * @param maskBits only entities with one of these category bits are reported, or every entity if 0
+     * @param callback receives each entity found
+     */
+    public void queryArea(float minX, float minY, float maxX, float maxY, short maskBits, SpatialHash.Callback callback) {
+        spatialHash.queryArea(minX, minY, maxX, maxY, maskBits, callback);
+    }
+
+    /**
+     * Finds every entity whose centre lies within a distance of a point, as of the start of the current update.
+     * Nothing is allocated, so this is safe to call every frame.
+     *
+     * @param x        the x coordinate of the point
+     * @param y        the y coordinate of the point
+     * @param radius   the maximum distance
+     * @param maskBits only entities with one of these category bits are reported, or every entity if 0
+     * @param callback receives each entity found
+     */
+    public void queryRadius(float x, float y, float radius, short maskBits, SpatialHash.Callback callback) {
+        spatialHash.queryRadius(x, y, radius, maskBits, callback);
+    }
+
     /**
      * Gets the current objective of this Round.
      *
@@ -463,15 +1236,23 @@ public class Round {
         this.objective = objective;
     }
 
+    /**
+     * Fires a projectile.
+     *
+     * @param pos      the centre of the projectile
+     * @param velocity the velocity, in metres per second
+     * @param damage   how much damage the projectile deals
+     * @param owner    the one who fired it, which it can't hit
+     */
     public void createProjectile(Vector2 pos, Vector2 velocity, int damage, PhysicsEntity owner) {
-        entities.add(new Projectile(this, pos, velocity, damage, owner));
+        projectiles.spawn(pos.x, pos.y, velocity, damage, owner);
         Assets.gunShot.setVolume(Assets.gunShot.play(), 0.5f);
 
 
     }
 
     /**
-     * Creates a new particle effect and adds it to the list of entities.
+     * Creates a new particle effect and adds it to the particle system.
      *
      * @param x         the x coordinate of the center of the particle effect
      * @param y         the y coordinate of the center of the particle effect
@@ -479,11 +1260,11 @@ public class Round {
      * @param animation the animation to use for the particle effect
      */
     public void createParticle(float x, float y, float duration, Animation animation) {
-        entities.add(new Particle(this, x - animation.getKeyFrame(0).getRegionWidth() / 2, y - animation.getKeyFrame(0).getRegionHeight() / 2, duration, animation));
+        particles.spawn(x - animation.getKeyFrame(0).getRegionWidth() / 2, y - animation.getKeyFrame(0).getRegionHeight() / 2, duration, animation);
     }
 
     /**
-     * Creates a new particle effect and adds it to the list of entities.
+     * Creates a new particle effect and adds it to the particle system.
      *
      * @param position  the particle's starting position
      * @param duration  how long the particle effect should last for
@@ -504,28 +1285,62 @@ public class Round {
         entities.add(new PickupItem(this, x, y, pickup, pickup.getDuration()));
     }
 
+    /**
+     * Remembers where every entity is, so they can be drawn between there and where the next update puts them.
+     * Only the update before a frame is drawn needs this.
+     */
+    public void savePreviousPositions() {
+        for (Entity entity : entities) {
+            entity.savePreviousPosition();
+        }
+    }
+
     /**
      * Updates all entities in this Round.
      *
      * @param delta the time elapsed since the last update
      */
     public void update(float delta) {
+        long stepStart = System.nanoTime();
         world.step(delta, 6, 2);
+        lastStepTime = System.nanoTime() - stepStart;
 
-        for (int i = 0; i < entities.size();i++) {
-            Entity entity = entities.get(i);
+        entities.sweep(removalListener);
+        updateTiers();
 
-            if (entity.isRemoved()) {
-                if (entity instanceof Mob && ((Mob) entity).isDead()) {
-                    player.addScore((int) (10 * (player.hasPickup(Player.Pickup.SCORE_MULTIPLIER) ? Player.PLAYER_SCORE_MULTIPLIER : 1)));
-                }
-                entity.dispose();
-                entities.remove(i--);
-            } else if (entity.distanceTo(player.getX(), player.getY()) < UPDATE_DISTANCE){
-                // Don't bother updating entities that aren't on screen.
+        spatialHash.rebuild(entities);
+
+        // Don't bother updating entities that aren't on screen.
+        updateList.clear();
+        thinkList.clear();
+        spatialHash.queryRadius(player.getX(), player.getY(), UPDATE_DISTANCE, (short) 0, updateCallback);
+
+        // Mobs decide what to do from a snapshot, possibly in parallel, then everything is updated one at a time,
+        // with mobs carrying out their decisions.
+        long nearStart = System.nanoTime();
+        takeSnapshot();
+        thinkPhase.run(thinkList, delta);
+
+        for (Entity entity : updateList) {
+            if (!entity.isRemoved()) {
                 entity.update(delta);
             }
         }
+        levelOfDetail.setNearTime(System.nanoTime() - nearStart);
+
+        projectiles.update(delta);
+        particles.update(delta);
+
+        // Mobs further away get cheaper AI.
+        levelOfDetail.updateMid(midList, playerSnapshot);
+        levelOfDetail.updateFar(farList, playerFlowField, this, delta);
+
+        if (kinematicMobs) {
+            moveKinematicMobs(delta);
+        }
+
+        // Find the paths mobs asked for this update, as far as the budget allows. The rest wait for the next one.
+        pathScheduler.update();
 
         if (objective != null) {
             objective.update(delta);
@@ -23,9 +23,26 @@ public abstract class AI {
     }
     
     /**
-     * Updates this AI.
+     * Decides what the Mob should do. Runs in the Round's think phase, possibly on another thread alongside other
+     * AIs, so it may only read the Round's snapshot (the Mob's snapshot centre, the player's snapshot centre and the
+     * static maps) and write this AI's own fields. Anything random must come from this AI's own generator.
      * @param mob reference to the Mob using this AI
      * @param delta time since the previous update
      */
-    public abstract void update(Mob mob, float delta);
+    public abstract void think(Mob mob, float delta);
+
+    /**
+     * Carries out the decision made by think. Runs on the game thread, one Mob at a time.
+     * @param mob reference to the Mob using this AI
+     */
+    public abstract void act(Mob mob);
+
+    /**
+     * Whether think might ask the Round if the player can be seen, so the Round knows to work out its visibility
+     * field for this update.
+     * @return whether this AI might ask
+     */
+    public boolean mayAskVisibility() {
+        return false;
+    }
 }
@@ -0,0 +1,333 @@
+package com.superduckinvaders.game.ai;
+
+import com.badlogic.gdx.ai.btree.BehaviorTree;
+import com.badlogic.gdx.ai.btree.Task;
+import com.badlogic.gdx.ai.btree.utils.BehaviorTreeLibrary;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.FloatArray;
+import com.superduckinvaders.game.Round;
+import com.superduckinvaders.game.ai.btree.CanSeePlayerTask;
+import com.superduckinvaders.game.entity.mob.Mob;
+
+/**
+ * AI driven by a gdx-ai behaviour tree, so a mob's behaviour can be written as a tree file in assets/ai instead of
+ * a subclass. The tasks it can use are in the ai.btree package.
+ * <p>
+ * The tree is stepped in the think phase, but only every tickInterval seconds, so each mob's decisions cost a
+ * bounded amount however often the game updates. The tasks don't touch the mob: they set what it should be doing
+ * (standing still, chasing the player or following a path, and whether to shoot), which is carried out every
+ * update. Finding a path is asked of the Round's PathScheduler, so the task doing it stays RUNNING for as many
+ * steps as the request waits.
+ */
+public class BehaviourTreeAI extends AI {
+
+    /**
+     * How often trees are stepped by default, in seconds.
+     */
+    public static final float DEFAULT_TICK_INTERVAL = 0.2f;
+
+    /**
+     * How close the mob must get to a path corner, in pixels, before heading for the next one.
+     */
+    public static final float CORNER_RADIUS = 4f;
+
+    /**
+     * What the tree has told the mob to do about moving.
+     */
+    public enum Movement {
+        STAND, CHASE_PLAYER, FOLLOW_PATH
+    }
+
+    /**
+     * How far a path request has got.
+     */
+    public enum PathState {
+        NONE, WAITING, FOUND, FAILED
+    }
+
+    /**
+     * Loads and caches tree files, handing out a copy of the tree to each AI.
+     */
+    private static BehaviorTreeLibrary library;
+
+    private final BehaviorTree<BehaviourTreeAI> tree;
+
+    /**
+     * Whether the tree has a CanSeePlayerTask anywhere in it.
+     */
+    private final boolean asksVisibility;
+
+    /**
+     * How often the tree is stepped, and the time since it last was.
+     */
+    private float tickInterval;
+    private float sinceTick;
+
+    /**
+     * How many times the tree has been stepped.
+     */
+    private int steps = 0;
+
+    /**
+     * The mob being thought for, during the step.
+     */
+    private Mob mob;
+
+    private Movement movement = Movement.STAND;
+    private boolean shooting = false;
+
+    /**
+     * The corners of the last path found, in pixels, as x and y pairs, the index of the one being moved towards,
+     * and the tile the path leads to, packed into an int.
+     */
+    private final FloatArray corners = new FloatArray();
+    private int cornerIndex = 0;
+    private int pathGoal = -1;
+    private PathState pathState = PathState.NONE;
+
+    /**
+     * Whether a task asked for a path during the step, to be sent in act.
+     */
+    private boolean wantsPath = false;
+
+    private final PathScheduler.Request request = new PathScheduler.Request() {
+        @Override
+        protected void serve() {
+            servePath();
+        }
+    };
+    private Mob requestMob;
+
+    /**
+     * The point to move towards, or null to stand still.
+     */
+    private Vector2 target;
+    private final Vector2 waypoint = new Vector2();
+    private final Vector2 heading = new Vector2();
+
+    /**
+     * Initialises this BehaviourTreeAI with a tree of its own, which mustn't be shared with another AI.
+     *
+     * @param round        the round the Mob this AI controls is a part of
+     * @param tree         the behaviour tree
+     * @param tickInterval how often to step the tree, in seconds
+     */
+    public BehaviourTreeAI(Round round, BehaviorTree<BehaviourTreeAI> tree, float tickInterval) {
+        super(round);
+
+        this.tree = tree;
+        this.tickInterval = tickInterval;
+        this.asksVisibility = containsVisibilityTask(tree);
+        tree.setObject(this);
+
+        // Start each tree at a different point in its interval, so a crowd doesn't all step at once.
+        this.sinceTick = new RandomXS128(MathUtils.random.nextLong()).nextFloat() * tickInterval;
+    }
+
+    private static boolean containsVisibilityTask(Task<BehaviourTreeAI> task) {
+        if (task instanceof CanSeePlayerTask) {
+            return true;
+        }
+        for (int i = 0; i < task.getChildCount(); i++) {
+            if (containsVisibilityTask(task.getChild(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean mayAskVisibility() {
+        return asksVisibility;
+    }
+
+    /**
+     * Creates a BehaviourTreeAI with a copy of the tree in a file, which is only parsed the first time.
+     * Must be called on the game thread.
+     *
+     * @param round        the round the Mob this AI controls is a part of
+     * @param file         the tree file, relative to the assets folder, such as "ai/chaser.tree"
+     * @param tickInterval how often to step the tree, in seconds
+     * @return the AI
+     */
+    public static BehaviourTreeAI load(Round round, String file, float tickInterval) {
+        if (library == null) {
+            library = new BehaviorTreeLibrary();
+        }
+        BehaviorTree<BehaviourTreeAI> tree = library.createBehaviorTree(file);
+        return new BehaviourTreeAI(round, tree, tickInterval);
+    }
+
+    /**
+     * Steps the tree if it is due, then moves on past any path corners the mob has reached.
+     *
+     * @param mob   the Mob using this AI
+     * @param delta time since the previous update
+     */
+    @Override
+    public void think(Mob mob, float delta) {
+        this.mob = mob;
+
+        sinceTick += delta;
+        if (sinceTick >= tickInterval) {
+            sinceTick %= tickInterval;
+            tree.step();
+            steps++;
+        }
+
+        switch (movement) {
+            case CHASE_PLAYER:
+                target = waypoint.set(round.getPlayerSnapshot());
+                break;
+            case FOLLOW_PATH:
+                Vector2 centre = mob.getSnapshotCentre();
+                while (!isAtPathEnd() && centre.dst(corners.get(cornerIndex * 2), corners.get(cornerIndex * 2 + 1)) < CORNER_RADIUS) {
+                    cornerIndex++;
+                }
+                target = (cornerIndex * 2 < corners.size)
+                        ? waypoint.set(corners.get(cornerIndex * 2), corners.get(cornerIndex * 2 + 1)) : null;
+                break;
+            default:
+                target = null;
+        }
+    }
+
+    /**
+     * Sends any path request, shoots if the tree said to, and moves towards the target.
+     *
+     * @param mob the Mob using this AI
+     */
+    @Override
+    public void act(Mob mob) {
+        if (wantsPath) {
+            wantsPath = false;
+            requestMob = mob;
+            round.getPathScheduler().request(request, mob.getSnapshotCentre().dst(round.getPlayerSnapshot()));
+        }
+
+        if (shooting) {
+            shooting = false;
+            mob.shootAt(round.getPlayer().getCentre());
+        }
+
+        if (target != null) {
+            mob.applyVelocity(heading.set(target));
+        }
+    }
+
+    /**
+     * Finds a path on the navigation mesh from the mob to the player, once the PathScheduler gets to the request.
+     */
+    private void servePath() {
+        if (requestMob.isRemoved()) {
+            return;
+        }
+
+        Vector2 centre = requestMob.getSnapshotCentre();
+        Vector2 player = round.getPlayerSnapshot();
+        float tileWidth = round.getTileWidth(), tileHeight = round.getTileHeight();
+
+        cornerIndex = 0;
+        pathGoal = getPlayerTile();
+        if (round.getNavMesh(requestMob.getSize()).findPath(centre.x / tileWidth, centre.y / tileHeight,
+                player.x / tileWidth, player.y / tileHeight, corners)) {
+            for (int i = 0; i < corners.size; i += 2) {
+                corners.set(i, corners.get(i) * tileWidth);
+                corners.set(i + 1, corners.get(i + 1) * tileHeight);
+            }
+            pathState = PathState.FOUND;
+        } else {
+            corners.clear();
+            pathState = PathState.FAILED;
+        }
+    }
+
+    /**
+     * @return the mob being thought for. Only valid while the tree is being stepped
+     */
+    public Mob getMob() {
+        return mob;
+    }
+
+    /**
+     * @return the round the mob is in
+     */
+    public Round getRound() {
+        return round;
+    }
+
+    /**
+     * @param movement what the mob should do about moving from now on
+     */
+    public void setMovement(Movement movement) {
+        this.movement = movement;
+    }
+
+    /**
+     * Makes the mob shoot at the player in the next act, if its gun has cooled down.
+     */
+    public void shoot() {
+        shooting = true;
+    }
+
+    /**
+     * Asks for a path to the player. The request is sent in act, and getPathState is WAITING until it is served.
+     */
+    public void requestPath() {
+        wantsPath = true;
+        pathState = PathState.WAITING;
+    }
+
+    /**
+     * @return how far the last path request has got
+     */
+    public PathState getPathState() {
+        return pathState;
+    }
+
+    /**
+     * @return whether the last path found leads to the tile the player is on now
+     */
+    public boolean isPathCurrent() {
+        return pathState == PathState.FOUND && pathGoal == getPlayerTile();
+    }
+
+    /**
+     * @return whether the mob is heading for the last corner of its path, or has no path
+     */
+    public boolean isAtPathEnd() {
+        return cornerIndex * 2 >= corners.size - 2;
+    }
+
+    /**
+     * @return the tile the player is on, as of the snapshot, packed into an int
+     */
+    private int getPlayerTile() {
+        Vector2 player = round.getPlayerSnapshot();
+        return (int) (player.y / round.getTileHeight()) * round.getCollisionMap().getWidth()
+                + (int) (player.x / round.getTileWidth());
+    }
+
+    /**
+     * @return how often the tree is stepped, in seconds
+     */
+    public float getTickInterval() {
+        return tickInterval;
+    }
+
+    /**
+     * @param tickInterval how often to step the tree, in seconds
+     */
+    public void setTickInterval(float tickInterval) {
+        this.tickInterval = tickInterval;
+    }
+
+    /**
+     * @return how many times the tree has been stepped
+     */
+    public int getSteps() {
+        return steps;
+    }
+}
@@ -18,13 +18,22 @@ public class DummyAI extends AI {
     }
 
     /**
-     * Updates this DummyAI.Commented.
+     * Decides to do nothing.
      *
      * @param mob   pointer to the Mob using this AI
      * @param delta time since the previous update
      */
     @Override
-    public void update(Mob mob, float delta) {
+    public void think(Mob mob, float delta) {
+    }
+
+    /**
+     * Does nothing.
+     *
+     * @param mob pointer to the Mob using this AI
+     */
+    @Override
+    public void act(Mob mob) {
     }
 
 }
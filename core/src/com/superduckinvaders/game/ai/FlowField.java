@@ -0,0 +1,182 @@
+package com.superduckinvaders.game.ai;
+
+import com.superduckinvaders.game.util.TileBitmap;
+
+import java.util.Arrays;
+
+/**
+ * The number of steps from every tile to one target tile, found with a breadth first search.
+ * Any number of mobs can follow the field downhill to reach the target, so it only has to be
+ * rebuilt when the target moves to another tile.
+ */
+public class FlowField {
+
+    /**
+     * The distance of tiles that can't reach the target.
+     */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    /**
+     * Steps to the eight neighbours, orthogonal ones first.
+     */
+    private static final int[] NEIGHBOUR_X = {0, 1, 0, -1, 1, 1, -1, -1};
+    private static final int[] NEIGHBOUR_Y = {1, 0, -1, 0, 1, -1, -1, 1};
+
+    /**
+     * The tiles that can't be walked through.
+     */
+    private final TileBitmap blocked;
+
+    private final int width, height;
+
+    /**
+     * The distance from each tile to the target, in steps.
+     */
+    private final int[] distance;
+
+    /**
+     * The search queue, reused for every rebuild.
+     */
+    private final int[] queue;
+
+    /**
+     * The target tile, or -1 if the field hasn't been built.
+     */
+    private int targetX = -1, targetY = -1;
+
+    /**
+     * How many times the field has been rebuilt.
+     */
+    private int rebuildCount = 0;
+
+    /**
+     * Creates an unbuilt FlowField.
+     *
+     * @param blocked the tiles that can't be walked through
+     */
+    public FlowField(TileBitmap blocked) {
+        this.blocked = blocked;
+        this.width = blocked.getWidth();
+        this.height = blocked.getHeight();
+        this.distance = new int[width * height];
+        this.queue = new int[width * height];
+        Arrays.fill(distance, UNREACHABLE);
+    }
+
+    /**
+     * Makes the field lead to a target tile, rebuilding it only if the target has changed.
+     *
+     * @param x the x index of the target tile
+     * @param y the y index of the target tile
+     * @return whether the field was rebuilt
+     */
+    public boolean setTarget(int x, int y) {
+        if (x == targetX && y == targetY) {
+            return false;
+        }
+        targetX = x;
+        targetY = y;
+        rebuild();
+        return true;
+    }
+
+    private void rebuild() {
+        rebuildCount++;
+        Arrays.fill(distance, UNREACHABLE);
+
+        if (!blocked.inBounds(targetX, targetY)) {
+            return;
+        }
+
+        int head = 0, tail = 0;
+        distance[targetY * width + targetX] = 0;
+        queue[tail++] = targetY * width + targetX;
+
+        while (head < tail) {
+            int index = queue[head++];
+            int x = index % width;
+            int y = index / width;
+            int next = distance[index] + 1;
+
+            for (int i = 0; i < NEIGHBOUR_X.length; i++) {
+                int nx = x + NEIGHBOUR_X[i];
+                int ny = y + NEIGHBOUR_Y[i];
+                if (!canStep(x, y, nx, ny)) {
+                    continue;
+                }
+                int neighbour = ny * width + nx;
+                if (distance[neighbour] == UNREACHABLE) {
+                    distance[neighbour] = next;
+                    queue[tail++] = neighbour;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets whether a mob can step from one tile to a neighbouring one. Diagonal steps may not cut a blocked corner.
+     */
+    private boolean canStep(int x, int y, int nx, int ny) {
+        if (!isFree(nx, ny)) {
+            return false;
+        }
+        return nx == x || ny == y || (isFree(nx, y) && isFree(x, ny));
+    }
+
+    private boolean isFree(int x, int y) {
+        return blocked.inBounds(x, y) && !blocked.get(x, y);
+    }
+
+    /**
+     * @param x the x index of a tile
+     * @param y the y index of a tile
+     * @return the number of steps from the tile to the target, or UNREACHABLE
+     */
+    public int getDistance(int x, int y) {
+        if (!blocked.inBounds(x, y)) {
+            return UNREACHABLE;
+        }
+        return distance[y * width + x];
+    }
+
+    /**
+     * Finds the neighbour of a tile that is closest to the target.
+     *
+     * @param x the x index of the tile
+     * @param y the y index of the tile
+     * @return the index (y * width + x) of the best neighbour, or -1 if no neighbour is closer than the tile itself
+     */
+    public int getNextTile(int x, int y) {
+        int best = -1;
+        int bestDistance = getDistance(x, y);
+
+        for (int i = 0; i < NEIGHBOUR_X.length; i++) {
+            int nx = x + NEIGHBOUR_X[i];
+            int ny = y + NEIGHBOUR_Y[i];
+            if (!canStep(x, y, nx, ny)) {
+                continue;
+            }
+            int d = distance[ny * width + nx];
+            if (d < bestDistance) {
+                bestDistance = d;
+                best = ny * width + nx;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * @return the width of the field in tiles
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return how many times the field has been rebuilt
+     */
+    public int getRebuildCount() {
+        return rebuildCount;
+    }
+}
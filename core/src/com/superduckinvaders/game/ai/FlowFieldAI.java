@@ -0,0 +1,98 @@
+package com.superduckinvaders.game.ai;
+
+import com.badlogic.gdx.math.Vector2;
+import com.superduckinvaders.game.Round;
+import com.superduckinvaders.game.entity.mob.Mob;
+
+/**
+ * AI that chases the player by following the Round's shared flow field.
+ * No searching is done per mob: each one just steps to whichever neighbouring tile is closest to the player.
+ */
+public class FlowFieldAI extends AI {
+
+    /**
+     * How close the player must be before this AI starts chasing.
+     */
+    public final static float CHASE_RANGE = 1280 / 4f;
+
+    /**
+     * How close to the player this FlowFieldAI tries to get.
+     */
+    private int targetRange;
+
+    /**
+     * Scratch vector handed to applyVelocity, which overwrites it.
+     */
+    private final Vector2 heading = new Vector2();
+
+    /**
+     * The point to move towards, set by think.
+     */
+    private final Vector2 target = new Vector2();
+
+    /**
+     * Whether think decided to move this update.
+     */
+    private boolean moving = false;
+
+    /**
+     * Initialises this FlowFieldAI.
+     *
+     * @param round       the round the Mob this AI controls is a part of
+     * @param targetRange how close to the player this FlowFieldAI tries to get
+     */
+    public FlowFieldAI(Round round, int targetRange) {
+        super(round);
+        this.targetRange = targetRange;
+    }
+
+    /**
+     * Decides which way to move: straight at the player if nothing is in the way, otherwise down the flow field.
+     *
+     * @param mob   the Mob using this AI
+     * @param delta time since the previous update
+     */
+    @Override
+    public void think(Mob mob, float delta) {
+        Vector2 playerPos = round.getPlayerSnapshot();
+        Vector2 centre = mob.getSnapshotCentre();
+        float distanceToPlayer = centre.dst(playerPos);
+        moving = false;
+
+        if (distanceToPlayer >= CHASE_RANGE) {
+            return;
+        }
+
+        if (round.pathFits(centre, mob.getSize(), playerPos)) {
+            if (distanceToPlayer >= targetRange) {
+                target.set(playerPos);
+                moving = true;
+            }
+            return;
+        }
+
+        FlowField field = round.getPlayerFlowField();
+        int tileWidth = round.getTileWidth();
+        int tileHeight = round.getTileHeight();
+        int next = field.getNextTile((int) Math.floor(centre.x / tileWidth), (int) Math.floor(centre.y / tileHeight));
+
+        if (next != -1) {
+            int nextX = next % field.getWidth();
+            int nextY = next / field.getWidth();
+            target.set((nextX + 0.5f) * tileWidth, (nextY + 0.5f) * tileHeight);
+            moving = true;
+        }
+    }
+
+    /**
+     * Moves the Mob towards the point chosen by think.
+     *
+     * @param mob the Mob using this AI
+     */
+    @Override
+    public void act(Mob mob) {
+        if (moving) {
+            mob.applyVelocity(heading.set(target));
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.superduckinvaders.game.ai;
+
+import com.badlogic.gdx.utils.IntArray;
+import com.superduckinvaders.game.util.IntHeap;
+import com.superduckinvaders.game.util.TileBitmap;
+
+/**
+ * A* search over a grid of blocked tiles. Tiles are packed into ints (y * width + x) and every array is
+ * reused between searches, so finding a path allocates nothing once the open list has grown to size.
+ * Mobs may move to any of the eight neighbours of a tile, but not diagonally past a blocked corner.
+ * Searches can be confined to a rectangle of tiles, which HierarchicalSearch uses to search one cluster at a time.
+ */
+public class GridSearch {
+
+    /**
+     * The cost of an orthogonal and a diagonal step.
+     */
+    public static final int STRAIGHT_COST = 10, DIAGONAL_COST = 14;
+
+    /**
+     * Steps to the eight neighbours, orthogonal ones first.
+     */
+    private static final int[] NEIGHBOUR_X = {0, 1, 0, -1, 1, 1, -1, -1};
+    private static final int[] NEIGHBOUR_Y = {1, 0, -1, 0, 1, -1, -1, 1};
+
+    /**
+     * The tiles that can't be walked through.
+     */
+    private final TileBitmap blocked;
+
+    private final int width, height;
+
+    /**
+     * The rectangle of tiles the current search may use, inclusive.
+     */
+    private int minX, minY, maxX, maxY;
+
+    /**
+     * The cost of the best known route to each tile, and the tile it came from.
+     * Only valid for tiles whose openStamp matches the current search.
+     */
+    private final int[] cost;
+    private final int[] cameFrom;
+
+    /**
+     * The search in which each tile was last reached and closed. Comparing against a search counter
+     * means nothing has to be cleared between searches.
+     */
+    private final int[] openStamp;
+    private final int[] closedStamp;
+    private int search = 0;
+
+    /**
+     * The open list, ordered by estimated total cost.
+     */
+    private final IntHeap open = new IntHeap();
+
+    /**
+     * How many tiles the last search closed.
+     */
+    private int expansions = 0;
+
+    /**
+     * Creates a GridSearch over a collision map.
+     *
+     * @param blocked the tiles that can't be walked through
+     */
+    public GridSearch(TileBitmap blocked) {
+        this.blocked = blocked;
+        this.width = blocked.getWidth();
+        this.height = blocked.getHeight();
+
+        int size = width * height;
+        this.cost = new int[size];
+        this.cameFrom = new int[size];
+        this.openStamp = new int[size];
+        this.closedStamp = new int[size];
+    }
+
+    /**
+     * Finds the cheapest path between two tiles.
+     *
+     * @param startX        the x index of the start tile
+     * @param startY        the y index of the start tile
+     * @param goalX         the x index of the goal tile
+     * @param goalY         the y index of the goal tile
+     * @param maxExpansions give up after closing this many tiles
+     * @param path          cleared, then filled with the tiles of the path from start to goal, both included
+     * @return whether a path was found
+     */
+    public boolean findPath(int startX, int startY, int goalX, int goalY, int maxExpansions, IntArray path) {
+        return findPath(startX, startY, goalX, goalY, 0, 0, width - 1, height - 1, maxExpansions, path);
+    }
+
+    /**
+     * Finds the cheapest path between two tiles that stays within a rectangle of tiles.
+     *
+     * @param startX        the x index of the start tile
+     * @param startY        the y index of the start tile
+     * @param goalX         the x index of the goal tile
+     * @param goalY         the y index of the goal tile
+     * @param minX          the lowest x index the path may use
+     * @param minY          the lowest y index the path may use
+     * @param maxX          the highest x index the path may use
+     * @param maxY          the highest y index the path may use
+     * @param maxExpansions give up after closing this many tiles
+     * @param path          cleared, then filled with the tiles of the path from start to goal, both included
+     * @return whether a path was found
+     */
+    public boolean findPath(int startX, int startY, int goalX, int goalY, int minX, int minY, int maxX, int maxY,
+                            int maxExpansions, IntArray path) {
+        path.clear();
+        setBounds(minX, minY, maxX, maxY);
+
+        if (!inBounds(startX, startY) || !isFree(goalX, goalY)) {
+            expansions = 0;
+            return false;
+        }
+
+        int goal = goalY * width + goalX;
+        if (!run(startY * width + startX, goal, goalX, goalY, maxExpansions)) {
+            return false;
+        }
+
+        for (int tile = goal; tile != -1; tile = cameFrom[tile]) {
+            path.add(tile);
+        }
+        path.reverse();
+        return true;
+    }
+
+    /**
+     * Finds the cost of the cheapest path from one tile to every tile of a rectangle.
+     * The costs can then be read with getCost until the next search.
+     *
+     * @param startX the x index of the start tile
+     * @param startY the y index of the start tile
+     * @param minX   the lowest x index paths may use
+     * @param minY   the lowest y index paths may use
+     * @param maxX   the highest x index paths may use
+     * @param maxY   the highest y index paths may use
+     */
+    public void flood(int startX, int startY, int minX, int minY, int maxX, int maxY) {
+        setBounds(minX, minY, maxX, maxY);
+
+        if (inBounds(startX, startY)) {
+            run(startY * width + startX, -1, 0, 0, Integer.MAX_VALUE);
+        } else {
+            search++;
+            expansions = 0;
+        }
+    }
+
+    /**
+     * @param x the x index of a tile
+     * @param y the y index of a tile
+     * @return the cost of the cheapest path to the tile found by the last search, or -1 if it wasn't reached
+     */
+    public int getCost(int x, int y) {
+        if (!blocked.inBounds(x, y)) {
+            return -1;
+        }
+        int tile = y * width + x;
+        return closedStamp[tile] == search ? cost[tile] : -1;
+    }
+
+    /**
+     * @return how many tiles the last search closed
+     */
+    public int getExpansions() {
+        return expansions;
+    }
+
+    /**
+     * Runs A* from a start tile, or Dijkstra's algorithm over the whole rectangle if there is no goal.
+     *
+     * @param goal the packed goal tile, or -1 to search every reachable tile
+     * @return whether the goal was reached
+     */
+    private boolean run(int start, int goal, int goalX, int goalY, int maxExpansions) {
+        search++;
+        expansions = 0;
+        open.clear();
+
+        push(start, -1, 0, goal == -1 ? 0 : heuristic(start % width, start / width, goalX, goalY));
+
+        while (open.size() > 0) {
+            int tile = open.pop();
+            if (closedStamp[tile] == search) {
+                continue;
+            }
+            closedStamp[tile] = search;
+
+            if (tile == goal) {
+                return true;
+            }
+
+            if (++expansions > maxExpansions) {
+                return false;
+            }
+
+            int x = tile % width;
+            int y = tile / width;
+
+            for (int i = 0; i < NEIGHBOUR_X.length; i++) {
+                int nx = x + NEIGHBOUR_X[i];
+                int ny = y + NEIGHBOUR_Y[i];
+                if (!canStep(x, y, nx, ny)) {
+                    continue;
+                }
+
+                int neighbour = ny * width + nx;
+                if (closedStamp[neighbour] == search) {
+                    continue;
+                }
+
+                int newCost = cost[tile] + (i < 4 ? STRAIGHT_COST : DIAGONAL_COST);
+                if (openStamp[neighbour] != search || newCost < cost[neighbour]) {
+                    push(neighbour, tile, newCost, goal == -1 ? newCost : newCost + heuristic(nx, ny, goalX, goalY));
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private void setBounds(int minX, int minY, int maxX, int maxY) {
+        this.minX = Math.max(0, minX);
+        this.minY = Math.max(0, minY);
+        this.maxX = Math.min(width - 1, maxX);
+        this.maxY = Math.min(height - 1, maxY);
+    }
+
+    private boolean inBounds(int x, int y) {
+        return x >= minX && y >= minY && x <= maxX && y <= maxY;
+    }
+
+    /**
+     * Gets whether a mob can step from one tile to a neighbouring one. Diagonal steps may not cut a blocked corner.
+     */
+    private boolean canStep(int x, int y, int nx, int ny) {
+        if (!isFree(nx, ny)) {
+            return false;
+        }
+        return nx == x || ny == y || (isFree(nx, y) && isFree(x, ny));
+    }
+
+    private boolean isFree(int x, int y) {
+        return inBounds(x, y) && !blocked.get(x, y);
+    }
+
+    /**
+     * The octile distance between two tiles, which never overestimates the cost of an eight-way path.
+     */
+    static int heuristic(int x, int y, int goalX, int goalY) {
+        int dx = Math.abs(goalX - x);
+        int dy = Math.abs(goalY - y);
+        return STRAIGHT_COST * (dx + dy) + (DIAGONAL_COST - 2 * STRAIGHT_COST) * Math.min(dx, dy);
+    }
+
+    /**
+     * Records a route to a tile and adds it to the open list.
+     */
+    private void push(int tile, int from, int tileCost, int estimate) {
+        openStamp[tile] = search;
+        cost[tile] = tileCost;
+        cameFrom[tile] = from;
+        open.push(tile, estimate);
+    }
+}
@@ -0,0 +1,404 @@
+package com.superduckinvaders.game.ai;
+
+import com.badlogic.gdx.utils.IntArray;
+import com.superduckinvaders.game.util.IntHeap;
+import com.superduckinvaders.game.util.TileBitmap;
+
+import java.util.Arrays;
+
+/**
+ * Hierarchical path finding (HPA*) over a grid of blocked tiles.
+ * <p>
+ * The grid is split into square clusters. Wherever two neighbouring clusters share a run of free tiles
+ * along their border, a pair of entrance tiles is made into nodes of an abstract graph, and the cost between
+ * every two nodes of a cluster is found when the graph is built. A query then only searches the abstract graph,
+ * plus the start and goal clusters to connect them to it, and refines the route into tiles for the first cluster.
+ * The rest of the route is given as the entrance tiles it passes through, to be refined when the mob gets there.
+ */
+public class HierarchicalSearch {
+
+    /**
+     * The default width and height of a cluster, in tiles.
+     */
+    public static final int DEFAULT_CLUSTER_SIZE = 10;
+
+    /**
+     * Runs of free border tiles at least this long get an entrance at each end instead of one in the middle.
+     */
+    private static final int LONG_ENTRANCE = 6;
+
+    private final TileBitmap blocked;
+
+    private final int width, height;
+
+    private final int clusterSize, clustersX, clustersY;
+
+    /**
+     * Searches within clusters, both while building and to refine routes.
+     */
+    private final GridSearch grid;
+
+    /**
+     * The packed tile of each node, and the node at each tile or -1.
+     */
+    private final IntArray nodeTile = new IntArray();
+    private final int[] nodeAt;
+
+    /**
+     * The nodes in each cluster.
+     */
+    private final IntArray[] clusterNodes;
+
+    /**
+     * The edges leaving each node, as parallel lists of target nodes and costs.
+     */
+    private IntArray[] edgeTarget;
+    private IntArray[] edgeCost;
+
+    /**
+     * Abstract search state, indexed by node. The goal is an extra node, numbered nodeCount.
+     */
+    private int[] cost, cameFrom, openStamp, closedStamp, goalCost, goalStamp;
+    private int search = 0;
+    private final IntHeap open = new IntHeap();
+
+    /**
+     * Scratch list for the route through the abstract graph.
+     */
+    private final IntArray route = new IntArray();
+
+    private long buildTime;
+    private int edgeCount = 0;
+
+    /**
+     * Creates a HierarchicalSearch with clusters of the default size and builds its abstract graph.
+     *
+     * @param blocked the tiles that can't be walked through
+     */
+    public HierarchicalSearch(TileBitmap blocked) {
+        this(blocked, DEFAULT_CLUSTER_SIZE);
+    }
+
+    /**
+     * Creates a HierarchicalSearch and builds its abstract graph.
+     *
+     * @param blocked     the tiles that can't be walked through
+     * @param clusterSize the width and height of a cluster, in tiles
+     */
+    public HierarchicalSearch(TileBitmap blocked, int clusterSize) {
+        long start = System.nanoTime();
+
+        this.blocked = blocked;
+        this.width = blocked.getWidth();
+        this.height = blocked.getHeight();
+        this.clusterSize = clusterSize;
+        this.clustersX = (width + clusterSize - 1) / clusterSize;
+        this.clustersY = (height + clusterSize - 1) / clusterSize;
+        this.grid = new GridSearch(blocked);
+
+        this.nodeAt = new int[width * height];
+        Arrays.fill(nodeAt, -1);
+
+        this.clusterNodes = new IntArray[clustersX * clustersY];
+        for (int i = 0; i < clusterNodes.length; i++) {
+            clusterNodes[i] = new IntArray();
+        }
+
+        build();
+
+        buildTime = System.nanoTime() - start;
+    }
+
+    private void build() {
+        // Find the entrances first, so the number of nodes is known before any edges are added.
+        for (int cy = 0; cy < clustersY; cy++) {
+            for (int cx = 0; cx < clustersX; cx++) {
+                if (cx + 1 < clustersX) {
+                    int x = (cx + 1) * clusterSize - 1;
+                    findEntrances(x, cy * clusterSize, 0, 1, 1, 0, Math.min(clusterSize, height - cy * clusterSize));
+                }
+                if (cy + 1 < clustersY) {
+                    int y = (cy + 1) * clusterSize - 1;
+                    findEntrances(cx * clusterSize, y, 1, 0, 0, 1, Math.min(clusterSize, width - cx * clusterSize));
+                }
+            }
+        }
+
+        int nodeCount = nodeTile.size;
+        edgeTarget = new IntArray[nodeCount];
+        edgeCost = new IntArray[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            edgeTarget[i] = new IntArray(8);
+            edgeCost[i] = new IntArray(8);
+        }
+
+        cost = new int[nodeCount + 1];
+        cameFrom = new int[nodeCount + 1];
+        openStamp = new int[nodeCount + 1];
+        closedStamp = new int[nodeCount + 1];
+        goalCost = new int[nodeCount];
+        goalStamp = new int[nodeCount];
+
+        // Entrance pairs are orthogonal neighbours, so crossing between them is one straight step.
+        for (int node = 0; node < nodeCount; node++) {
+            int tile = nodeTile.get(node);
+            int x = tile % width, y = tile / width;
+            linkAcrossBorder(node, x + 1, y);
+            linkAcrossBorder(node, x - 1, y);
+            linkAcrossBorder(node, x, y + 1);
+            linkAcrossBorder(node, x, y - 1);
+        }
+
+        // Then link every node to the others in its cluster.
+        for (int cluster = 0; cluster < clusterNodes.length; cluster++) {
+            IntArray nodes = clusterNodes[cluster];
+            for (int i = 0; i < nodes.size; i++) {
+                int from = nodes.get(i);
+                int tile = nodeTile.get(from);
+                floodCluster(tile % width, tile / width);
+
+                for (int j = 0; j < nodes.size; j++) {
+                    int to = nodes.get(j);
+                    int toCost = grid.getCost(nodeTile.get(to) % width, nodeTile.get(to) / width);
+                    if (to != from && toCost >= 0) {
+                        addEdge(from, to, toCost);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Walks along one cluster border, making entrances for each run of tiles that are free on both sides.
+     *
+     * @param x      the x index of the first tile on the near side of the border
+     * @param y      the y index of the first tile on the near side of the border
+     * @param stepX  the step along the border
+     * @param stepY  the step along the border
+     * @param crossX the step across the border
+     * @param crossY the step across the border
+     * @param length the number of tiles along the border
+     */
+    private void findEntrances(int x, int y, int stepX, int stepY, int crossX, int crossY, int length) {
+        int runStart = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean open = i < length && isFree(x + i * stepX, y + i * stepY)
+                    && isFree(x + i * stepX + crossX, y + i * stepY + crossY);
+
+            if (open && runStart == -1) {
+                runStart = i;
+            } else if (!open && runStart != -1) {
+                int runEnd = i - 1;
+                if (runEnd - runStart + 1 >= LONG_ENTRANCE) {
+                    addEntrance(x, y, stepX, stepY, crossX, crossY, runStart);
+                    addEntrance(x, y, stepX, stepY, crossX, crossY, runEnd);
+                } else {
+                    addEntrance(x, y, stepX, stepY, crossX, crossY, (runStart + runEnd) / 2);
+                }
+                runStart = -1;
+            }
+        }
+    }
+
+    private void addEntrance(int x, int y, int stepX, int stepY, int crossX, int crossY, int i) {
+        addNode(x + i * stepX, y + i * stepY);
+        addNode(x + i * stepX + crossX, y + i * stepY + crossY);
+    }
+
+    private void addNode(int x, int y) {
+        int tile = y * width + x;
+        if (nodeAt[tile] != -1) {
+            return;
+        }
+        nodeAt[tile] = nodeTile.size;
+        clusterNodes[clusterOf(x, y)].add(nodeTile.size);
+        nodeTile.add(tile);
+    }
+
+    private void linkAcrossBorder(int node, int x, int y) {
+        if (!blocked.inBounds(x, y)) {
+            return;
+        }
+        int other = nodeAt[y * width + x];
+        int tile = nodeTile.get(node);
+        if (other != -1 && clusterOf(x, y) != clusterOf(tile % width, tile / width)) {
+            addEdge(node, other, GridSearch.STRAIGHT_COST);
+        }
+    }
+
+    private void addEdge(int from, int to, int edge) {
+        edgeTarget[from].add(to);
+        edgeCost[from].add(edge);
+        edgeCount++;
+    }
+
+    /**
+     * Finds a path between two tiles. Tiles are given for the part of the route in the start cluster;
+     * after that the path only holds the entrance tiles the route passes through.
+     *
+     * @param startX the x index of the start tile
+     * @param startY the y index of the start tile
+     * @param goalX  the x index of the goal tile
+     * @param goalY  the y index of the goal tile
+     * @param path   cleared, then filled with the path from start to goal, both included
+     * @return whether a path was found
+     */
+    public boolean findPath(int startX, int startY, int goalX, int goalY, IntArray path) {
+        path.clear();
+        if (!blocked.inBounds(startX, startY) || !isFree(goalX, goalY)) {
+            return false;
+        }
+
+        int startCluster = clusterOf(startX, startY);
+        int goalCluster = clusterOf(goalX, goalY);
+
+        // Within one cluster the search is small enough to do directly, but the best route may still leave it.
+        if (startCluster == goalCluster && findClusterPath(startX, startY, goalX, goalY, path)) {
+            return true;
+        }
+
+        if (!findRoute(startX, startY, goalX, goalY, startCluster, goalCluster)) {
+            return false;
+        }
+
+        // Refine the first leg, then add the rest of the route as entrance tiles.
+        int first = route.get(0);
+        int firstTile = first == nodeTile.size ? goalY * width + goalX : nodeTile.get(first);
+        if (!findClusterPath(startX, startY, firstTile % width, firstTile / width, path)) {
+            return false;
+        }
+        for (int i = 1; i < route.size; i++) {
+            int node = route.get(i);
+            path.add(node == nodeTile.size ? goalY * width + goalX : nodeTile.get(node));
+        }
+        return true;
+    }
+
+    /**
+     * Searches the abstract graph, leaving the nodes of the route after the start in the route list.
+     */
+    private boolean findRoute(int startX, int startY, int goalX, int goalY, int startCluster, int goalCluster) {
+        int goalNode = nodeTile.size;
+
+        // Work out the cost from every node of the goal cluster to the goal. Moves are symmetric,
+        // so one search outwards from the goal covers them all.
+        search++;
+        floodCluster(goalX, goalY);
+        IntArray goalNodes = clusterNodes[goalCluster];
+        for (int i = 0; i < goalNodes.size; i++) {
+            int node = goalNodes.get(i);
+            int tile = nodeTile.get(node);
+            int toGoal = grid.getCost(tile % width, tile / width);
+            if (toGoal >= 0) {
+                goalCost[node] = toGoal;
+                goalStamp[node] = search;
+            }
+        }
+
+        open.clear();
+
+        // The start connects to the nodes of its own cluster.
+        floodCluster(startX, startY);
+        IntArray startNodes = clusterNodes[startCluster];
+        for (int i = 0; i < startNodes.size; i++) {
+            int node = startNodes.get(i);
+            int tile = nodeTile.get(node);
+            int fromStart = grid.getCost(tile % width, tile / width);
+            if (fromStart >= 0) {
+                relax(node, -1, fromStart, goalX, goalY);
+            }
+        }
+
+        while (open.size() > 0) {
+            int node = open.pop();
+            if (closedStamp[node] == search) {
+                continue;
+            }
+            closedStamp[node] = search;
+
+            if (node == goalNode) {
+                route.clear();
+                for (int n = goalNode; n != -1; n = cameFrom[n]) {
+                    route.add(n);
+                }
+                route.reverse();
+                return true;
+            }
+
+            if (goalStamp[node] == search) {
+                relax(goalNode, node, cost[node] + goalCost[node], goalX, goalY);
+            }
+
+            IntArray targets = edgeTarget[node];
+            IntArray costs = edgeCost[node];
+            for (int i = 0; i < targets.size; i++) {
+                int next = targets.get(i);
+                if (closedStamp[next] != search) {
+                    relax(next, node, cost[node] + costs.get(i), goalX, goalY);
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private void relax(int node, int from, int newCost, int goalX, int goalY) {
+        if (openStamp[node] == search && newCost >= cost[node]) {
+            return;
+        }
+        openStamp[node] = search;
+        cost[node] = newCost;
+        cameFrom[node] = from;
+
+        int estimate = newCost;
+        if (node < nodeTile.size) {
+            int tile = nodeTile.get(node);
+            estimate += GridSearch.heuristic(tile % width, tile / width, goalX, goalY);
+        }
+        open.push(node, estimate);
+    }
+
+    private boolean findClusterPath(int startX, int startY, int goalX, int goalY, IntArray path) {
+        int cluster = clusterOf(startX, startY);
+        int minX = (cluster % clustersX) * clusterSize;
+        int minY = (cluster / clustersX) * clusterSize;
+        return grid.findPath(startX, startY, goalX, goalY, minX, minY, minX + clusterSize - 1, minY + clusterSize - 1,
+                Integer.MAX_VALUE, path);
+    }
+
+    private void floodCluster(int x, int y) {
+        int cluster = clusterOf(x, y);
+        int minX = (cluster % clustersX) * clusterSize;
+        int minY = (cluster / clustersX) * clusterSize;
+        grid.flood(x, y, minX, minY, minX + clusterSize - 1, minY + clusterSize - 1);
+    }
+
+    private int clusterOf(int x, int y) {
+        return (y / clusterSize) * clustersX + x / clusterSize;
+    }
+
+    private boolean isFree(int x, int y) {
+        return blocked.inBounds(x, y) && !blocked.get(x, y);
+    }
+
+    /**
+     * @return the number of entrance nodes in the abstract graph
+     */
+    public int getNodeCount() {
+        return nodeTile.size;
+    }
+
+    /**
+     * @return the number of edges in the abstract graph
+     */
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * @return how long building the abstract graph took, in nanoseconds
+     */
+    public long getBuildTime() {
+        return buildTime;
+    }
+}
@@ -0,0 +1,274 @@
+package com.superduckinvaders.game.ai;
+
+import com.badlogic.gdx.math.Vector2;
+import com.superduckinvaders.game.Round;
+import com.superduckinvaders.game.entity.PhysicsEntity;
+import com.superduckinvaders.game.entity.mob.Mob;
+
+import java.util.List;
+
+/**
+ * Decides how much effort each mob's AI gets, based on its distance from the player, and runs the cheap tiers.
+ * <ul>
+ * <li>NEAR mobs, within Round.UPDATE_DISTANCE, think and act in full every update.</li>
+ * <li>MID mobs have active bodies but are off screen. They steer straight at the player, choosing the
+ * direction again only every midInterval updates.</li>
+ * <li>FAR mobs have inactive bodies. They hop a tile at a time down the player's flow field at their normal speed,
+ * with no physics at all, as long as the next tile has room for them and isn't water.</li>
+ * <li>FROZEN mobs, further than farDistance, aren't touched.</li>
+ * </ul>
+ * Bodies are activated within midDistance and deactivated beyond a quarter further, so the tier boundary
+ * doesn't flap.
+ * <p>
+ * MID and FAR mobs only move within their own chase range, which by default reaches as far as FAR does, so the
+ * map stays alive out of sight without the full AI's search. It is separate from the full AI's range, which is
+ * less than Round.UPDATE_DISTANCE, as that would leave every MID and FAR mob standing still.
+ */
+public class LevelOfDetail {
+
+    /**
+     * The tiers, nearest first.
+     */
+    public enum Tier {
+        NEAR, MID, FAR, FROZEN
+    }
+
+    /**
+     * The default distances from the player, in pixels, within which mobs are at least MID and FAR.
+     */
+    public static final float DEFAULT_MID_DISTANCE = Round.UPDATE_DISTANCE * 2;
+    public static final float DEFAULT_FAR_DISTANCE = Round.UPDATE_DISTANCE * 4;
+
+    /**
+     * By default MID mobs choose their direction every this many updates.
+     */
+    public static final int DEFAULT_MID_INTERVAL = 4;
+
+    /**
+     * The default distance from the player, in pixels, within which MID and FAR mobs move.
+     */
+    public static final float DEFAULT_CHASE_RANGE = DEFAULT_FAR_DISTANCE;
+
+    private float midDistance = DEFAULT_MID_DISTANCE;
+    private float farDistance = DEFAULT_FAR_DISTANCE;
+    private int midInterval = DEFAULT_MID_INTERVAL;
+    private float chaseRange = DEFAULT_CHASE_RANGE;
+
+    /**
+     * How many updates have been run, to stagger MID mobs' direction changes.
+     */
+    private int updates = 0;
+
+    /**
+     * The number of mobs in each tier and the time spent on them in the last update, in nanoseconds.
+     */
+    private final int[] counts = new int[Tier.values().length];
+    private final long[] times = new long[Tier.values().length];
+
+    /**
+     * Scratch vector handed to applyVelocity, which overwrites it.
+     */
+    private final Vector2 heading = new Vector2();
+
+    /**
+     * Starts counting a new update.
+     */
+    public void begin() {
+        updates++;
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = 0;
+            times[i] = 0;
+        }
+    }
+
+    /**
+     * Puts a mob in a tier, activating or deactivating its body to suit.
+     *
+     * @param mob      the mob
+     * @param distance the mob's distance from the player, in pixels
+     * @return the mob's tier
+     */
+    public Tier classify(Mob mob, float distance) {
+        if (mob.isBodyActive()) {
+            if (distance > getDeactivateDistance()) {
+                mob.setBodyActive(false);
+            }
+        } else if (distance < midDistance) {
+            mob.setBodyActive(true);
+        }
+
+        Tier tier;
+        if (distance < Round.UPDATE_DISTANCE) {
+            tier = Tier.NEAR;
+        } else if (mob.isBodyActive()) {
+            tier = Tier.MID;
+        } else if (distance < farDistance) {
+            tier = Tier.FAR;
+        } else {
+            tier = Tier.FROZEN;
+        }
+
+        counts[tier.ordinal()]++;
+        return tier;
+    }
+
+    /**
+     * Steers MID mobs within the chase range straight at the player.
+     *
+     * @param mobs   the MID mobs
+     * @param player the centre of the player
+     */
+    public void updateMid(List<Mob> mobs, Vector2 player) {
+        long start = System.nanoTime();
+
+        for (int i = 0; i < mobs.size(); i++) {
+            Mob mob = mobs.get(i);
+            // Each mob only looks for the player on its own turn, and keeps going the same way in between.
+            if ((i + updates) % midInterval == 0) {
+                if (mob.getCentre().dst2(player) < chaseRange * chaseRange) {
+                    mob.getSteering().set(player);
+                } else {
+                    mob.getSteering().setZero();
+                }
+            }
+            if (!mob.getSteering().isZero()) {
+                mob.applyVelocity(heading.set(mob.getSteering()));
+            }
+        }
+
+        times[Tier.MID.ordinal()] = System.nanoTime() - start;
+    }
+
+    /**
+     * Moves FAR mobs within the chase range a tile at a time towards the player.
+     *
+     * @param mobs  the FAR mobs
+     * @param field the flow field leading to the player
+     * @param round the round the mobs are in
+     * @param delta time since the previous update
+     */
+    public void updateFar(List<Mob> mobs, FlowField field, Round round, float delta) {
+        long start = System.nanoTime();
+        int tileWidth = round.getTileWidth();
+        int tileHeight = round.getTileHeight();
+        Vector2 player = round.getPlayerSnapshot();
+
+        for (Mob mob : mobs) {
+            float speed = mob.getSpeed() * PhysicsEntity.PIXELS_PER_METRE;
+            Vector2 centre = mob.getCentre();
+            if (speed <= 0 || centre.dst2(player) >= chaseRange * chaseRange) {
+                continue;
+            }
+
+            // Time since the last hop is kept until there's enough for a whole tile.
+            float hopTime = mob.addHopTime(delta);
+            if (hopTime < tileWidth / speed) {
+                continue;
+            }
+            mob.addHopTime(-tileWidth / speed);
+
+            // The flow field ignores water and size, so a mob waits rather than hop somewhere its body wouldn't go.
+            int next = field.getNextTile((int) Math.floor(centre.x / tileWidth), (int) Math.floor(centre.y / tileHeight));
+            if (next == -1) {
+                continue;
+            }
+            int nextX = next % field.getWidth(), nextY = next / field.getWidth();
+            if (round.mobFits(nextX, nextY, mob.getSize())) {
+                mob.setCentre((nextX + 0.5f) * tileWidth, (nextY + 0.5f) * tileHeight);
+            }
+        }
+
+        times[Tier.FAR.ordinal()] = System.nanoTime() - start;
+    }
+
+    /**
+     * Records the time spent on NEAR mobs, which the Round runs itself. This includes updating the other entities
+     * near the player, as they are updated in the same pass.
+     *
+     * @param nanos the time, in nanoseconds
+     */
+    public void setNearTime(long nanos) {
+        times[Tier.NEAR.ordinal()] = nanos;
+    }
+
+    /**
+     * @param tier a tier
+     * @return how many mobs were in the tier in the last update
+     */
+    public int getCount(Tier tier) {
+        return counts[tier.ordinal()];
+    }
+
+    /**
+     * @param tier a tier
+     * @return how long was spent on the tier's mobs in the last update, in nanoseconds
+     */
+    public long getTime(Tier tier) {
+        return times[tier.ordinal()];
+    }
+
+    /**
+     * @return the distance from the player, in pixels, within which mobs get active bodies
+     */
+    public float getMidDistance() {
+        return midDistance;
+    }
+
+    /**
+     * @param midDistance the distance from the player, in pixels, within which mobs get active bodies.
+     *                    Should be more than Round.UPDATE_DISTANCE
+     */
+    public void setMidDistance(float midDistance) {
+        this.midDistance = midDistance;
+    }
+
+    /**
+     * @return the distance from the player, in pixels, beyond which mobs lose their bodies
+     */
+    public float getDeactivateDistance() {
+        return midDistance * 5 / 4;
+    }
+
+    /**
+     * @return the distance from the player, in pixels, beyond which mobs are frozen
+     */
+    public float getFarDistance() {
+        return farDistance;
+    }
+
+    /**
+     * @param farDistance the distance from the player, in pixels, beyond which mobs are frozen
+     */
+    public void setFarDistance(float farDistance) {
+        this.farDistance = farDistance;
+    }
+
+    /**
+     * @return how close the player must be, in pixels, before MID and FAR mobs move
+     */
+    public float getChaseRange() {
+        return chaseRange;
+    }
+
+    /**
+     * @param chaseRange how close the player must be, in pixels, before MID and FAR mobs move. Should be at
+     *                   least Round.UPDATE_DISTANCE, or they never move at all
+     */
+    public void setChaseRange(float chaseRange) {
+        this.chaseRange = chaseRange;
+    }
+
+    /**
+     * @return how many updates MID mobs wait between choosing their direction
+     */
+    public int getMidInterval() {
+        return midInterval;
+    }
+
+    /**
+     * @param midInterval how many updates MID mobs wait between choosing their direction, at least 1
+     */
+    public void setMidInterval(int midInterval) {
+        this.midInterval = Math.max(1, midInterval);
+    }
+}
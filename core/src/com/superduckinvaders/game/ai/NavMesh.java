@@ -0,0 +1,427 @@
+package com.superduckinvaders.game.ai;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+import com.superduckinvaders.game.util.IntHeap;
+import com.superduckinvaders.game.util.TileBitmap;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A navigation mesh covering the free tiles of a collision map with as few rectangles as TileBitmap.toRectangles
+ * finds. Paths are found by A* over the rectangles, then pulled tight through the portals between them with the
+ * funnel algorithm, so they come out as a handful of corners that can be walked in straight lines.
+ * <p>
+ * Everything is in tile units. Paths keep between the centres of free tiles: inside a rectangle they stay within
+ * its outermost tile centres, and they cross into the next rectangle between the centres of the tiles either side
+ * of the boundary. So a mob that fits on any free tile never clips a blocked one on the way. Build it from
+ * ClearanceMap.narrowerThan for mobs wider than a tile.
+ */
+public class NavMesh {
+
+    /**
+     * Path costs are kept as ints in this many units per tile.
+     */
+    private static final float COST_SCALE = 256f;
+
+    private final int width, height;
+
+    /**
+     * The rectangle each tile is in, or -1 for blocked tiles.
+     */
+    private final int[] tileRectangle;
+
+    /**
+     * The rectangles, in tile coordinates.
+     */
+    private final int[] rectX, rectY, rectWidth, rectHeight;
+    private final int rectangleCount;
+
+    /**
+     * The portals out of rectangle r are edgeStart[r] to edgeStart[r + 1] - 1. Each leads from edgeSource to
+     * edgeTarget in the direction (edgeOutX, edgeOutY), and runs between the centres of two tiles just inside
+     * edgeSource, the first with the lower x and y. The matching tiles just inside edgeTarget are one step on.
+     */
+    private final int[] edgeStart;
+    private final int[] edgeSource, edgeTarget;
+    private final int[] edgeOutX, edgeOutY;
+    private final float[] portalX0, portalY0, portalX1, portalY1;
+
+    /**
+     * Per rectangle search state: the cost to reach it, the point it was entered at and the portal used.
+     * Only valid where openStamp matches the current search.
+     */
+    private final float[] cost;
+    private final float[] entryX, entryY;
+    private final int[] cameBy;
+    private final int[] openStamp, closedStamp;
+    private int search = 0;
+
+    private final IntHeap open = new IntHeap();
+
+    /**
+     * The portals crossed by the last path found, in order, and their end points lined up as left and right.
+     */
+    private final IntArray corridor = new IntArray();
+    private final FloatArray portals = new FloatArray();
+
+    private final long buildTime;
+
+    /**
+     * Builds a NavMesh over the free tiles of a collision map.
+     *
+     * @param blocked the tiles that can't be walked through
+     */
+    public NavMesh(TileBitmap blocked) {
+        long start = System.nanoTime();
+
+        width = blocked.getWidth();
+        height = blocked.getHeight();
+
+        TileBitmap free = new TileBitmap(width, height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (!blocked.get(x, y)) {
+                    free.set(x, y);
+                }
+            }
+        }
+
+        List<Rectangle> rectangles = free.toRectangles();
+        rectangleCount = rectangles.size();
+        rectX = new int[rectangleCount];
+        rectY = new int[rectangleCount];
+        rectWidth = new int[rectangleCount];
+        rectHeight = new int[rectangleCount];
+
+        tileRectangle = new int[width * height];
+        Arrays.fill(tileRectangle, -1);
+        for (int r = 0; r < rectangleCount; r++) {
+            Rectangle rectangle = rectangles.get(r);
+            rectX[r] = (int) rectangle.x;
+            rectY[r] = (int) rectangle.y;
+            rectWidth[r] = (int) rectangle.width;
+            rectHeight[r] = (int) rectangle.height;
+            for (int y = rectY[r]; y < rectY[r] + rectHeight[r]; y++) {
+                for (int x = rectX[r]; x < rectX[r] + rectWidth[r]; x++) {
+                    tileRectangle[y * width + x] = r;
+                }
+            }
+        }
+
+        // Walk round the outside of each rectangle, making a portal for each run of tiles in the same neighbour.
+        IntArray sources = new IntArray();
+        IntArray targets = new IntArray();
+        FloatArray points = new FloatArray();
+        edgeStart = new int[rectangleCount + 1];
+        for (int r = 0; r < rectangleCount; r++) {
+            edgeStart[r] = targets.size;
+            int left = rectX[r], right = rectX[r] + rectWidth[r];
+            int bottom = rectY[r], top = rectY[r] + rectHeight[r];
+            addPortals(r, left, bottom, 0, 1, rectHeight[r], -1, 0, targets, points);
+            addPortals(r, right - 1, bottom, 0, 1, rectHeight[r], 1, 0, targets, points);
+            addPortals(r, left, bottom, 1, 0, rectWidth[r], 0, -1, targets, points);
+            addPortals(r, left, top - 1, 1, 0, rectWidth[r], 0, 1, targets, points);
+            while (sources.size < targets.size) {
+                sources.add(r);
+            }
+        }
+        edgeStart[rectangleCount] = targets.size;
+
+        edgeSource = sources.toArray();
+        edgeTarget = targets.toArray();
+        int edges = edgeTarget.length;
+        edgeOutX = new int[edges];
+        edgeOutY = new int[edges];
+        portalX0 = new float[edges];
+        portalY0 = new float[edges];
+        portalX1 = new float[edges];
+        portalY1 = new float[edges];
+        for (int e = 0; e < edges; e++) {
+            edgeOutX[e] = (int) points.get(e * 6);
+            edgeOutY[e] = (int) points.get(e * 6 + 1);
+            portalX0[e] = points.get(e * 6 + 2);
+            portalY0[e] = points.get(e * 6 + 3);
+            portalX1[e] = points.get(e * 6 + 4);
+            portalY1[e] = points.get(e * 6 + 5);
+        }
+
+        cost = new float[rectangleCount];
+        entryX = new float[rectangleCount];
+        entryY = new float[rectangleCount];
+        cameBy = new int[rectangleCount];
+        openStamp = new int[rectangleCount];
+        closedStamp = new int[rectangleCount];
+
+        buildTime = System.nanoTime() - start;
+    }
+
+    /**
+     * Adds the portals along one side of a rectangle.
+     *
+     * @param from   the rectangle
+     * @param x      the x index of the first tile along the inside of the side
+     * @param y      the y index of the first tile along the inside of the side
+     * @param dx     the step along the side in x
+     * @param dy     the step along the side in y
+     * @param length the length of the side, in tiles
+     * @param outX   the step out of the rectangle in x
+     * @param outY   the step out of the rectangle in y
+     */
+    private void addPortals(int from, int x, int y, int dx, int dy, int length, int outX, int outY,
+                            IntArray targets, FloatArray points) {
+        int i = 0;
+        while (i < length) {
+            int neighbour = rectangleAt(x + dx * i + outX, y + dy * i + outY);
+            int runStart = i;
+            while (i < length && rectangleAt(x + dx * i + outX, y + dy * i + outY) == neighbour) {
+                i++;
+            }
+            if (neighbour == -1 || neighbour == from) {
+                continue;
+            }
+
+            // The run covers tiles runStart to i - 1 along the side.
+            targets.add(neighbour);
+            points.addAll(outX, outY);
+            points.addAll(x + dx * runStart + 0.5f, y + dy * runStart + 0.5f);
+            points.addAll(x + dx * (i - 1) + 0.5f, y + dy * (i - 1) + 0.5f);
+        }
+    }
+
+    private int rectangleAt(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return -1;
+        }
+        return tileRectangle[y * width + x];
+    }
+
+    /**
+     * Finds a path between two points.
+     *
+     * @param startX the x coordinate of the start, in tiles
+     * @param startY the y coordinate of the start, in tiles
+     * @param goalX  the x coordinate of the goal, in tiles
+     * @param goalY  the y coordinate of the goal, in tiles
+     * @param path   cleared, then filled with the x and y of each corner of the path after the start, ending at
+     *               the goal
+     * @return whether a path was found, which needs both points to be on the mesh
+     */
+    public boolean findPath(float startX, float startY, float goalX, float goalY, FloatArray path) {
+        path.clear();
+
+        int start = rectangleAt((int) Math.floor(startX), (int) Math.floor(startY));
+        int goal = rectangleAt((int) Math.floor(goalX), (int) Math.floor(goalY));
+        if (start == -1 || goal == -1) {
+            return false;
+        }
+
+        // Pull both ends in to their rectangles' tile centres, so the whole path keeps between centres.
+        startX = clampToCentres(startX, rectX[start], rectWidth[start]);
+        startY = clampToCentres(startY, rectY[start], rectHeight[start]);
+        goalX = clampToCentres(goalX, rectX[goal], rectWidth[goal]);
+        goalY = clampToCentres(goalY, rectY[goal], rectHeight[goal]);
+
+        if (!findCorridor(start, goal, startX, startY, goalX, goalY)) {
+            return false;
+        }
+
+        pullString(startX, startY, goalX, goalY, path);
+        return true;
+    }
+
+    private static float clampToCentres(float value, int min, int length) {
+        return Math.max(min + 0.5f, Math.min(min + length - 0.5f, value));
+    }
+
+    /**
+     * Runs A* over the rectangles, measuring each step from the point a rectangle was entered to the middle of the
+     * portal out of it and across, then fills corridor with the portals crossed.
+     */
+    private boolean findCorridor(int start, int goal, float startX, float startY, float goalX, float goalY) {
+        search++;
+        open.clear();
+        corridor.clear();
+
+        openStamp[start] = search;
+        cost[start] = 0;
+        entryX[start] = startX;
+        entryY[start] = startY;
+        cameBy[start] = -1;
+        open.push(start, 0);
+
+        boolean found = false;
+        while (open.size() > 0) {
+            int current = open.pop();
+            if (closedStamp[current] == search) {
+                continue;
+            }
+            closedStamp[current] = search;
+            if (current == goal) {
+                found = true;
+                break;
+            }
+
+            for (int e = edgeStart[current]; e < edgeStart[current + 1]; e++) {
+                int next = edgeTarget[e];
+                float midX = (portalX0[e] + portalX1[e]) / 2, midY = (portalY0[e] + portalY1[e]) / 2;
+                float nextCost = cost[current] + distance(entryX[current], entryY[current], midX, midY) + 1;
+                midX += edgeOutX[e];
+                midY += edgeOutY[e];
+                if (closedStamp[next] == search || (openStamp[next] == search && nextCost >= cost[next])) {
+                    continue;
+                }
+
+                openStamp[next] = search;
+                cost[next] = nextCost;
+                entryX[next] = midX;
+                entryY[next] = midY;
+                cameBy[next] = e;
+                open.push(next, (int) ((nextCost + distance(midX, midY, goalX, goalY)) * COST_SCALE));
+            }
+        }
+        if (!found) {
+            return false;
+        }
+
+        for (int r = goal; cameBy[r] != -1; r = edgeSource[cameBy[r]]) {
+            corridor.add(cameBy[r]);
+        }
+        corridor.reverse();
+        return true;
+    }
+
+    /**
+     * Pulls a string from the start to the goal through the corridor, using the simple stupid funnel algorithm.
+     * The funnel's sides are tightened portal by portal, and each time one side crosses the other the corner it
+     * crossed at becomes part of the path.
+     */
+    private void pullString(float startX, float startY, float goalX, float goalY, FloatArray path) {
+        // Line up the portals as left and right points, as seen when crossing them. Each crossing is two portals:
+        // the tile centres on this side of the boundary, then those on the other.
+        portals.clear();
+        portals.addAll(startX, startY, startX, startY);
+        for (int i = 0; i < corridor.size; i++) {
+            int e = corridor.get(i);
+            int outX = edgeOutX[e], outY = edgeOutY[e];
+            boolean firstOnLeft = outX * (portalY0[e] - portalY1[e]) - outY * (portalX0[e] - portalX1[e]) > 0;
+            for (int step = 0; step <= 1; step++) {
+                float x0 = portalX0[e] + outX * step, y0 = portalY0[e] + outY * step;
+                float x1 = portalX1[e] + outX * step, y1 = portalY1[e] + outY * step;
+                if (firstOnLeft) {
+                    portals.addAll(x0, y0, x1, y1);
+                } else {
+                    portals.addAll(x1, y1, x0, y0);
+                }
+            }
+        }
+        portals.addAll(goalX, goalY, goalX, goalY);
+
+        int count = portals.size / 4;
+        float apexX = startX, apexY = startY;
+        float leftX = startX, leftY = startY;
+        float rightX = startX, rightY = startY;
+        int apexIndex = 0, leftIndex = 0, rightIndex = 0;
+
+        for (int i = 1; i < count; i++) {
+            float newLeftX = portals.get(i * 4), newLeftY = portals.get(i * 4 + 1);
+            float newRightX = portals.get(i * 4 + 2), newRightY = portals.get(i * 4 + 3);
+
+            // Tighten the right side, unless it would cross the left.
+            if (area(apexX, apexY, rightX, rightY, newRightX, newRightY) <= 0) {
+                if ((apexX == rightX && apexY == rightY) || area(apexX, apexY, leftX, leftY, newRightX, newRightY) > 0) {
+                    rightX = newRightX;
+                    rightY = newRightY;
+                    rightIndex = i;
+                } else {
+                    // The right side crossed the left, so the left point is a corner.
+                    addCorner(path, leftX, leftY);
+                    apexX = rightX = leftX;
+                    apexY = rightY = leftY;
+                    apexIndex = rightIndex = leftIndex;
+                    i = apexIndex;
+                    continue;
+                }
+            }
+
+            // Tighten the left side, unless it would cross the right.
+            if (area(apexX, apexY, leftX, leftY, newLeftX, newLeftY) >= 0) {
+                if ((apexX == leftX && apexY == leftY) || area(apexX, apexY, rightX, rightY, newLeftX, newLeftY) < 0) {
+                    leftX = newLeftX;
+                    leftY = newLeftY;
+                    leftIndex = i;
+                } else {
+                    addCorner(path, rightX, rightY);
+                    apexX = leftX = rightX;
+                    apexY = leftY = rightY;
+                    apexIndex = leftIndex = rightIndex;
+                    i = apexIndex;
+                }
+            }
+        }
+
+        addCorner(path, goalX, goalY);
+    }
+
+    /**
+     * Adds a corner to a path, unless it is the same as the last one.
+     */
+    private static void addCorner(FloatArray path, float x, float y) {
+        if (path.size >= 2 && path.get(path.size - 2) == x && path.get(path.size - 1) == y) {
+            return;
+        }
+        path.addAll(x, y);
+    }
+
+    /**
+     * @return twice the signed area of the triangle a, b, c, which is negative when c is to the left of the line
+     * from a to b
+     */
+    private static float area(float ax, float ay, float bx, float by, float cx, float cy) {
+        return (cx - ax) * (by - ay) - (bx - ax) * (cy - ay);
+    }
+
+    private static float distance(float x0, float y0, float x1, float y1) {
+        float dx = x1 - x0, dy = y1 - y0;
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * @param x the x coordinate of a point, in tiles
+     * @param y the y coordinate of a point, in tiles
+     * @return whether the point is on the mesh
+     */
+    public boolean contains(float x, float y) {
+        return rectangleAt((int) Math.floor(x), (int) Math.floor(y)) != -1;
+    }
+
+    /**
+     * @return how many rectangles the mesh is made of
+     */
+    public int getPolygonCount() {
+        return rectangleCount;
+    }
+
+    /**
+     * @return how many portals join the rectangles, counting each direction separately
+     */
+    public int getPortalCount() {
+        return edgeTarget.length;
+    }
+
+    /**
+     * @return how many portals the last path found went through
+     */
+    public int getCorridorLength() {
+        return corridor.size;
+    }
+
+    /**
+     * @return how long building the mesh took, in nanoseconds
+     */
+    public long getBuildTime() {
+        return buildTime;
+    }
+}
@@ -0,0 +1,179 @@
+package com.superduckinvaders.game.ai;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.FloatArray;
+import com.superduckinvaders.game.Round;
+import com.superduckinvaders.game.entity.mob.Mob;
+
+/**
+ * AI that follows the player along paths found on the Round's navigation mesh. The funnel algorithm has already
+ * pulled the paths tight, so the mob just walks from corner to corner with no ray casts of its own.
+ * Can be swapped for PathfindingAI with Mob.setAI.
+ */
+public class NavMeshAI extends AI {
+
+    /**
+     * How often to plan a new path even if the player hasn't changed tile, in case the mob has been pushed off
+     * its path.
+     */
+    public final static float REPLAN_INTERVAL = 2f;
+
+    /**
+     * How close the mob must get to a corner, in pixels, before heading for the next one.
+     */
+    public final static float CORNER_RADIUS = 4f;
+
+    /**
+     * Width and height of one tile in the map.
+     */
+    private int tileWidth, tileHeight;
+
+    /**
+     * How close to the player this NavMeshAI tries to get.
+     */
+    private int targetRange;
+
+    /**
+     * The corners of the current path, in tiles, as x and y pairs, and the index of the one being moved towards.
+     */
+    private final FloatArray corners = new FloatArray();
+    private int cornerIndex = 0;
+
+    /**
+     * The tile the last path was planned to, packed into an int, or -1 before the first, and whether one was found.
+     */
+    private int pathGoal = -1;
+    private boolean pathFound = false;
+
+    /**
+     * Time since the last path was planned.
+     */
+    private float sincePlan = 0;
+
+    /**
+     * The point for the AI to move towards, or null to stand still.
+     */
+    public Vector2 target;
+
+    private final Vector2 waypoint = new Vector2();
+    private final Vector2 heading = new Vector2();
+
+    /**
+     * Asks the Round's PathScheduler for a new path, and the mob it is for.
+     */
+    private final PathScheduler.Request request = new PathScheduler.Request() {
+        @Override
+        protected void serve() {
+            servePath();
+        }
+    };
+    private Mob requestMob;
+
+    /**
+     * Whether think decided to ask for a new path.
+     */
+    private boolean wantsPath = false;
+    private float requestPriority;
+
+    /**
+     * Initialises this NavMeshAI.
+     *
+     * @param round       the round the Mob this AI controls is a part of
+     * @param targetRange how close to the player this NavMeshAI tries to get
+     */
+    public NavMeshAI(Round round, int targetRange) {
+        super(round);
+
+        this.tileWidth = round.getTileWidth();
+        this.tileHeight = round.getTileHeight();
+        this.targetRange = targetRange;
+    }
+
+    /**
+     * Moves on past any corners the mob has reached, and asks for a new path when the player has changed tile.
+     *
+     * @param mob   the Mob using this AI
+     * @param delta time since the previous update
+     */
+    @Override
+    public void think(Mob mob, float delta) {
+        Vector2 player = round.getPlayerSnapshot();
+        Vector2 centre = mob.getSnapshotCentre();
+
+        sincePlan += delta;
+        int goal = toTile(player.x, player.y);
+        wantsPath = goal != pathGoal || sincePlan >= REPLAN_INTERVAL;
+        requestPriority = centre.dst(player);
+
+        if (!pathFound) {
+            // Off the mesh, or no path yet: head straight for the player and hope for the best.
+            target = (centre.dst(player) < targetRange) ? null : waypoint.set(player);
+            return;
+        }
+
+        int last = corners.size / 2 - 1;
+        while (cornerIndex < last && centre.dst(cornerX(cornerIndex), cornerY(cornerIndex)) < CORNER_RADIUS) {
+            cornerIndex++;
+        }
+
+        if (cornerIndex < last) {
+            target = waypoint.set(cornerX(cornerIndex), cornerY(cornerIndex));
+        } else if (centre.dst(player) < targetRange) {
+            target = null;
+        } else {
+            // The last leg ends in the player's tile, so chase the player itself.
+            target = waypoint.set(player);
+        }
+    }
+
+    /**
+     * Sends the path request if think asked to, and moves towards the target.
+     *
+     * @param mob the Mob using this AI
+     */
+    @Override
+    public void act(Mob mob) {
+        if (wantsPath) {
+            requestMob = mob;
+            round.getPathScheduler().request(request, requestPriority);
+        }
+
+        if (target != null) {
+            mob.applyVelocity(heading.set(target));
+        }
+    }
+
+    /**
+     * Finds a path on the navigation mesh from the mob to the player, once the PathScheduler gets to the request.
+     */
+    private void servePath() {
+        if (requestMob.isRemoved()) {
+            return;
+        }
+
+        Vector2 centre = requestMob.getSnapshotCentre();
+        Vector2 player = round.getPlayerSnapshot();
+        NavMesh mesh = round.getNavMesh(requestMob.getSize());
+
+        sincePlan = 0;
+        cornerIndex = 0;
+        pathGoal = toTile(player.x, player.y);
+        pathFound = mesh.findPath(centre.x / tileWidth, centre.y / tileHeight,
+                player.x / tileWidth, player.y / tileHeight, corners);
+    }
+
+    private float cornerX(int index) {
+        return corners.get(index * 2) * tileWidth;
+    }
+
+    private float cornerY(int index) {
+        return corners.get(index * 2 + 1) * tileHeight;
+    }
+
+    /**
+     * Packs the tile containing a point into an int.
+     */
+    private int toTile(float x, float y) {
+        return (int) (y / tileHeight) * round.getCollisionMap().getWidth() + (int) (x / tileWidth);
+    }
+}
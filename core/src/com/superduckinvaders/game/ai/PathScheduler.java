@@ -0,0 +1,313 @@
+package com.superduckinvaders.game.ai;
+
+import com.badlogic.gdx.utils.LongMap;
+
+import java.util.PriorityQueue;
+
+/**
+ * Queues path finding requests from mobs and serves as many as fit in a time budget each update, so a crowd of
+ * mobs replanning at once is spread over several frames instead of causing a spike. Mobs keep following their
+ * last target while they wait.
+ * <p>
+ * Requests are served in order of priority, lowest first. So that far away mobs aren't starved by near ones asking
+ * again and again, requests made on later updates rank behind earlier ones by AGING_PER_UPDATE.
+ * <p>
+ * Requests with the same key made in the same update, such as two mobs on one tile heading for the same goal,
+ * are collapsed: only the first is served, and the rest are handed its result.
+ */
+public class PathScheduler {
+
+    /**
+     * How much priority a request loses for each update it was made after another.
+     */
+    public static final float AGING_PER_UPDATE = 16f;
+
+    /**
+     * The key of requests that are never collapsed with others.
+     */
+    public static final long NO_KEY = -1;
+
+    /**
+     * A request for a path. Each AI keeps one and reuses it, so it can't be queued twice.
+     */
+    public static abstract class Request implements Comparable<Request> {
+
+        private float priority;
+        private long queuedAt;
+        private long order;
+        private boolean queued = false;
+
+        /**
+         * The request this one is waiting on the result of, or null if it is in the queue itself,
+         * and the next request waiting on the same one.
+         */
+        private Request sharedWith, nextShared;
+
+        /**
+         * @return whether this request is waiting to be served
+         */
+        public boolean isQueued() {
+            return queued;
+        }
+
+        /**
+         * Gets what this request asks for, such as its start and goal tiles packed together.
+         * Requests with equal keys must be able to use each other's results.
+         *
+         * @return the key, or NO_KEY to never share
+         */
+        protected long getKey() {
+            return NO_KEY;
+        }
+
+        /**
+         * Finds the path. Called by the scheduler once the request's turn comes.
+         */
+        protected abstract void serve();
+
+        /**
+         * Takes the result of an identical request that has just been served, instead of finding it again.
+         * By default the path is found anyway.
+         *
+         * @param served the request that was served
+         */
+        protected void share(Request served) {
+            serve();
+        }
+
+        @Override
+        public int compareTo(Request o) {
+            int result = Float.compare(priority, o.priority);
+            return result != 0 ? result : Long.compare(order, o.order);
+        }
+    }
+
+    private final PriorityQueue<Request> queue = new PriorityQueue<Request>();
+
+    /**
+     * The first request with each key made since the last update.
+     */
+    private final LongMap<Request> firstByKey = new LongMap<Request>();
+
+    /**
+     * How long each update may spend serving requests, in nanoseconds.
+     */
+    private long budget;
+
+    private int updates = 0;
+    private long requestCount = 0;
+
+    /**
+     * Statistics for the last update.
+     */
+    private int lastServed = 0, lastShared = 0;
+    private float lastAverageWait = 0, lastMaxWait = 0;
+    private long lastTime = 0;
+
+    /**
+     * How many updates went over budget.
+     */
+    private int overrunCount = 0;
+
+    /**
+     * Creates a PathScheduler.
+     *
+     * @param budgetMicros how long each update may spend serving requests, in microseconds
+     */
+    public PathScheduler(int budgetMicros) {
+        setBudget(budgetMicros);
+    }
+
+    /**
+     * Queues a request, unless it is already queued. If a request with the same key has been queued since the
+     * last update, this one waits on its result instead.
+     *
+     * @param request  the request
+     * @param priority how urgent it is, lowest first, such as the mob's distance from the player
+     * @return whether the request was queued
+     */
+    public boolean request(Request request, float priority) {
+        if (request.queued) {
+            return false;
+        }
+        request.queuedAt = System.nanoTime();
+        request.queued = true;
+
+        long key = request.getKey();
+        if (key != NO_KEY) {
+            Request first = firstByKey.get(key);
+            if (first != null) {
+                request.sharedWith = first;
+                request.nextShared = first.nextShared;
+                first.nextShared = request;
+                return true;
+            }
+            firstByKey.put(key, request);
+        }
+
+        request.priority = priority + updates * AGING_PER_UPDATE;
+        request.order = requestCount++;
+        queue.add(request);
+        return true;
+    }
+
+    /**
+     * Withdraws a request, for example when its mob is removed.
+     *
+     * @param request the request
+     */
+    public void cancel(Request request) {
+        if (!request.queued) {
+            return;
+        }
+        request.queued = false;
+
+        if (request.sharedWith != null) {
+            // Unlink it from the requests waiting on the same one.
+            Request previous = request.sharedWith;
+            while (previous.nextShared != request) {
+                previous = previous.nextShared;
+            }
+            previous.nextShared = request.nextShared;
+            request.sharedWith = null;
+            request.nextShared = null;
+            return;
+        }
+
+        queue.remove(request);
+
+        // Whatever was waiting on it takes its place in the queue.
+        Request next = request.nextShared;
+        request.nextShared = null;
+        if (next != null) {
+            next.priority = request.priority;
+            next.order = request.order;
+            for (Request waiting = next.nextShared; waiting != null; waiting = waiting.nextShared) {
+                waiting.sharedWith = next;
+            }
+            next.sharedWith = null;
+            queue.add(next);
+        }
+
+        long key = request.getKey();
+        if (key != NO_KEY && firstByKey.get(key) == request) {
+            if (next != null) {
+                firstByKey.put(key, next);
+            } else {
+                firstByKey.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Serves queued requests until the budget is spent. At least one request is served if any are waiting,
+     * so the queue always moves. Requests waiting on one that is served get its result straight away.
+     */
+    public void update() {
+        updates++;
+
+        long start = System.nanoTime();
+        long now = start;
+        float totalWait = 0;
+        lastServed = 0;
+        lastShared = 0;
+        lastMaxWait = 0;
+
+        while (!queue.isEmpty() && (lastServed == 0 || now - start < budget)) {
+            Request request = queue.poll();
+            request.queued = false;
+
+            float wait = (start - request.queuedAt) / 1e6f;
+            totalWait += wait;
+            lastMaxWait = Math.max(lastMaxWait, wait);
+
+            request.serve();
+            lastServed++;
+
+            Request waiting = request.nextShared;
+            request.nextShared = null;
+            while (waiting != null) {
+                Request next = waiting.nextShared;
+                waiting.queued = false;
+                waiting.sharedWith = null;
+                waiting.nextShared = null;
+                waiting.share(request);
+                lastShared++;
+                waiting = next;
+            }
+            now = System.nanoTime();
+        }
+
+        // Only requests made in the same update are collapsed.
+        firstByKey.clear();
+
+        lastTime = now - start;
+        lastAverageWait = lastServed > 0 ? totalWait / lastServed : 0;
+        if (lastTime > budget) {
+            overrunCount++;
+        }
+    }
+
+    /**
+     * @param budgetMicros how long each update may spend serving requests, in microseconds
+     */
+    public void setBudget(int budgetMicros) {
+        this.budget = budgetMicros * 1000L;
+    }
+
+    /**
+     * @return how long each update may spend serving requests, in microseconds
+     */
+    public int getBudget() {
+        return (int) (budget / 1000);
+    }
+
+    /**
+     * @return how many requests are waiting, not counting those waiting on another's result
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * @return how many requests the last update served, not counting those given another's result
+     */
+    public int getLastServed() {
+        return lastServed;
+    }
+
+    /**
+     * @return how many requests the last update gave the result of an identical one
+     */
+    public int getLastShared() {
+        return lastShared;
+    }
+
+    /**
+     * @return how long the requests served by the last update had waited on average, in milliseconds
+     */
+    public float getAverageWait() {
+        return lastAverageWait;
+    }
+
+    /**
+     * @return the longest time a request served by the last update had waited, in milliseconds
+     */
+    public float getMaxWait() {
+        return lastMaxWait;
+    }
+
+    /**
+     * @return how long the last update spent serving requests, in nanoseconds
+     */
+    public long getLastTime() {
+        return lastTime;
+    }
+
+    /**
+     * @return how many updates have gone over budget
+     */
+    public int getOverrunCount() {
+        return overrunCount;
+    }
+}
@@ -1,25 +1,24 @@
-
 package com.superduckinvaders.game.ai;
 
 import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.RandomXS128;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.IntArray;
 import com.superduckinvaders.game.Round;
 import com.superduckinvaders.game.entity.mob.Mob;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.PriorityQueue;
-
 /**
  * AI that follows and attacks the player within a certain range.
+ * <p>
+ * Mobs bunched together can be put in a squad by Squads. The squad's leader plans the path, and the other members
+ * follow it without searching, each keeping its own place in the formation.
  */
 public class PathfindingAI extends AI {
 
     /**
-     * How many iterations to use in the pathfinding algorithm.
+     * How many waypoints ahead of the current one to try skipping to when smoothing the path.
      */
-    public final static int PATHFINDING_ITERATION_LIMIT = 20;
+    public final static int PATH_LOOKAHEAD = 20;
 
     /**
      * How often to update the AI.
@@ -62,9 +61,77 @@ public class PathfindingAI extends AI {
     private int targetRange;
 
     /**
-     * The Coordinate for the AI to find a path for.
+     * The cached path to the player, as packed tile indices, and the index of the waypoint being moved towards.
+     */
+    private final IntArray path = new IntArray();
+    private int pathIndex = 0;
+
+    /**
+     * The tile the cached path leads to, or -1 if there is no cached path.
+     */
+    private int pathGoal = -1;
+
+    /**
+     * Goes up whenever the cached path changes, so squad members know to start following it from the beginning.
+     */
+    private int pathVersion = 0;
+
+    /**
+     * The AI whose path pathIndex is a position in, and which version of the path.
+     */
+    private PathfindingAI followed = this;
+    private int followedVersion = 0;
+
+    /**
+     * The leader of this AI's squad and its mob, or null if this AI plans its own path.
+     * Only changed on the game thread.
+     */
+    PathfindingAI leader;
+    Mob leaderMob;
+
+    /**
+     * Where this AI keeps relative to the leader's path, in pixels.
+     */
+    final Vector2 formationOffset = new Vector2();
+
+    /**
+     * How many other AIs follow this one, and when Squads last saw this AI thinking.
+     */
+    int squadSize = 0;
+    int squadUpdate = 0;
+
+    /**
+     * The point for the AI to move towards, or null to stand still.
+     */
+    public Vector2 target;
+
+    /**
+     * Scratch vectors, so choosing a target allocates nothing. The target is always either null or waypoint,
+     * so it stays put while probe is used to test other points.
+     */
+    private final Vector2 waypoint = new Vector2();
+    private final Vector2 probe = new Vector2();
+    private final Vector2 heading = new Vector2();
+
+    /**
+     * Asks the Round's PathScheduler for a new path, and the mob it is for.
+     */
+    final PathRequest request = new PathRequest();
+    private Mob requestMob;
+
+    /**
+     * What think decided to do about the path request: send it, withdraw it, or neither,
+     * and whether to leave the squad first.
+     */
+    private boolean wantsPath = false, cancelsPath = false, leavesSquad = false;
+    private float requestPriority;
+    private long requestKey;
+
+    /**
+     * This AI's own random numbers, so think gives the same answers whichever thread runs it.
+     * Seeded from the shared generator when the AI is made, which happens on the game thread.
      */
-    public Coordinate target;
+    private final RandomXS128 random = new RandomXS128(MathUtils.random.nextLong());
 
     /**
      * Initialises this PathfindingAI.
@@ -81,261 +148,276 @@ public class PathfindingAI extends AI {
     }
 
     /**
-     * Updates this PathfindingAI.
+     * Decides where to head, at most every PATHFINDING_RATE seconds.
      *
      * @param mob   the Mob using this AI
      * @param delta time since the previous update
      */
     @Override
-    public void update(Mob mob, float delta) {
-        playerPos = round.getPlayer().getCentre();
+    public void think(Mob mob, float delta) {
+        playerPos = round.getPlayerSnapshot();
+        Vector2 centre = mob.getSnapshotCentre();
+
+        float distanceToPlayer = centre.dst(playerPos);
+        float distanceToTarget = (target != null) ? centre.dst(target) : 0f;
+
+        wantsPath = false;
+        cancelsPath = false;
+        leavesSquad = false;
 
-        float distanceToPlayer = mob.distanceTo(playerPos);
-        float distanceToTargetTile = (target != null) ? mob.getCentre().sub(target.vector()).len() : 0f;
-        
         currentOffset += delta;
-        if ((currentOffset >= deltaOffsetLimit || distanceToTargetTile < 2) && (int) distanceToPlayer < 1280 / 4) {
-            deltaOffsetLimit = PATHFINDING_RATE + (MathUtils.random() % PATHFINDING_RATE_OFFSET);
+        if ((currentOffset >= deltaOffsetLimit || distanceToTarget < 2) && (int) distanceToPlayer < 1280 / 4) {
+            deltaOffsetLimit = PATHFINDING_RATE + (random.nextFloat() % PATHFINDING_RATE_OFFSET);
             currentOffset = 0;
-            target = FindPath(mob);
+            target = chooseTarget(mob);
         }
-        
-        // targetPoint = (target != null) ? target.vector() : new Vector2(playerPos).setLength(1f);
+    }
+
+    /**
+     * Sends or withdraws the path request if think asked to, and moves towards the target.
+     *
+     * @param mob the Mob using this AI
+     */
+    @Override
+    public void act(Mob mob) {
+        if (leavesSquad) {
+            leaveSquad();
+        }
+
+        if (wantsPath) {
+            requestMob = mob;
+            round.getPathScheduler().request(request, requestPriority);
+        } else if (cancelsPath) {
+            // The player is in sight, so the path is dropped and any squad following it breaks up.
+            round.getPathScheduler().cancel(request);
+            pathGoal = -1;
+        }
+
         if (target != null) {
-            mob.applyVelocity(target.vector());
+            mob.applyVelocity(heading.set(target));
         }
     }
 
     /**
-     * A variation of A* algorithm. Returns a meaningful target coordinate as a pair of integers.
-     * Recalculated every tick as player might move and change pathfinding coordinates.
+     * Works out where the mob should head next: straight for the player if nothing is in the way,
+     * otherwise the furthest waypoint of the cached path, or the squad leader's path, that can be reached in a
+     * straight line. When the player has changed tile or the mob can't carry on along the path, a new path is
+     * requested from the Round's PathScheduler in act, and the mob keeps heading for its current target until it
+     * is served. Squad members leave that to the leader, unless they can't follow it themselves.
      *
      * @param mob Mob that a path is being generated for
-     * @return Returns a Coordinate for the path finding
+     * @return the point to move towards, or null to stand still
      */
-    private Coordinate FindPath(Mob mob) {
-        Vector2 mobPos = mob.getCentre();
+    private Vector2 chooseTarget(Mob mob) {
+        Vector2 mobPos = mob.getSnapshotCentre();
         Vector2 mobSize = mob.getSize();
-        Coordinate startCoord = roundToTile(mobPos);
-        Coordinate finalCoord = roundToTile(playerPos);
-        boolean finalFound = false;
-        
-        if (round.pathIsClear(mobPos, mobSize, playerPos)){
-            if (new Vector2(playerPos).sub(mobPos).len() < targetRange){
+
+        if (round.pathFits(mobPos, mobSize, playerPos)){
+            cancelsPath = true;
+            if (mobPos.dst(playerPos) < targetRange){
                 return null;
             }
             else {
                 currentOffset = deltaOffsetLimit;
-                return new Coordinate(playerPos);
+                return waypoint.set(playerPos);
             }
         }
 
-        PriorityQueue<Coordinate> fringe = new PriorityQueue<Coordinate>();
-        HashMap<Coordinate, SearchNode> visitedStates = new HashMap<Coordinate, SearchNode>();
-        fringe.add(startCoord);
-        visitedStates.put(startCoord, new SearchNode(null, startCoord, 0));
+        // The leader's path is only changed on the game thread, so it can be read here while the leader thinks.
+        PathfindingAI source = (leader != null) ? leader : this;
+        if (source != followed || source.pathVersion != followedVersion) {
+            followed = source;
+            followedVersion = source.pathVersion;
+            pathIndex = 0;
+        }
+        IntArray path = source.path;
+
+        // Past the start cluster the path only holds entrance tiles, so reaching a waypoint with the next one
+        // out of sight means the next stretch needs working out.
+        int start = toTile(mobPos.x, mobPos.y);
+        int goal = toTile(playerPos.x, playerPos.y);
+        boolean stale = goal != source.pathGoal || !advance(path, mobPos, mobSize)
+                || (pathIndex < path.size - 1 && start == path.get(pathIndex));
+
+        if (stale) {
+            if (leader != null && goal != leader.pathGoal) {
+                // The leader will ask for the new path.
+                return target;
+            }
+            leavesSquad = leader != null;
+            wantsPath = true;
+            requestPriority = mobPos.dst(playerPos);
+            requestKey = ((long) round.getRequiredClearance(mobSize) << 48) | ((long) start << 24) | goal;
+            return target;
+        }
 
-        while (!fringe.isEmpty()) {
+        tileCentre(path.get(pathIndex), waypoint);
+        if (leader != null && round.pathFits(mobPos, mobSize, probe.set(waypoint).add(formationOffset))) {
+            waypoint.set(probe);
+        }
+        return waypoint;
+    }
 
-            Coordinate currentCoord = fringe.poll();
-            SearchNode currentState = visitedStates.get(currentCoord);
+    /**
+     * Plans a new path for the mob that requested it, once the PathScheduler gets to the request.
+     *
+     * @param shared an AI that has just found the same path, or null to search for it
+     */
+    private void servePath(PathfindingAI shared) {
+        if (requestMob.isRemoved()) {
+            return;
+        }
 
-            if (currentState.iteration >= PATHFINDING_ITERATION_LIMIT) {
-                continue;
-            }
-            
-            if (currentCoord.inSameTile(finalCoord)) {
-                finalCoord = currentCoord;
-                finalFound = true;
-                break;
-            }
+        Vector2 mobPos = requestMob.getSnapshotCentre();
+        Vector2 mobSize = requestMob.getSize();
+        Vector2 goalPos = round.getPlayerSnapshot();
+        int goal = toTile(goalPos.x, goalPos.y);
 
-            //work out N, E, S, W permutations
-            Coordinate[] perm = {
-                new Coordinate(currentCoord.x,             currentCoord.y + tileHeight),
-                new Coordinate(currentCoord.x + tileWidth, currentCoord.y             ),
-                new Coordinate(currentCoord.x,             currentCoord.y - tileHeight),
-                new Coordinate(currentCoord.x - tileWidth, currentCoord.y             )
-            };
-
-            for (Coordinate currentPerm : perm) {
-                if (!visitedStates.containsKey(currentPerm) && !round.collidePoint(currentPerm.vector())) {
-                    fringe.add(currentPerm);
-                    visitedStates.put(currentPerm, new SearchNode(currentState, currentPerm, currentState.iteration + 1));
-                }
-            }
-        }
-        if (!finalFound) {
-            return null;
+        boolean found;
+        if (shared != null) {
+            found = copyPath(shared);
         } else {
-            SearchNode resultNode;
-            List<SearchNode> path = new ArrayList<SearchNode>();
-            path.add(visitedStates.get(finalCoord));
-            while (path.get(path.size() - 1) != visitedStates.get(startCoord)) {
-                SearchNode pred = path.get(path.size() - 1).predecessor;
-                if (pred == null){
-                    break;
-                }
-                path.add(pred);
-            }
-            int index = path.size()-1;
-            while (index > 0) {
-                SearchNode tempNode = path.get(index-1);
-                if(!round.pathIsClear(mobPos, mobSize, tempNode.coord.vector())){
-                    break;
-                }
-                index--;
-            }
-            resultNode = path.get(index);
+            found = replan(mobPos, mobSize, goal);
+        }
 
-            return resultNode.coord;
+        followed = this;
+        followedVersion = pathVersion;
+        if (found && advance(path, mobPos, mobSize)) {
+            target = tileCentre(path.get(pathIndex), waypoint);
+        } else {
+            target = null;
         }
     }
 
     /**
-     * Round an exact position to the nearest tile coordinate.
-     * @param pos the position vector
-     * @return the Coordinate of the tile
+     * Searches for a new path from the mob's tile to the goal tile.
+     *
+     * @return whether a path was found
      */
-    public Coordinate roundToTile(Vector2 pos){
-        return roundToTile(pos.x, pos.y);
-        
+    private boolean replan(Vector2 mobPos, Vector2 mobSize, int goal) {
+        int width = round.getCollisionMap().getWidth();
+        int start = toTile(mobPos.x, mobPos.y);
+
+        pathIndex = 0;
+        pathGoal = -1;
+        pathVersion++;
+
+        if (!round.getPathfinder(mobSize).findPath(start % width, start / width, goal % width, goal / width, path)) {
+            return false;
+        }
+        pathGoal = goal;
+        return true;
     }
 
     /**
-     * Round an exact position to the nearest tile coordinate.
-     * @param x the x position
-     * @param y the y position
-     * @return the Coordinate of the tile
+     * Takes the path another AI found for the same request.
+     *
+     * @return whether it had found a path
      */
-    public Coordinate roundToTile(float x, float y){
-        int nx = (int)(((int)(x/tileWidth)+0.5f) * tileWidth);
-        int ny = (int)(((int)(y/tileHeight)+0.5f) * tileHeight);
-        return new Coordinate(nx, ny);
+    private boolean copyPath(PathfindingAI other) {
+        path.clear();
+        path.addAll(other.path);
+        pathIndex = 0;
+        pathGoal = other.pathGoal;
+        pathVersion++;
+        return pathGoal != -1;
     }
 
     /**
-     * Represents a pair of coordinates.
-     */
-    public class Coordinate implements Comparable<Coordinate> {
-        /**
-         * The X coordinate.
-         */
-        public int x;
-        /**
-         * The Y coordinate.
-         */
-        public int y;
-
-        /**
-         * Initialises this Coordinate.
-         *
-         * @param point The point vector.
-         */
-        public Coordinate(Vector2 point) {
-            this((int) point.x, (int) point.y);
-            
+     * Moves pathIndex on to the furthest waypoint within PATH_LOOKAHEAD that the mob can reach in a straight line.
+     *
+     * @param path the path being followed, which is the leader's in a squad
+     * @return false if not even the current waypoint can be reached, meaning the path is blocked
+     */
+    private boolean advance(IntArray path, Vector2 mobPos, Vector2 mobSize) {
+        if (pathIndex >= path.size || !round.pathFits(mobPos, mobSize, tileCentre(path.get(pathIndex), probe))) {
+            return false;
         }
 
-        /**
-         * Initialises this Coordinate.
-         *
-         * @param x the x position.
-         * @param y the y position.
-         */
-        public Coordinate(int x, int y) {
-            this.x = x;
-            this.y = y;
+        int limit = Math.min(path.size - 1, pathIndex + PATH_LOOKAHEAD);
+        while (pathIndex < limit && round.pathFits(mobPos, mobSize, tileCentre(path.get(pathIndex + 1), probe))) {
+            pathIndex++;
         }
+        return true;
+    }
 
-        /**
-         * Compares this Coordinate to another Coordinate.
-         *
-         * @param o the coordinate to compare to
-         * @return the result of the comparison
-         */
-        @Override
-        public int compareTo(Coordinate o) {
-            float playerDistanceA = this.vector().sub(playerPos).len();
-            float playerDistanceB =    o.vector().sub(playerPos).len();
-            return new Float(playerDistanceA).compareTo(playerDistanceB);
-        }
+    /**
+     * Whether this AI has a path to a goal or is waiting for one, so it can lead a squad there.
+     *
+     * @param goal the goal, as a packed tile index
+     */
+    boolean leadsTo(int goal) {
+        return leader == null && (pathGoal == goal || request.isQueued());
+    }
 
-        /**
-         * Tests this Coordinate with another object for equality.
-         *
-         * @param o the object to compare to
-         * @return true of the objects are equal, false if not
-         */
-        @Override
-        public boolean equals(Object o) {
-            if (o == null) return false;
-            if (getClass() != o.getClass()) return false;
-            final Coordinate other = (Coordinate) o;
-            return (this.x == other.x && this.y == other.y);
-        }
+    /**
+     * Whether this AI has a path, maybe to a tile the player has since left, or is waiting for one,
+     * so its squad can keep following it while it replans.
+     */
+    boolean hasPath() {
+        return leader == null && (pathGoal != -1 || request.isQueued());
+    }
+
+    /**
+     * Starts following another AI's path. Any request of this AI's own is withdrawn.
+     *
+     * @param other    the squad leader
+     * @param otherMob the leader's mob
+     * @param offset   where to keep relative to the leader's path, in pixels
+     */
+    void joinSquad(PathfindingAI other, Mob otherMob, Vector2 offset) {
+        round.getPathScheduler().cancel(request);
+        leader = other;
+        leaderMob = otherMob;
+        formationOffset.set(offset);
+        other.squadSize++;
+    }
 
-        /**
-         * Gets a unique hash code for this coordinate.
-         *
-         * @return the hash code
-         */
+    /**
+     * Goes back to planning this AI's own path.
+     */
+    void leaveSquad() {
+        leader = null;
+        leaderMob = null;
+    }
+
+    /**
+     * Packs the tile containing a point into an int.
+     */
+    int toTile(float x, float y) {
+        return (int) (y / tileHeight) * round.getCollisionMap().getWidth() + (int) (x / tileWidth);
+    }
+
+    /**
+     * Sets a vector to the centre of a packed tile.
+     */
+    private Vector2 tileCentre(int tile, Vector2 out) {
+        int width = round.getCollisionMap().getWidth();
+        return out.set((tile % width + 0.5f) * tileWidth, (tile / width + 0.5f) * tileHeight);
+    }
+
+    /**
+     * A request for this AI's path. Requests from the same tile to the same goal, for mobs needing the same
+     * clearance, share one search.
+     */
+    class PathRequest extends PathScheduler.Request {
         @Override
-        public int hashCode() {
-            int hash = 17;
-            hash = hash * 31 + this.x;
-            hash = hash * 31 + this.y;
-            return hash;
+        protected long getKey() {
+            return requestKey;
         }
 
-        /**
-         * Gets whether this Coordinate is in the same map tile as another.
-         *
-         * @param b the coordinate to compare with
-         * @return true if the coordinates are in the same map tile, false if not
-         */
-        public boolean inSameTile(Coordinate b) {
-            return (this.x / tileWidth == b.x / tileWidth && this.y / tileHeight == b.y / tileHeight);
+        @Override
+        protected void serve() {
+            servePath(null);
         }
 
-        /**
-         * Returns a string representation of this Coordinate.
-         *
-         * @return a string representation of this Coordinate
-         */
-        public String toString() {
-            return ("(" + Integer.toString(this.x) + ", " + Integer.toString(this.y) + ")");
-        }
-        
-        public Vector2 vector() {
-            return new Vector2(x, y);
+        @Override
+        protected void share(PathScheduler.Request served) {
+            servePath(((PathRequest) served).owner());
         }
-    }
 
-    /**
-     * Represents a node in the A* search tree.
-     */
-    class SearchNode {
-        /**
-         * The predecessor node in the search tree.
-         */
-        public SearchNode predecessor;
-        public Coordinate coord;
-        /**
-         * The iteration this node is a part of.
-         */
-        public int iteration;
-
-        /**
-         * Initialises this SearchNode.
-         *
-         * @param predecessor the predecessor node
-         * @param iteration   the iteration of this node
-         */
-        public SearchNode(SearchNode predecessor, Coordinate coord, int iteration) {
-            this.predecessor = predecessor;
-            this.coord = coord;
-            this.iteration = iteration;
+        private PathfindingAI owner() {
+            return PathfindingAI.this;
         }
     }
 }
@@ -0,0 +1,179 @@
+package com.superduckinvaders.game.ai;
+
+import com.badlogic.gdx.math.Vector2;
+import com.superduckinvaders.game.Round;
+import com.superduckinvaders.game.entity.Entity;
+import com.superduckinvaders.game.entity.PhysicsEntity;
+import com.superduckinvaders.game.entity.mob.Mob;
+import com.superduckinvaders.game.util.SpatialHash;
+
+import java.util.List;
+
+/**
+ * Groups mobs using PathfindingAI that are bunched together into squads, so only one of them has to find a path.
+ * <p>
+ * Squads are rebuilt from the snapshot every update on the game thread. A mob stays with its leader while they
+ * are close and the leader has a path, even one to a tile the player has since left, as the leader replans for
+ * the whole squad. Mobs on their own join the nearest leader within SQUAD_RADIUS which needs the same clearance,
+ * has a path to the player's tile or is waiting for one, and can be walked to in a straight line.
+ * <p>
+ * Mobs using FlowFieldAI, such as ZombieMob, are left out: they all follow the Round's one flow field and never
+ * search on their own, so there is nothing for them to share.
+ */
+public class Squads {
+
+    /**
+     * How close, in pixels, a mob must be to a leader to join its squad.
+     */
+    public static final float SQUAD_RADIUS = 64f;
+
+    /**
+     * How far, in pixels, a mob may stray from its leader before leaving the squad.
+     */
+    public static final float LEAVE_RADIUS = SQUAD_RADIUS * 2;
+
+    /**
+     * The most mobs in a squad, including the leader.
+     */
+    public static final int MAX_SQUAD_SIZE = 6;
+
+    /**
+     * The number of squads with at least one follower, and of mobs following, after the last update.
+     */
+    private int squadCount = 0, followerCount = 0;
+
+    /**
+     * How many times squads have been formed, to mark which mobs were thinking this time.
+     */
+    private int updates = 0;
+
+    /**
+     * The mob looking for a squad, and the best leader found for it so far.
+     */
+    private Round round;
+    private Mob joining;
+    private int joiningClearance, goal;
+    private Mob bestMob;
+    private float bestDistance;
+
+    private final Vector2 offset = new Vector2();
+
+    /**
+     * Looks at each mob found near the joining mob, keeping the nearest that could lead it.
+     */
+    private final SpatialHash.Callback leaderCallback = (Entity entity) -> {
+        if (entity == joining || !(entity instanceof Mob) || entity.isRemoved()) {
+            return true;
+        }
+
+        Mob mob = (Mob) entity;
+        PathfindingAI ai = getPathfindingAI(mob);
+        if (ai == null || ai.squadUpdate != updates || !ai.leadsTo(goal) || ai.squadSize >= MAX_SQUAD_SIZE - 1) {
+            return true;
+        }
+
+        float distance = mob.getSnapshotCentre().dst(joining.getSnapshotCentre());
+        if (distance < bestDistance && round.getRequiredClearance(mob.getSize()) == joiningClearance
+                && round.pathFits(joining.getSnapshotCentre(), joining.getSize(), mob.getSnapshotCentre())) {
+            bestMob = mob;
+            bestDistance = distance;
+        }
+        return true;
+    };
+
+    /**
+     * Breaks up squads that have drifted apart and puts mobs on their own into squads.
+     *
+     * @param mobs  the mobs that will think this update, with their snapshots taken
+     * @param round the round the mobs are in
+     */
+    public void form(List<Mob> mobs, Round round) {
+        this.round = round;
+        updates++;
+        Vector2 player = round.getPlayerSnapshot();
+
+        for (Mob mob : mobs) {
+            PathfindingAI ai = getPathfindingAI(mob);
+            if (ai != null) {
+                ai.squadUpdate = updates;
+                ai.squadSize = 0;
+            }
+        }
+
+        // Let go of leaders that have gone, stopped thinking, wandered off or lost their path,
+        // and count who is left with each one.
+        for (Mob mob : mobs) {
+            PathfindingAI ai = getPathfindingAI(mob);
+            if (ai == null || ai.leader == null) {
+                continue;
+            }
+            if (ai.leaderMob.isRemoved() || ai.leader.squadUpdate != updates || !ai.leader.hasPath()
+                    || ai.leaderMob.getSnapshotCentre().dst(mob.getSnapshotCentre()) > LEAVE_RADIUS) {
+                ai.leaveSquad();
+            } else {
+                ai.leader.squadSize++;
+            }
+        }
+
+        squadCount = 0;
+        followerCount = 0;
+
+        for (Mob mob : mobs) {
+            PathfindingAI ai = getPathfindingAI(mob);
+            if (ai == null) {
+                continue;
+            }
+            if (ai.leader != null) {
+                followerCount++;
+                continue;
+            }
+            if (ai.squadSize > 0) {
+                continue;
+            }
+
+            joining = mob;
+            joiningClearance = round.getRequiredClearance(mob.getSize());
+            goal = ai.toTile(player.x, player.y);
+            bestMob = null;
+            bestDistance = Float.MAX_VALUE;
+
+            Vector2 centre = mob.getSnapshotCentre();
+            round.queryRadius(centre.x, centre.y, SQUAD_RADIUS, PhysicsEntity.MOB_BITS, leaderCallback);
+
+            if (bestMob != null) {
+                // Keep to the same side of the leader, but no further than half a tile from its path.
+                offset.set(centre).sub(bestMob.getSnapshotCentre()).limit(round.getTileWidth() / 2f);
+                ai.joinSquad(getPathfindingAI(bestMob), bestMob, offset);
+                followerCount++;
+            }
+        }
+
+        for (Mob mob : mobs) {
+            PathfindingAI ai = getPathfindingAI(mob);
+            if (ai != null && ai.leader == null && ai.squadSize > 0) {
+                squadCount++;
+            }
+        }
+
+        joining = null;
+        bestMob = null;
+    }
+
+    private static PathfindingAI getPathfindingAI(Mob mob) {
+        return (mob.getAI() instanceof PathfindingAI) ? (PathfindingAI) mob.getAI() : null;
+    }
+
+    /**
+     * @return how many squads with at least one follower there were after the last update
+     */
+    public int getSquadCount() {
+        return squadCount;
+    }
+
+    /**
+     * @return how many mobs were following a squad leader after the last update
+     */
+    public int getFollowerCount() {
+        return followerCount;
+    }
+}
@@ -0,0 +1,126 @@
+package com.superduckinvaders.game.ai;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs the decision half of every mob's AI for one update, either on the calling thread or split across the
+ * common fork-join pool.
+ * <p>
+ * While this runs nothing may change Box2D or any shared state: thinkers read the Round's snapshot and the static
+ * maps, and write only their own fields. Because of that, the decisions are the same whichever mode is used, and
+ * the game thread applies them afterwards in a fixed order.
+ */
+public class ThinkPhase {
+
+    /**
+     * Something that decides what to do in the think phase.
+     */
+    public interface Thinker {
+        /**
+         * Makes a decision, reading only snapshot and static state. May be called on any thread.
+         *
+         * @param delta time since the previous update
+         */
+        void think(float delta);
+    }
+
+    /**
+     * Runs of this many thinkers or fewer aren't split any further.
+     */
+    public static final int SEQUENTIAL_THRESHOLD = 16;
+
+    /**
+     * Whether to spread the work over the fork-join pool.
+     */
+    private boolean parallel;
+
+    /**
+     * How long the last run took, in nanoseconds.
+     */
+    private long lastTime = 0;
+
+    /**
+     * Creates a ThinkPhase.
+     *
+     * @param parallel whether to spread the work over the fork-join pool
+     */
+    public ThinkPhase(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Lets every thinker make its decision, returning once they all have.
+     *
+     * @param thinkers the thinkers
+     * @param delta    time since the previous update
+     */
+    public void run(List<? extends Thinker> thinkers, float delta) {
+        long start = System.nanoTime();
+
+        if (parallel && thinkers.size() > SEQUENTIAL_THRESHOLD) {
+            ForkJoinPool.commonPool().invoke(new ThinkTask(thinkers, 0, thinkers.size(), delta));
+        } else {
+            thinkRange(thinkers, 0, thinkers.size(), delta);
+        }
+
+        lastTime = System.nanoTime() - start;
+    }
+
+    private static void thinkRange(List<? extends Thinker> thinkers, int from, int to, float delta) {
+        for (int i = from; i < to; i++) {
+            thinkers.get(i).think(delta);
+        }
+    }
+
+    /**
+     * @param parallel whether to spread the work over the fork-join pool
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * @return whether the work is spread over the fork-join pool
+     */
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * @return how long the last run took, in nanoseconds
+     */
+    public long getLastTime() {
+        return lastTime;
+    }
+
+    /**
+     * Thinks for a range of the list, splitting it in half until the pieces are small.
+     */
+    private static class ThinkTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<? extends Thinker> thinkers;
+        private final int from, to;
+        private final float delta;
+
+        ThinkTask(List<? extends Thinker> thinkers, int from, int to, float delta) {
+            this.thinkers = thinkers;
+            this.from = from;
+            this.to = to;
+            this.delta = delta;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                thinkRange(thinkers, from, to, delta);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ThinkTask(thinkers, from, middle, delta), new ThinkTask(thinkers, middle, to, delta));
+            }
+        }
+    }
+}
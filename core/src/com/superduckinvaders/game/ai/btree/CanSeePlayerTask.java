@@ -0,0 +1,28 @@
+package com.superduckinvaders.game.ai.btree;
+
+import com.badlogic.gdx.ai.btree.LeafTask;
+import com.badlogic.gdx.ai.btree.Task;
+import com.badlogic.gdx.math.Vector2;
+import com.superduckinvaders.game.ai.BehaviourTreeAI;
+
+/**
+ * Succeeds if nothing blocks the line from the mob to the player. Reads the Round's visibility field, which is
+ * worked out once per update for every mob whenever a tree with this task is thinking, so it answers straight away.
+ */
+public class CanSeePlayerTask extends LeafTask<BehaviourTreeAI> {
+
+    @Override
+    public void run() {
+        Vector2 centre = getObject().getMob().getSnapshotCentre();
+        if (getObject().getRound().canSeePlayer(centre.x, centre.y)) {
+            success();
+        } else {
+            fail();
+        }
+    }
+
+    @Override
+    protected Task<BehaviourTreeAI> copyTo(Task<BehaviourTreeAI> task) {
+        return task;
+    }
+}
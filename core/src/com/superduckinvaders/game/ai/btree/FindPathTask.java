@@ -0,0 +1,53 @@
+package com.superduckinvaders.game.ai.btree;
+
+import com.badlogic.gdx.ai.btree.LeafTask;
+import com.badlogic.gdx.ai.btree.Task;
+import com.superduckinvaders.game.ai.BehaviourTreeAI;
+
+/**
+ * Finds a path to the player. Succeeds straight away if the mob already has one to the player's tile, otherwise
+ * asks the Round's PathScheduler and stays RUNNING until the request is served, then succeeds if a path was found.
+ */
+public class FindPathTask extends LeafTask<BehaviourTreeAI> {
+
+    /**
+     * Whether this run of the task has asked for a path yet.
+     */
+    private boolean requested;
+
+    @Override
+    public void start() {
+        requested = false;
+    }
+
+    @Override
+    public void run() {
+        BehaviourTreeAI ai = getObject();
+        if (!requested) {
+            if (ai.isPathCurrent()) {
+                success();
+            } else {
+                ai.requestPath();
+                requested = true;
+                running();
+            }
+            return;
+        }
+
+        switch (ai.getPathState()) {
+            case WAITING:
+                running();
+                break;
+            case FOUND:
+                success();
+                break;
+            default:
+                fail();
+        }
+    }
+
+    @Override
+    protected Task<BehaviourTreeAI> copyTo(Task<BehaviourTreeAI> task) {
+        return task;
+    }
+}
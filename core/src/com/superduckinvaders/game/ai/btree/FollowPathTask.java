@@ -0,0 +1,33 @@
+package com.superduckinvaders.game.ai.btree;
+
+import com.badlogic.gdx.ai.btree.LeafTask;
+import com.badlogic.gdx.ai.btree.Task;
+import com.superduckinvaders.game.ai.BehaviourTreeAI;
+
+/**
+ * Walks the mob along the path FindPathTask found. Stays RUNNING until the mob is on the last leg or the player
+ * has moved to another tile, then succeeds so the tree can look again. Fails if there is no path.
+ */
+public class FollowPathTask extends LeafTask<BehaviourTreeAI> {
+
+    @Override
+    public void run() {
+        BehaviourTreeAI ai = getObject();
+        if (ai.getPathState() != BehaviourTreeAI.PathState.FOUND) {
+            fail();
+            return;
+        }
+
+        ai.setMovement(BehaviourTreeAI.Movement.FOLLOW_PATH);
+        if (ai.isAtPathEnd() || !ai.isPathCurrent()) {
+            success();
+        } else {
+            running();
+        }
+    }
+
+    @Override
+    protected Task<BehaviourTreeAI> copyTo(Task<BehaviourTreeAI> task) {
+        return task;
+    }
+}
@@ -0,0 +1,34 @@
+package com.superduckinvaders.game.ai.btree;
+
+import com.badlogic.gdx.ai.btree.LeafTask;
+import com.badlogic.gdx.ai.btree.Task;
+import com.badlogic.gdx.ai.btree.annotation.TaskAttribute;
+import com.superduckinvaders.game.ai.BehaviourTreeAI;
+
+/**
+ * Succeeds if the player is within range of the mob.
+ */
+public class PlayerInRangeTask extends LeafTask<BehaviourTreeAI> {
+
+    /**
+     * The range, in pixels.
+     */
+    @TaskAttribute
+    public float range = 320;
+
+    @Override
+    public void run() {
+        BehaviourTreeAI ai = getObject();
+        if (ai.getMob().getSnapshotCentre().dst(ai.getRound().getPlayerSnapshot()) < range) {
+            success();
+        } else {
+            fail();
+        }
+    }
+
+    @Override
+    protected Task<BehaviourTreeAI> copyTo(Task<BehaviourTreeAI> task) {
+        ((PlayerInRangeTask) task).range = range;
+        return task;
+    }
+}
@@ -0,0 +1,22 @@
+package com.superduckinvaders.game.ai.btree;
+
+import com.badlogic.gdx.ai.btree.LeafTask;
+import com.badlogic.gdx.ai.btree.Task;
+import com.superduckinvaders.game.ai.BehaviourTreeAI;
+
+/**
+ * Shoots at the player, if the mob's gun has cooled down by the time the shot is carried out.
+ */
+public class ShootTask extends LeafTask<BehaviourTreeAI> {
+
+    @Override
+    public void run() {
+        getObject().shoot();
+        success();
+    }
+
+    @Override
+    protected Task<BehaviourTreeAI> copyTo(Task<BehaviourTreeAI> task) {
+        return task;
+    }
+}
@@ -0,0 +1,22 @@
+package com.superduckinvaders.game.ai.btree;
+
+import com.badlogic.gdx.ai.btree.LeafTask;
+import com.badlogic.gdx.ai.btree.Task;
+import com.superduckinvaders.game.ai.BehaviourTreeAI;
+
+/**
+ * Stops the mob until the tree decides otherwise.
+ */
+public class StandStillTask extends LeafTask<BehaviourTreeAI> {
+
+    @Override
+    public void run() {
+        getObject().setMovement(BehaviourTreeAI.Movement.STAND);
+        success();
+    }
+
+    @Override
+    protected Task<BehaviourTreeAI> copyTo(Task<BehaviourTreeAI> task) {
+        return task;
+    }
+}
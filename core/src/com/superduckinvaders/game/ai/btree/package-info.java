@@ -0,0 +1,4 @@
+/**
+ * Contains the behaviour tree tasks that BehaviourTreeAI trees are built from.
+ */
+package com.superduckinvaders.game.ai.btree;
\ No newline at end of file
@@ -38,7 +38,7 @@ public class Assets {
     public static TextureSet rangedBadGuyNormal, badGuyNormal;
 
     /**
-     *  Texture for Projectile.
+     *  Texture for projectiles.
      */
     public static TextureRegion projectile;
     
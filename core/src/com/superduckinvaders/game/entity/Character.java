@@ -1,11 +1,13 @@
 package com.superduckinvaders.game.entity;
 
 import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.physics.box2d.*;
+import com.badlogic.gdx.utils.IntArray;
 import com.superduckinvaders.game.Round;
 import com.superduckinvaders.game.assets.TextureSet;
+import com.superduckinvaders.game.util.SpatialHash;
 
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Represents a character in the game.
@@ -28,6 +30,13 @@ public abstract class Character extends PhysicsEntity {
     protected int maximumHealth, currentHealth;
     
     protected float MELEE_RANGE = 30f;
+
+    /**
+     * How far beyond melee range the centre of something may be while its edge is still in range, which is half the
+     * diagonal of the biggest thing that can be hit.
+     */
+    public static final float MELEE_QUERY_MARGIN = 64f;
+
     /**
      * For use when determining player movement direction
      */
@@ -54,9 +63,37 @@ public abstract class Character extends PhysicsEntity {
      */
     public float projectileSpeed = 20f;
 
+    /**
+     * The category bits of the entities this Character can hit in melee. PROJECTILE_BITS lets it deflect projectiles.
+     */
     protected short enemyBits = 0;
-    protected ArrayList<PhysicsEntity> enemiesInRange;
-    
+
+    /**
+     * The enemies found by the last call to findEnemiesInRange, and where this Character's centre was for it.
+     */
+    private final ArrayList<PhysicsEntity> enemiesInRange = new ArrayList<>();
+    private final Vector2 meleeCentre = new Vector2();
+
+    /**
+     * The indices of the projectiles found in melee range, reused by each attack.
+     */
+    private final IntArray projectilesInRange = new IntArray();
+
+    /**
+     * Collects each enemy whose edge is within melee range.
+     */
+    private final SpatialHash.Callback enemyCallback = (Entity entity) -> {
+        if (entity != this && !entity.isRemoved() && entity instanceof Character) {
+            Vector2 centre = entity.getCentre();
+            float dx = Math.max(0, Math.abs(centre.x - meleeCentre.x) - entity.getWidth() / 2);
+            float dy = Math.max(0, Math.abs(centre.y - meleeCentre.y) - entity.getHeight() / 2);
+            if (dx * dx + dy * dy <= MELEE_RANGE * MELEE_RANGE) {
+                enemiesInRange.add((PhysicsEntity) entity);
+            }
+        }
+        return true;
+    };
+
     /**
      * Initialises this Character.
      *
@@ -68,28 +105,6 @@ public abstract class Character extends PhysicsEntity {
     public Character(Round parent, float x, float y, int maximumHealth) {
         super(parent, x, y);
         this.maximumHealth = this.currentHealth = maximumHealth;
-        enemiesInRange = new ArrayList<>();
-    }
-
-    @Override
-    public void createBody(BodyDef.BodyType bodyType, short categoryBits, short maskBits, short groupIndex, boolean isSensor){
-        super.createBody(bodyType, categoryBits, maskBits, groupIndex, isSensor);
-
-        CircleShape meleeSensorShape = new CircleShape();
-        meleeSensorShape.setRadius(MELEE_RANGE / PIXELS_PER_METRE);
-
-        FixtureDef meleeFixtureDef = new FixtureDef();
-        meleeFixtureDef.shape = meleeSensorShape;
-        meleeFixtureDef.isSensor = true;
-
-        meleeFixtureDef.filter.categoryBits = categoryBits;
-        meleeFixtureDef.filter.maskBits = enemyBits;
-        meleeFixtureDef.filter.groupIndex = SENSOR_GROUP;
-
-        Fixture meleeFixture = body.createFixture(meleeFixtureDef);
-        meleeFixture.setUserData(this);
-
-        meleeSensorShape.dispose();
     }
 
     /**
@@ -198,20 +213,27 @@ public abstract class Character extends PhysicsEntity {
         if (isStunned()) {
             return false;
         }
-//        if (meleeAttackTimer > MELEE_ATTACK_COOLDOWN && !enemiesInRange.isEmpty()){
         if (meleeAttackTimer > MELEE_ATTACK_COOLDOWN){
-            for (PhysicsEntity entity : enemiesInRange) {
+            for (PhysicsEntity entity : findEnemiesInRange()) {
                 if (Math.abs(vectorTo(entity.getCentre()).angle(direction)) < 45) {
                     if (entity instanceof Character) {
                         Character character = (Character) entity;
                         character.damage(damage);
                         character.setVelocity(direction.cpy().setLength(40f));
-                    } else if (entity instanceof Projectile){
-                        Projectile projectile = (Projectile) entity;
-                        float speed = projectile.getPhysicsVelocity().len();
-                        Vector2 newVelocity = vectorTo(projectile.getCentre()).setLength(speed*2);
-                        projectile.setOwner(this);
-                        projectile.setVelocity(newVelocity);
+                    }
+                }
+            }
+            if ((enemyBits & PROJECTILE_BITS) != 0) {
+                // Knock back other people's projectiles at twice the speed.
+                ProjectileManager projectiles = parent.getProjectiles();
+                Vector2 centre = getCentre();
+                for (int n = projectiles.findInRange(centre.x, centre.y, MELEE_RANGE, this, projectilesInRange) - 1; n >= 0; n--) {
+                    int i = projectilesInRange.get(n);
+                    Vector2 projectileCentre = new Vector2(projectiles.getX(i), projectiles.getY(i));
+                    if (Math.abs(vectorTo(projectileCentre).angle(direction)) < 45) {
+                        Vector2 newVelocity = vectorTo(projectileCentre).setLength(projectiles.getSpeed(i) * 2);
+                        projectiles.setOwner(i, this);
+                        projectiles.setVelocity(i, newVelocity);
                     }
                 }
             }
@@ -223,6 +245,22 @@ public abstract class Character extends PhysicsEntity {
         return false;
     }
     
+    /**
+     * Finds the enemies close enough to hit in melee, from the Round's spatial hash. Something is close enough if
+     * any part of it is within MELEE_RANGE of this Character's centre. The hash was built at the start of the update,
+     * so anything created since isn't found.
+     *
+     * @return the enemies in range, in a list that is reused by the next call
+     */
+    protected List<PhysicsEntity> findEnemiesInRange() {
+        enemiesInRange.clear();
+        if (enemyBits != 0) {
+            meleeCentre.set(getCentre());
+            parent.queryRadius(meleeCentre.x, meleeCentre.y, MELEE_RANGE + MELEE_QUERY_MARGIN, enemyBits, enemyCallback);
+        }
+        return enemiesInRange;
+    }
+
     protected boolean rangedAttack(Vector2 direction, int damage) {
         if (isStunned()) {
             return false;
@@ -237,24 +275,6 @@ public abstract class Character extends PhysicsEntity {
         return false;
     }
 
-    @Override
-    public void beginSensorContact(PhysicsEntity other, Contact contact) {
-        super.beginSensorContact(other, contact);
-        if (other instanceof Character || (other instanceof Projectile && ((Projectile)other).getOwner() != this)) {
-            enemiesInRange.add(other);
-        }
-
-    }
-
-    @Override
-    public void endSensorContact(PhysicsEntity other, Contact contact) {
-        super.endSensorContact(other, contact);
-        if (enemiesInRange.contains(other)) {
-            enemiesInRange.remove(other);
-        }
-
-    }
-
     /**
      * Updates the state of this Character.
      *
@@ -23,6 +23,11 @@ public abstract class Entity {
     public static final float METRES_PER_PIXEL = 1/16f;
     public static final float PIXELS_PER_METRE = 1/METRES_PER_PIXEL;
 
+    /**
+     * Where this Entity was before the most recent step, so it can be drawn between steps.
+     */
+    private float previousX, previousY;
+
     /**
      * Whether or not to remove this Entity on the next frame.
      */
@@ -38,6 +43,8 @@ public abstract class Entity {
         this.parent = parent;
         this.x = x;
         this.y = y;
+        this.previousX = x;
+        this.previousY = y;
     }
 
     /**
@@ -65,6 +72,27 @@ public abstract class Entity {
             .add(getWidth()/2f, getHeight()/2f);
     }
 
+    /**
+     * Remembers where this Entity is, before the Round steps it somewhere else.
+     */
+    public void savePreviousPosition() {
+        Vector2 position = getPosition();
+        previousX = position.x;
+        previousY = position.y;
+    }
+
+    /**
+     * Gets where to draw this Entity, between where it was before the most recent step and where it is now, by the
+     * Round's interpolation alpha.
+     *
+     * @return the position to draw at
+     */
+    public Vector2 getRenderPosition() {
+        Vector2 position = getPosition();
+        float alpha = parent.getInterpolationAlpha();
+        return position.set(previousX + (position.x - previousX) * alpha, previousY + (position.y - previousY) * alpha);
+    }
+
     /**
      * Returns the distance between this Entity and the specified coordinates.
      *
@@ -137,6 +165,14 @@ public abstract class Entity {
         return new Vector2(getWidth(), getHeight());
     }
 
+    /**
+     * Returns the Box2D category bits of this Entity, used to filter spatial queries.
+     * @return the category bits of this Entity, or 0 if it has no body
+     */
+    public short getCategoryBits() {
+        return 0;
+    }
+
     /**
      * Returns if this entity should be removed
      * @return whether this Entity has been removed
@@ -0,0 +1,144 @@
+package com.superduckinvaders.game.entity;
+
+import com.superduckinvaders.game.entity.item.Item;
+import com.superduckinvaders.game.entity.mob.Mob;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Holds every entity in a Round, split into one list per kind of entity.
+ * Removed entities stay in their list until the next sweep, which takes them out by swapping in the last element.
+ * The order of entities within a list is therefore not stable.
+ */
+public class EntityRegistry implements Iterable<Entity> {
+
+    /**
+     * Called for each entity taken out by a sweep, before it is disposed.
+     */
+    public interface RemovalListener {
+        void removed(Entity entity);
+    }
+
+    private final List<Player> players = new ArrayList<>(1);
+    private final List<Mob> mobs = new ArrayList<>(64);
+    private final List<Item> items = new ArrayList<>(16);
+    private final List<Entity> others = new ArrayList<>(8);
+
+    /**
+     * Every list, in the order entities should be drawn.
+     */
+    private final List<?>[] buckets = {items, mobs, players, others};
+
+    /**
+     * Adds an entity to the list for its kind.
+     *
+     * @param entity the entity to add
+     */
+    public void add(Entity entity) {
+        if (entity instanceof Player) {
+            players.add((Player) entity);
+        } else if (entity instanceof Mob) {
+            mobs.add((Mob) entity);
+        } else if (entity instanceof Item) {
+            items.add((Item) entity);
+        } else {
+            others.add(entity);
+        }
+    }
+
+    /**
+     * Takes every removed entity out of its list and disposes it.
+     *
+     * @param listener told about each entity before it is disposed, may be null
+     */
+    public void sweep(RemovalListener listener) {
+        for (List<?> bucket : buckets) {
+            sweep(bucket, listener);
+        }
+    }
+
+    private static void sweep(List<?> bucket, RemovalListener listener) {
+        @SuppressWarnings("unchecked")
+        List<Entity> entities = (List<Entity>) bucket;
+
+        for (int i = 0; i < entities.size(); i++) {
+            Entity entity = entities.get(i);
+            if (entity.isRemoved()) {
+                if (listener != null) {
+                    listener.removed(entity);
+                }
+                entity.dispose();
+
+                int last = entities.size() - 1;
+                entities.set(i, entities.get(last));
+                entities.remove(last);
+                i--;
+            }
+        }
+    }
+
+    /**
+     * @return the players, do not modify
+     */
+    public List<Player> getPlayers() {
+        return players;
+    }
+
+    /**
+     * @return the mobs, do not modify
+     */
+    public List<Mob> getMobs() {
+        return mobs;
+    }
+
+    /**
+     * @return the items, do not modify
+     */
+    public List<Item> getItems() {
+        return items;
+    }
+
+    /**
+     * @return how many entities are in this registry, including removed ones not yet swept
+     */
+    public int size() {
+        int size = 0;
+        for (List<?> bucket : buckets) {
+            size += bucket.size();
+        }
+        return size;
+    }
+
+    /**
+     * Iterates over every entity, kind by kind in drawing order.
+     *
+     * @return an iterator over every entity
+     */
+    @Override
+    public Iterator<Entity> iterator() {
+        return new Iterator<Entity>() {
+            private int bucket = 0;
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                while (bucket < buckets.length && index >= buckets[bucket].size()) {
+                    bucket++;
+                    index = 0;
+                }
+                return bucket < buckets.length;
+            }
+
+            @Override
+            public Entity next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return (Entity) buckets[bucket].get(index++);
+            }
+        };
+    }
+}
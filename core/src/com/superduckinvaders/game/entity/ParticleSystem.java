@@ -0,0 +1,256 @@
+package com.superduckinvaders.game.entity;
+
+import com.badlogic.gdx.graphics.g2d.Animation;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+
+import java.util.Arrays;
+
+/**
+ * Holds every particle effect in a Round in flat arrays, instead of as entities.
+ * <p>
+ * Particles are updated in one loop and drawn in one pass, skipping any outside the view, and never go through the
+ * entity registry or spatial hash. There can be at most cap particles at once. When a new one would go over the cap,
+ * it replaces a particle outside the view if there is one, or else the one nearest the end of its animation, so a
+ * burst of effects can't make a frame any more expensive than a full system.
+ */
+public class ParticleSystem {
+
+    /**
+     * The most particles there can be by default.
+     */
+    public static final int DEFAULT_CAP = 256;
+
+    /**
+     * The bottom left corner of each particle, how long it has been playing and how long it lasts, in seconds, and
+     * the index of its animation in animations. Particles past count are unused.
+     */
+    private float[] x, y, elapsed, duration;
+    private int[] animationId;
+    private int count = 0;
+
+    /**
+     * The animations particles have used, looked up by index so the arrays hold no references, and the size of
+     * their first frames.
+     */
+    private final Array<Animation> animations = new Array<>();
+    private final FloatArray frameWidth = new FloatArray(), frameHeight = new FloatArray();
+
+    private int cap;
+
+    /**
+     * The area being drawn, which particles outside of are not drawn and are replaced first.
+     */
+    private float viewMinX = Float.NEGATIVE_INFINITY, viewMinY = Float.NEGATIVE_INFINITY;
+    private float viewMaxX = Float.POSITIVE_INFINITY, viewMaxY = Float.POSITIVE_INFINITY;
+
+    /**
+     * How many particles have been replaced because the system was full, and how many were drawn last time.
+     */
+    private int dropped = 0;
+    private int lastDrawn = 0;
+
+    /**
+     * Creates a ParticleSystem holding at most DEFAULT_CAP particles.
+     */
+    public ParticleSystem() {
+        this(DEFAULT_CAP);
+    }
+
+    /**
+     * Creates a ParticleSystem.
+     *
+     * @param cap the most particles there can be at once
+     */
+    public ParticleSystem(int cap) {
+        this.cap = cap;
+
+        int capacity = Math.max(0, Math.min(cap, 64));
+        x = new float[capacity];
+        y = new float[capacity];
+        elapsed = new float[capacity];
+        duration = new float[capacity];
+        animationId = new int[capacity];
+    }
+
+    /**
+     * Starts a particle effect, replacing another if the system is full.
+     *
+     * @param x         the x coordinate of the bottom left corner
+     * @param y         the y coordinate of the bottom left corner
+     * @param duration  how long the effect lasts, in seconds
+     * @param animation the animation to play
+     */
+    public void spawn(float x, float y, float duration, Animation animation) {
+        if (cap <= 0) {
+            return;
+        }
+
+        int i;
+        if (count < cap) {
+            if (count == this.x.length) {
+                grow();
+            }
+            i = count++;
+        } else {
+            i = chooseVictim();
+            dropped++;
+        }
+
+        this.x[i] = x;
+        this.y[i] = y;
+        this.elapsed[i] = 0;
+        this.duration[i] = duration;
+        this.animationId[i] = idOf(animation);
+    }
+
+    /**
+     * @return the particle to replace: the first outside the view, or else the one nearest the end of its animation
+     */
+    private int chooseVictim() {
+        int oldest = 0;
+        float oldestProgress = -1;
+        for (int i = 0; i < count; i++) {
+            if (!isVisible(i)) {
+                return i;
+            }
+            float progress = duration[i] > 0 ? elapsed[i] / duration[i] : 1;
+            if (progress > oldestProgress) {
+                oldest = i;
+                oldestProgress = progress;
+            }
+        }
+        return oldest;
+    }
+
+    /**
+     * Plays every particle on, removing those that have finished.
+     *
+     * @param delta how much time has passed since the last update
+     */
+    public void update(float delta) {
+        for (int i = 0; i < count; i++) {
+            elapsed[i] += delta;
+            if (elapsed[i] > duration[i]) {
+                // Swap the last particle in and look at this slot again.
+                count--;
+                x[i] = x[count];
+                y[i] = y[count];
+                elapsed[i] = elapsed[count];
+                duration[i] = duration[count];
+                animationId[i] = animationId[count];
+                i--;
+            }
+        }
+    }
+
+    /**
+     * Draws every particle inside the view.
+     *
+     * @param spriteBatch the sprite batch on which to render, which must have begun
+     */
+    public void render(SpriteBatch spriteBatch) {
+        lastDrawn = 0;
+        for (int i = 0; i < count; i++) {
+            if (isVisible(i)) {
+                TextureRegion frame = animations.get(animationId[i]).getKeyFrame(elapsed[i]);
+                spriteBatch.draw(frame, x[i], y[i]);
+                lastDrawn++;
+            }
+        }
+    }
+
+    /**
+     * Sets the area being drawn. A particle counts as inside it if its bottom left corner is within a frame's width
+     * or height of it.
+     *
+     * @param minX the left edge
+     * @param minY the bottom edge
+     * @param maxX the right edge
+     * @param maxY the top edge
+     */
+    public void setView(float minX, float minY, float maxX, float maxY) {
+        viewMinX = minX;
+        viewMinY = minY;
+        viewMaxX = maxX;
+        viewMaxY = maxY;
+    }
+
+    private boolean isVisible(int i) {
+        int id = animationId[i];
+        return x[i] + frameWidth.get(id) >= viewMinX && x[i] <= viewMaxX
+                && y[i] + frameHeight.get(id) >= viewMinY && y[i] <= viewMaxY;
+    }
+
+    private int idOf(Animation animation) {
+        int id = animations.indexOf(animation, true);
+        if (id == -1) {
+            TextureRegion frame = animation.getKeyFrame(0);
+            animations.add(animation);
+            frameWidth.add(frame == null ? 0 : frame.getRegionWidth());
+            frameHeight.add(frame == null ? 0 : frame.getRegionHeight());
+            id = animations.size - 1;
+        }
+        return id;
+    }
+
+    private void grow() {
+        int capacity = Math.max(1, Math.min(cap, x.length * 2));
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        elapsed = Arrays.copyOf(elapsed, capacity);
+        duration = Arrays.copyOf(duration, capacity);
+        animationId = Arrays.copyOf(animationId, capacity);
+    }
+
+    /**
+     * Removes every particle.
+     */
+    public void clear() {
+        count = 0;
+    }
+
+    /**
+     * @return how many particles are playing
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return the most particles there can be at once
+     */
+    public int getCap() {
+        return cap;
+    }
+
+    /**
+     * Changes the most particles there can be at once. If there are more than that already, the excess are removed,
+     * in no particular order.
+     *
+     * @param cap the new cap
+     */
+    public void setCap(int cap) {
+        this.cap = cap;
+        if (count > cap) {
+            dropped += count - Math.max(0, cap);
+            count = Math.max(0, cap);
+        }
+    }
+
+    /**
+     * @return how many particles have been replaced or removed because the system was full
+     */
+    public int getDroppedCount() {
+        return dropped;
+    }
+
+    /**
+     * @return how many particles were drawn last time
+     */
+    public int getLastDrawn() {
+        return lastDrawn;
+    }
+}
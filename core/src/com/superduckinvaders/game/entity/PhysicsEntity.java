@@ -13,16 +13,20 @@ public abstract class PhysicsEntity extends Entity {
     public static final short MOB_BITS         = 0x4;
     public static final short PROJECTILE_BITS  = 0x8;
     public static final short ITEM_BITS        = 0x10;
-    public static final short WATER_BITS        = 0x10;
+    public static final short WATER_BITS       = 0x20;
     public static final short ALL_BITS         = WORLD_BITS | PLAYER_BITS | MOB_BITS |
                                              PROJECTILE_BITS | ITEM_BITS | WATER_BITS;
     public static final short NO_GROUP         = 0;
     public static final short MOB_GROUP        = -1;
-    public static final short SENSOR_GROUP        = -2;
 
     public short categoryBits = PLAYER_BITS;
 
     public Body body;
+
+    /**
+     * Whether the body takes part in the simulation, cached so checking it doesn't need a native call.
+     */
+    private boolean bodyActive = true;
     public static final float METRES_PER_PIXEL = 1/16f;
     public static final float PIXELS_PER_METRE = 1/METRES_PER_PIXEL;
 
@@ -61,6 +65,7 @@ public abstract class PhysicsEntity extends Entity {
         createBody(bodyType, WORLD_BITS, WORLD_BITS, NO_GROUP, false);
     }
     public void createBody(BodyDef.BodyType bodyType, short categoryBits, short maskBits, short groupIndex, boolean isSensor){
+        this.categoryBits = categoryBits;
         float width = getWidth();
         float height = getHeight();
         BodyDef bodyDef = new BodyDef();
@@ -89,6 +94,35 @@ public abstract class PhysicsEntity extends Entity {
     }
     
 
+    /**
+     * Gets a name for a category, for debugging output.
+     * @param categoryBits a single category bit
+     * @return the name of the category, or its bits in hex if it has none
+     */
+    public static String getCategoryName(short categoryBits) {
+        switch (categoryBits) {
+            case WORLD_BITS:
+                return "world";
+            case PLAYER_BITS:
+                return "player";
+            case MOB_BITS:
+                return "mob";
+            case PROJECTILE_BITS:
+                return "projectile";
+            case ITEM_BITS:
+                return "item";
+            case WATER_BITS:
+                return "water";
+            default:
+                return String.format("0x%x", categoryBits);
+        }
+    }
+
+    @Override
+    public short getCategoryBits() {
+        return categoryBits;
+    }
+
     /**
      * Returns the x coordinate of the entity
      * @return the x coordinate of this Entity
@@ -157,6 +191,38 @@ public abstract class PhysicsEntity extends Entity {
         body.applyLinearImpulse(impulse, body.getWorldCenter(), true);
     }
 
+    /**
+     * @return whether this PhysicsEntity's body takes part in the simulation
+     */
+    public boolean isBodyActive() {
+        return bodyActive;
+    }
+
+    /**
+     * Adds or removes this PhysicsEntity's body from the simulation.
+     * Inactive bodies keep their position and velocity but are not stepped and have no contacts.
+     * Must not be called during a world step.
+     *
+     * @param active whether the body should take part in the simulation
+     */
+    public void setBodyActive(boolean active) {
+        if (active != bodyActive) {
+            body.setActive(active);
+            bodyActive = active;
+        }
+    }
+
+    /**
+     * Moves this PhysicsEntity's body straight to a point, without sweeping through anything in between.
+     * Must not be called during a world step.
+     *
+     * @param x the x coordinate of the new centre, in pixels
+     * @param y the y coordinate of the new centre, in pixels
+     */
+    public void setCentre(float x, float y) {
+        body.setTransform(x * METRES_PER_PIXEL, y * METRES_PER_PIXEL, body.getAngle());
+    }
+
     public short getMaskBits(){
         Fixture fixture = body.getFixtureList().get(0);
         return fixture.getFilterData().maskBits;
@@ -175,6 +241,11 @@ public abstract class PhysicsEntity extends Entity {
         }
     }
 
+    /*
+     * Contact handlers. An entity only receives the events its category is registered for with the Round's
+     * CustomContactListener, so overriding one of these needs a matching register call in the Round.
+     */
+
     public void beginCollision(PhysicsEntity other, Contact contact) {
     }
 
@@ -95,11 +95,6 @@ public class Player extends Character {
      */
     private float flyingTimer = 5;
 
-    /**
-     * Keeps track of the water blocks encountered, to know when to stop swimming (when this variable is 0).
-     */
-    public int waterBlockCount = 0;
-
     /**
      * The weapon currently being used.
      */
@@ -160,7 +155,7 @@ public class Player extends Character {
      * @return whether the player is swimming
      */
     public boolean isSwimming() {
-        return waterBlockCount > 0 && !isFlying();
+        return !isFlying() && parent.isInWater(getX(), getY(), getWidth(), getHeight());
     }
 
     /**
@@ -368,7 +363,7 @@ public class Player extends Character {
      */
     @Override
     public void render(SpriteBatch spriteBatch) {
-        Vector2 pos = getPosition().add(TEXTURE_OFFSET);
+        Vector2 pos = getRenderPosition().add(TEXTURE_OFFSET);
         TextureRegion attackTexture = getAttackAnimationFrame();
         if (attackTexture != null){
             spriteBatch.draw(attackTexture, pos.x, pos.y);
@@ -0,0 +1,376 @@
+package com.superduckinvaders.game.entity;
+
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.IntArray;
+import com.superduckinvaders.game.Round;
+import com.superduckinvaders.game.assets.Assets;
+import com.superduckinvaders.game.util.GridRay;
+import com.superduckinvaders.game.util.SpatialHash;
+import com.superduckinvaders.game.util.TileBitmap;
+
+import java.util.Arrays;
+
+/**
+ * Holds every projectile in a Round in flat arrays, and moves them without Box2D.
+ * <p>
+ * Projectiles fly in straight lines at a constant speed, so each update moves them along their velocity and tests
+ * the segment they swept: against the tile grid for walls, and against the characters near it, found in the Round's
+ * spatial hash. Whichever the segment reaches first is hit. A projectile that hits nothing for MAX_LIFETIME seconds
+ * is removed.
+ */
+public class ProjectileManager {
+
+    /**
+     * How long a projectile flies before it is removed, in seconds.
+     */
+    public static final float MAX_LIFETIME = 3f;
+
+    /**
+     * How far outside a swept segment a character's centre can be while its edge still touches it, in pixels.
+     */
+    public static final float CHARACTER_QUERY_MARGIN = 64f;
+
+    /**
+     * The centre of each projectile, in pixels, its velocity, in metres per second, and how long it has been flying.
+     * Projectiles past count are unused.
+     */
+    private float[] x, y, velocityX, velocityY, age;
+    private int[] damage;
+
+    /**
+     * Who fired each projectile, and the category bits of the characters it can hit.
+     */
+    private PhysicsEntity[] owner;
+    private short[] hitBits;
+    private int count = 0;
+
+    private final Round parent;
+    private final TileBitmap blocked;
+    private final float tileWidth, tileHeight;
+
+    /**
+     * Half the size of a projectile, in pixels.
+     */
+    private float halfWidth, halfHeight;
+
+    /**
+     * The projectile being tested by characterCallback, the end of the segment it swept, and the nearest character
+     * it hit so far and how far along the segment.
+     */
+    private int testing;
+    private float testEndX, testEndY;
+    private Character nearestHit;
+    private float nearestHitFraction;
+
+    /**
+     * Finds the first character the segment being tested enters.
+     */
+    private final SpatialHash.Callback characterCallback = (Entity entity) -> {
+        if (entity instanceof Character && entity != owner[testing] && !entity.isRemoved()) {
+            float fraction = sweep(x[testing], y[testing], testEndX, testEndY,
+                    entity.getX() - halfWidth, entity.getY() - halfHeight,
+                    entity.getX() + entity.getWidth() + halfWidth, entity.getY() + entity.getHeight() + halfHeight);
+            if (fraction >= 0 && fraction < nearestHitFraction) {
+                nearestHit = (Character) entity;
+                nearestHitFraction = fraction;
+            }
+        }
+        return true;
+    };
+
+    /**
+     * The most projectiles there have been at once, and how many have run out of time.
+     */
+    private int peak = 0;
+    private int expired = 0;
+
+    /**
+     * How long the most recent update was, to draw projectiles between updates.
+     */
+    private float lastDelta = 0;
+
+    /**
+     * Creates a ProjectileManager.
+     *
+     * @param parent     the round the projectiles belong to, whose spatial hash is used to find characters
+     * @param blocked    the tiles projectiles can't pass through
+     * @param tileWidth  the width of a tile, in pixels
+     * @param tileHeight the height of a tile, in pixels
+     * @param width      the width of a projectile, in pixels
+     * @param height     the height of a projectile, in pixels
+     */
+    public ProjectileManager(Round parent, TileBitmap blocked, float tileWidth, float tileHeight, float width, float height) {
+        this.parent = parent;
+        this.blocked = blocked;
+        this.tileWidth = tileWidth;
+        this.tileHeight = tileHeight;
+        this.halfWidth = width / 2;
+        this.halfHeight = height / 2;
+
+        int capacity = 64;
+        x = new float[capacity];
+        y = new float[capacity];
+        velocityX = new float[capacity];
+        velocityY = new float[capacity];
+        age = new float[capacity];
+        damage = new int[capacity];
+        owner = new PhysicsEntity[capacity];
+        hitBits = new short[capacity];
+    }
+
+    /**
+     * Fires a projectile.
+     *
+     * @param x        the x coordinate of the centre
+     * @param y        the y coordinate of the centre
+     * @param velocity the velocity, in metres per second
+     * @param damage   how much damage the projectile deals
+     * @param owner    the one who fired it, which it can't hit
+     */
+    public void spawn(float x, float y, Vector2 velocity, int damage, PhysicsEntity owner) {
+        if (count == this.x.length) {
+            grow();
+        }
+
+        int i = count++;
+        peak = Math.max(peak, count);
+
+        this.x[i] = x;
+        this.y[i] = y;
+        this.velocityX[i] = velocity.x;
+        this.velocityY[i] = velocity.y;
+        this.age[i] = 0;
+        this.damage[i] = damage;
+        setOwner(i, owner);
+    }
+
+    /**
+     * Moves every projectile, hitting whatever is in its way, and removes those that hit something or ran out of
+     * time. The Round's spatial hash must be up to date.
+     *
+     * @param delta how much time has passed since the last update
+     */
+    public void update(float delta) {
+        lastDelta = delta;
+        for (int i = 0; i < count; i++) {
+            age[i] += delta;
+            if (age[i] > MAX_LIFETIME) {
+                expired++;
+                remove(i--);
+                continue;
+            }
+
+            float endX = x[i] + velocityX[i] * PhysicsEntity.PIXELS_PER_METRE * delta;
+            float endY = y[i] + velocityY[i] * PhysicsEntity.PIXELS_PER_METRE * delta;
+
+            float wallFraction = GridRay.cast(blocked, x[i] / tileWidth, y[i] / tileHeight, endX / tileWidth, endY / tileHeight);
+            if (wallFraction == GridRay.CLEAR) {
+                wallFraction = Float.POSITIVE_INFINITY;
+            }
+
+            testing = i;
+            testEndX = endX;
+            testEndY = endY;
+            nearestHit = null;
+            nearestHitFraction = Float.POSITIVE_INFINITY;
+            parent.queryArea(Math.min(x[i], endX) - CHARACTER_QUERY_MARGIN, Math.min(y[i], endY) - CHARACTER_QUERY_MARGIN,
+                    Math.max(x[i], endX) + CHARACTER_QUERY_MARGIN, Math.max(y[i], endY) + CHARACTER_QUERY_MARGIN,
+                    hitBits[i], characterCallback);
+
+            float fraction = Math.min(wallFraction, nearestHitFraction);
+            if (fraction == Float.POSITIVE_INFINITY) {
+                x[i] = endX;
+                y[i] = endY;
+                continue;
+            }
+
+            float hitX = x[i] + (endX - x[i]) * fraction;
+            float hitY = y[i] + (endY - y[i]) * fraction;
+            parent.createParticle(hitX, hitY, 0.6f, Assets.explosionAnimation);
+            if (nearestHitFraction <= wallFraction) {
+                nearestHit.damage(damage[i]);
+            }
+            remove(i--);
+        }
+        nearestHit = null;
+    }
+
+    /**
+     * Finds how far along a segment it first enters a rectangle.
+     *
+     * @return the fraction of the segment, 0 if it starts inside, or -1 if it misses
+     */
+    static float sweep(float x0, float y0, float x1, float y1, float minX, float minY, float maxX, float maxY) {
+        float enter = 0, exit = 1;
+
+        float dx = x1 - x0;
+        if (dx == 0) {
+            if (x0 < minX || x0 > maxX) {
+                return -1;
+            }
+        } else {
+            float t0 = (minX - x0) / dx, t1 = (maxX - x0) / dx;
+            enter = Math.max(enter, Math.min(t0, t1));
+            exit = Math.min(exit, Math.max(t0, t1));
+        }
+
+        float dy = y1 - y0;
+        if (dy == 0) {
+            if (y0 < minY || y0 > maxY) {
+                return -1;
+            }
+        } else {
+            float t0 = (minY - y0) / dy, t1 = (maxY - y0) / dy;
+            enter = Math.max(enter, Math.min(t0, t1));
+            exit = Math.min(exit, Math.max(t0, t1));
+        }
+
+        return enter <= exit ? enter : -1;
+    }
+
+    /**
+     * Draws every projectile, part of the way back along its last update by the Round's interpolation alpha.
+     *
+     * @param spriteBatch the sprite batch on which to render, which must have begun
+     */
+    public void render(SpriteBatch spriteBatch) {
+        TextureRegion texture = Assets.projectile;
+        float behind = (1 - parent.getInterpolationAlpha()) * lastDelta * PhysicsEntity.PIXELS_PER_METRE;
+        for (int i = 0; i < count; i++) {
+            spriteBatch.draw(texture, x[i] - velocityX[i] * behind - halfWidth, y[i] - velocityY[i] * behind - halfHeight);
+        }
+    }
+
+    /**
+     * Finds the projectiles not fired by someone whose edge is within a distance of a point.
+     *
+     * @param x      the x coordinate of the point
+     * @param y      the y coordinate of the point
+     * @param range  the distance
+     * @param ignore the owner whose projectiles are left out
+     * @param found  receives the index of each projectile found, after being cleared
+     * @return how many were found
+     */
+    public int findInRange(float x, float y, float range, PhysicsEntity ignore, IntArray found) {
+        found.clear();
+        for (int i = 0; i < count; i++) {
+            if (owner[i] == ignore) {
+                continue;
+            }
+            float dx = Math.max(0, Math.abs(this.x[i] - x) - halfWidth);
+            float dy = Math.max(0, Math.abs(this.y[i] - y) - halfHeight);
+            if (dx * dx + dy * dy <= range * range) {
+                found.add(i);
+            }
+        }
+        return found.size;
+    }
+
+    /**
+     * Gives a projectile to someone else, so it can hit the one who fired it.
+     * Indices stay valid until the next update.
+     *
+     * @param i     the index of the projectile
+     * @param owner the new owner
+     */
+    public void setOwner(int i, PhysicsEntity owner) {
+        this.owner[i] = owner;
+        this.hitBits[i] = (short) ((PhysicsEntity.PLAYER_BITS | PhysicsEntity.MOB_BITS) & ~owner.getCategoryBits());
+    }
+
+    /**
+     * Changes the velocity of a projectile.
+     *
+     * @param i        the index of the projectile
+     * @param velocity the new velocity, in metres per second
+     */
+    public void setVelocity(int i, Vector2 velocity) {
+        velocityX[i] = velocity.x;
+        velocityY[i] = velocity.y;
+    }
+
+    /**
+     * @return the x coordinate of the centre of a projectile
+     */
+    public float getX(int i) {
+        return x[i];
+    }
+
+    /**
+     * @return the y coordinate of the centre of a projectile
+     */
+    public float getY(int i) {
+        return y[i];
+    }
+
+    /**
+     * @return the speed of a projectile, in metres per second
+     */
+    public float getSpeed(int i) {
+        return (float) Math.sqrt(velocityX[i] * velocityX[i] + velocityY[i] * velocityY[i]);
+    }
+
+    /**
+     * @return who a projectile belongs to
+     */
+    public PhysicsEntity getOwner(int i) {
+        return owner[i];
+    }
+
+    private void remove(int i) {
+        // Swap the last projectile in.
+        count--;
+        x[i] = x[count];
+        y[i] = y[count];
+        velocityX[i] = velocityX[count];
+        velocityY[i] = velocityY[count];
+        age[i] = age[count];
+        damage[i] = damage[count];
+        owner[i] = owner[count];
+        hitBits[i] = hitBits[count];
+        owner[count] = null;
+    }
+
+    private void grow() {
+        int capacity = x.length * 2;
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        velocityX = Arrays.copyOf(velocityX, capacity);
+        velocityY = Arrays.copyOf(velocityY, capacity);
+        age = Arrays.copyOf(age, capacity);
+        damage = Arrays.copyOf(damage, capacity);
+        owner = Arrays.copyOf(owner, capacity);
+        hitBits = Arrays.copyOf(hitBits, capacity);
+    }
+
+    /**
+     * Removes every projectile.
+     */
+    public void clear() {
+        Arrays.fill(owner, 0, count, null);
+        count = 0;
+    }
+
+    /**
+     * @return how many projectiles are flying
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return the most projectiles there have been at once
+     */
+    public int getPeak() {
+        return peak;
+    }
+
+    /**
+     * @return how many projectiles have been removed for flying longer than MAX_LIFETIME
+     */
+    public int getExpiredCount() {
+        return expired;
+    }
+}
@@ -2,12 +2,11 @@ package com.superduckinvaders.game.entity;
 
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.physics.box2d.BodyDef;
-import com.badlogic.gdx.physics.box2d.Contact;
-import com.badlogic.gdx.physics.box2d.Manifold;
 import com.superduckinvaders.game.Round;
 
 /**
- * A water block. Lets the player know when to swim.
+ * A block of water. Mobs can't cross it, but the player swims through it.
+ * The player never touches these bodies; whether they are swimming is looked up in the Round's water map.
  */
 public class WaterEntity extends PhysicsEntity {
 
@@ -23,29 +22,7 @@ public class WaterEntity extends PhysicsEntity {
         super(parent, x, y);
         this.width = width;
         this.height = height;
-        createBody(BodyDef.BodyType.StaticBody, WATER_BITS, (short)(ALL_BITS ^ PROJECTILE_BITS), NO_GROUP, false);
-    }
-
-    @Override
-    public void beginCollision(PhysicsEntity other, Contact contact){
-        if (other instanceof Player){
-            ((Player) other).waterBlockCount++;
-        }
-    }
-
-    @Override
-    public void endCollision(PhysicsEntity other, Contact contact){
-        if (other instanceof Player){
-            ((Player) other).waterBlockCount--;
-        }
-    }
-
-    @Override
-    public void preSolve(PhysicsEntity other, Contact contact, Manifold manifold) {
-        super.preSolve(other, contact, manifold);
-        if (other instanceof Player){
-            contact.setEnabled(false);
-        }
+        createBody(BodyDef.BodyType.StaticBody, WATER_BITS, MOB_BITS, NO_GROUP, false);
     }
 
     @Override
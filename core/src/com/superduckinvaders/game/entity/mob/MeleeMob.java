@@ -6,6 +6,8 @@ import com.superduckinvaders.game.ai.PathfindingAI;
 import com.superduckinvaders.game.assets.TextureSet;
 import com.superduckinvaders.game.entity.PhysicsEntity;
 
+import java.util.List;
+
 /**
  * A mob that prefers close range combat (we don't live in the USA, so guns aren't exactly commonplace here!)
  */
@@ -31,9 +33,12 @@ public class MeleeMob extends Mob {
     @Override
     public void update(float delta) {
         super.update(delta);
-        if (!enemiesInRange.isEmpty()) {
-            for (PhysicsEntity entity : enemiesInRange) {
-                meleeAttack(vectorTo(entity.getCentre()), 1);
+
+        // Only look for someone to hit when the attack is ready.
+        if (meleeAttackTimer > MELEE_ATTACK_COOLDOWN) {
+            List<PhysicsEntity> enemies = findEnemiesInRange();
+            if (!enemies.isEmpty()) {
+                meleeAttack(vectorTo(enemies.get(0).getCentre()), 1);
             }
         }
     }
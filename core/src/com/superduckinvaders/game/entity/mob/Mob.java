@@ -3,9 +3,11 @@ package com.superduckinvaders.game.entity.mob;
 
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.BodyDef;
 import com.superduckinvaders.game.Round;
 import com.superduckinvaders.game.ai.AI;
 import com.superduckinvaders.game.ai.DummyAI;
+import com.superduckinvaders.game.ai.ThinkPhase;
 import com.superduckinvaders.game.assets.TextureSet;
 import com.superduckinvaders.game.entity.Character;
 import com.superduckinvaders.game.entity.Player;
@@ -13,7 +15,12 @@ import com.superduckinvaders.game.entity.Player;
 /**
  * A baddie. Not a goodie, a baddie. Bad-die.
  */
-public class Mob extends Character {
+public class Mob extends Character implements ThinkPhase.Thinker {
+
+    /**
+     * How quickly the mob slows down when it stops moving, as Box2D's linear damping.
+     */
+    public static final float LINEAR_DAMPING = 20f;
 
     /**
      * The texture set to use for this Mob.
@@ -30,6 +37,28 @@ public class Mob extends Character {
      */
     private float speed;
 
+    /**
+     * Where the centre of the mob was when the Round last took a snapshot, for use while thinking.
+     */
+    private final Vector2 snapshotCentre = new Vector2();
+
+    /**
+     * Where the mob heads while it is in the MID level of detail tier, or zero for nowhere.
+     */
+    private final Vector2 steering = new Vector2();
+
+    /**
+     * Time saved up towards the next tile hop in the FAR level of detail tier.
+     */
+    private float hopTime = 0;
+
+    /**
+     * Whether the mob is moved by the Round's KinematicMover instead of Box2D, and its velocity in metres per
+     * second while it is.
+     */
+    private boolean kinematic = false;
+    private final Vector2 kinematicVelocity = new Vector2();
+
     /**
      * Create a new Mob.
      * @param parent     the round parent.
@@ -53,7 +82,7 @@ public class Mob extends Character {
         this.enemyBits = PLAYER_BITS;
         
         createDynamicBody(MOB_BITS, (short)(ALL_BITS & (~MOB_BITS)), MOB_GROUP, false);
-        this.body.setLinearDamping(20f);
+        this.body.setLinearDamping(LINEAR_DAMPING);
     }
     
     /**
@@ -63,6 +92,22 @@ public class Mob extends Character {
     public void setAI(AI ai) {
         this.ai = ai;
     }
+
+    /**
+     * @return the AI controlling this Mob
+     */
+    public AI getAI() {
+        return ai;
+    }
+
+    /**
+     * Whether this Mob might ask the Round if the player can be seen when it next thinks. Called after its snapshot
+     * is taken.
+     * @return whether this Mob might ask
+     */
+    public boolean mayAskVisibility() {
+        return ai != null && ai.mayAskVisibility();
+    }
     
     /**
      * Resets the speed of the mob
@@ -89,9 +134,99 @@ public class Mob extends Character {
         return textureSet.getHeight();
     }
 
+    /**
+     * Switches the mob between a dynamic body, moved by Box2D, and a kinematic one moved by the Round. A kinematic
+     * body doesn't collide with the map, so the Round keeps it out of walls, but still touches the player and
+     * projectiles. Must not be called during a world step.
+     * @param kinematic whether the mob should be kinematic
+     */
+    public void setKinematic(boolean kinematic) {
+        if (kinematic == this.kinematic) {
+            return;
+        }
+        this.kinematic = kinematic;
+
+        if (kinematic) {
+            kinematicVelocity.set(body.getLinearVelocity());
+            body.setType(BodyDef.BodyType.KinematicBody);
+            body.setLinearVelocity(0, 0);
+        } else {
+            body.setType(BodyDef.BodyType.DynamicBody);
+            body.setLinearVelocity(kinematicVelocity);
+        }
+    }
+
+    /**
+     * @return whether the mob is moved by the Round instead of Box2D
+     */
+    public boolean isKinematic() {
+        return kinematic;
+    }
+
+    /**
+     * @return the mob's velocity while it is kinematic, in metres per second, which the Round updates as it moves it
+     */
+    public Vector2 getKinematicVelocity() {
+        return kinematicVelocity;
+    }
+
+    @Override
+    public Vector2 getPhysicsVelocity() {
+        return kinematic ? kinematicVelocity.cpy() : super.getPhysicsVelocity();
+    }
+
+    /**
+     * Shoots at a point, if the mob's gun has cooled down. For AIs that decide for themselves when to shoot.
+     * @param point the point to shoot at
+     * @return whether a shot was fired
+     */
+    public boolean shootAt(Vector2 point) {
+        return rangedAttack(vectorTo(point), 1);
+    }
+
+    /**
+     * Records the mob's position for the think phase. Called by the Round on the game thread.
+     */
+    public void takeSnapshot() {
+        snapshotCentre.set(getCentre());
+    }
+
+    /**
+     * @return the centre of the mob when the Round last took a snapshot, which must not be changed
+     */
+    public Vector2 getSnapshotCentre() {
+        return snapshotCentre;
+    }
+
+    /**
+     * @return where the mob heads while in the MID level of detail tier, which LevelOfDetail sets
+     */
+    public Vector2 getSteering() {
+        return steering;
+    }
+
+    /**
+     * Saves up time towards the next tile hop in the FAR level of detail tier.
+     * @param delta the time to add, or a negative amount to spend
+     * @return the time saved up
+     */
+    public float addHopTime(float delta) {
+        hopTime += delta;
+        return hopTime;
+    }
+
+    /**
+     * Decides what to do this update, without touching Box2D. See ThinkPhase.
+     * @param delta time since the previous update
+     */
+    @Override
+    public void think(float delta) {
+        ai.think(this, delta);
+    }
+
     @Override
     public void update(float delta) {
-        ai.update(this, delta);
+        ai.act(this);
 
         // Chance of spawning a random powerup.
         if (isDead()) {
@@ -106,7 +241,8 @@ public class Mob extends Character {
 
     @Override
     public void render(SpriteBatch spriteBatch) {
-        spriteBatch.draw(textureSet.getTexture(facing, stateTime), getX(), getY());
+        Vector2 pos = getRenderPosition();
+        spriteBatch.draw(textureSet.getTexture(facing, stateTime), pos.x, pos.y);
     }
 
     /**
@@ -119,6 +255,11 @@ public class Mob extends Character {
         if (isStunned()){
             velocity.scl(0.4f);
         }
-        setVelocityClamped(velocity);
+        if (kinematic) {
+            // The same change in velocity a clamped impulse would make, for the Round to carry out.
+            kinematicVelocity.add(velocity.sub(kinematicVelocity).clamp(0, 4f));
+        } else {
+            setVelocityClamped(velocity);
+        }
     }
 }
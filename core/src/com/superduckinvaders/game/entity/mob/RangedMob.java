@@ -17,6 +17,11 @@ public class RangedMob extends MeleeMob {
      */
     public static float range = 1280 / 4f;
 
+    /**
+     * Whether think decided the player is in range and in sight.
+     */
+    private boolean shooting = false;
+
     /**
      * Create a new RangedMob.
      * @param parent     the round parent.
@@ -44,12 +49,23 @@ public class RangedMob extends MeleeMob {
         super(parent, x, y, health, textureSet, speed, new PathfindingAI(parent, 200));
     }
     
+    @Override
+    public boolean mayAskVisibility() {
+        return super.mayAskVisibility() || getSnapshotCentre().dst(parent.getPlayerSnapshot()) < range;
+    }
+
+    @Override
+    public void think(float delta) {
+        super.think(delta);
+        Vector2 centre = getSnapshotCentre();
+        shooting = centre.dst(parent.getPlayerSnapshot()) < range && parent.canSeePlayer(centre.x, centre.y);
+    }
+
     @Override
     public void update(float delta){
         super.update(delta);
-        Vector2 playerPos = parent.getPlayer().getCentre();
-        if (distanceTo(playerPos) < range && parent.rayCast(getCentre(), playerPos)) {
-            rangedAttack(vectorTo(playerPos), 1);
+        if (shooting) {
+            rangedAttack(vectorTo(parent.getPlayer().getCentre()), 1);
         }
     }
 }
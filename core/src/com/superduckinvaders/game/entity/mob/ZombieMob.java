@@ -1,10 +1,11 @@
 package com.superduckinvaders.game.entity.mob;
 
 import com.superduckinvaders.game.Round;
+import com.superduckinvaders.game.ai.FlowFieldAI;
 import com.superduckinvaders.game.assets.Assets;
 
 /**
- * Chases the player until it gets close enough to cause damage.
+ * Chases the player until it gets close enough to cause damage. Zombies come in hordes, so they share a flow field.
  * Ever seen Shawn of the Dead? Good movie, right?
  */
 public class ZombieMob extends MeleeMob {
@@ -15,6 +16,6 @@ public class ZombieMob extends MeleeMob {
      * @param y      the starting y position
      */
     public ZombieMob (Round parent, float x, float y) {
-        super(parent, x, y, 4, Assets.badGuyNormal, 5);
+        super(parent, x, y, 4, Assets.badGuyNormal, 5, new FlowFieldAI(parent, 0));
     }
 }
@@ -1,6 +1,7 @@
 package com.superduckinvaders.game.screen;
 
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.OrthographicCamera;
@@ -17,11 +18,16 @@ import com.badlogic.gdx.utils.viewport.FitViewport;
 import com.badlogic.gdx.utils.viewport.Viewport;
 import com.superduckinvaders.game.DuckGame;
 import com.superduckinvaders.game.Round;
+import com.superduckinvaders.game.ai.LevelOfDetail;
+import com.superduckinvaders.game.ai.PathScheduler;
 import com.superduckinvaders.game.assets.Assets;
 import com.superduckinvaders.game.entity.Entity;
 import com.superduckinvaders.game.entity.PhysicsEntity;
+import com.superduckinvaders.game.entity.ParticleSystem;
 import com.superduckinvaders.game.entity.Player;
-import com.superduckinvaders.game.entity.mob.Mob;
+import com.superduckinvaders.game.entity.ProjectileManager;
+import com.superduckinvaders.game.util.FixedStepClock;
+import com.superduckinvaders.game.util.SpatialHash;
 
 /**
  * Screen for interaction with the game.
@@ -65,10 +71,33 @@ public class GameScreen extends BaseScreen {
     private OrthographicCamera minimapCamera;
     private Viewport minimapViewport;
 
-    private float accumulator = 0f;
-    private float step = 1/60f;
+    /**
+     * Whether to draw performance statistics. Toggled with F3; F4 switches mobs between thinking in parallel and serially,
+     * F5 between Box2D and kinematic movement, and F6 between dropping time and slowing down when frames are too long.
+     */
+    private boolean showStats = false;
+
+    /**
+     * How long the round took to update in the last frame, in nanoseconds, however many steps that was.
+     */
+    private long lastUpdateTime = 0;
+
+    /**
+     * Splits frames into fixed 60Hz updates, at most MAX_SUBSTEPS a frame. F6 switches what happens to the rest.
+     */
+    private static final int MAX_SUBSTEPS = 5;
+    private final FixedStepClock clock = new FixedStepClock(1 / 60f, MAX_SUBSTEPS, FixedStepClock.OverflowMode.DROP_TIME);
 
     
+    /**
+     * Draws a minimap marker for each mob found by a query.
+     */
+    private final SpatialHash.Callback drawMinimapMob = (Entity entity) -> {
+        Vector2 pos = entity.getCentre();
+        shapeRenderer.circle(pos.x, pos.y, 10f);
+        return true;
+    };
+
     Box2DDebugRenderer debugRenderer;
     Matrix4 debugMatrix;
 
@@ -163,15 +192,35 @@ public class GameScreen extends BaseScreen {
     @Override
     public void render(float delta) {
         super.render(delta);
-        accumulator+=delta;
-        while (accumulator>=step) {
-            round.update(step);  // TODO(avinash): If round calls dispose, stop here.
-            accumulator-=step;
+        if (Gdx.input.isKeyJustPressed(Input.Keys.F3)) {
+            showStats = !showStats;
+        }
+        if (Gdx.input.isKeyJustPressed(Input.Keys.F4)) {
+            round.setParallelAI(!round.isParallelAI());
+        }
+        if (Gdx.input.isKeyJustPressed(Input.Keys.F5)) {
+            round.setKinematicMobs(!round.isKinematicMobs());
+        }
+        if (Gdx.input.isKeyJustPressed(Input.Keys.F6)) {
+            clock.setOverflowMode(clock.getOverflowMode() == FixedStepClock.OverflowMode.DROP_TIME
+                    ? FixedStepClock.OverflowMode.SLOW_DOWN : FixedStepClock.OverflowMode.DROP_TIME);
         }
+        long updateStart = System.nanoTime();
+        int substeps = clock.advance(delta);
+        for (int i = 0; i < substeps; i++) {
+            // Entities are drawn between where they were before the last update and where it leaves them.
+            if (i == substeps - 1) {
+                round.savePreviousPositions();
+            }
+            round.update(clock.getStep());  // TODO(avinash): If round calls dispose, stop here.
+        }
+        round.setInterpolationAlpha(clock.getAlpha());
+        lastUpdateTime = System.nanoTime() - updateStart;
         Player player = round.getPlayer();
-        
-        float playerX = player.getX() + player.getWidth() / 2;
-        float playerY = player.getY() + player.getHeight() / 2;
+
+        Vector2 playerPosition = player.getRenderPosition();
+        float playerX = playerPosition.x + player.getWidth() / 2;
+        float playerY = playerPosition.y + player.getHeight() / 2;
         
         
         // Centre the camera on the player.
@@ -183,6 +232,10 @@ public class GameScreen extends BaseScreen {
         camera.update();
         spriteBatch.setProjectionMatrix(camera.combined);
 
+        float halfViewWidth = camera.viewportWidth * camera.zoom / 2, halfViewHeight = camera.viewportHeight * camera.zoom / 2;
+        round.getParticles().setView(camera.position.x - halfViewWidth, camera.position.y - halfViewHeight,
+                camera.position.x + halfViewWidth, camera.position.y + halfViewHeight);
+
         minimapCamera.position.set(
                 Math.max(minimapCameraMinX, Math.min(playerX, minimapCameraMaxX)),
                 Math.max(minimapCameraMinY, Math.min(playerY, minimapCameraMaxY)),
@@ -265,12 +318,11 @@ public class GameScreen extends BaseScreen {
         shapeRenderer.begin(ShapeRenderer.ShapeType.Filled);
         shapeRenderer.setColor(0.9f, 0.2f, 0.2f, 0.7f);
 
-        for (Entity entity : round.getEntities()) {
-            if (entity instanceof Mob){
-                Vector2 pos = entity.getCentre();
-                shapeRenderer.circle(pos.x, pos.y, 10f);
-            }
-        }
+        float halfWidth = minimapViewport.getWorldWidth() * minimapCamera.zoom / 2;
+        float halfHeight = minimapViewport.getWorldHeight() * minimapCamera.zoom / 2;
+        round.queryArea(minimapCamera.position.x - halfWidth, minimapCamera.position.y - halfHeight,
+                minimapCamera.position.x + halfWidth, minimapCamera.position.y + halfHeight,
+                PhysicsEntity.MOB_BITS, drawMinimapMob);
         shapeRenderer.end();
 
 
@@ -307,6 +359,8 @@ public class GameScreen extends BaseScreen {
         // Draw all entities.
         for (Entity entity : round.getEntities())
             entity.render(spriteBatch);
+        round.getProjectiles().render(spriteBatch);
+        round.getParticles().render(spriteBatch);
 
         drawOverhang();
     }
@@ -333,6 +387,10 @@ public class GameScreen extends BaseScreen {
         Assets.font.draw(uiBatch, "Score: " + round.getPlayer().getScore(), 10, 670);
         Assets.font.draw(uiBatch, Gdx.graphics.getFramesPerSecond() + " FPS", 10, 630);
 
+        if (showStats) {
+            drawStats();
+        }
+
         // Draw stamina bar (for flight);
         uiBatch.draw(Assets.staminaEmpty, 1080, 10);
         if (round.getPlayer().getFlyingTimer() > 0) {
@@ -370,6 +428,55 @@ public class GameScreen extends BaseScreen {
         uiBatch.end();
     }
 
+    /**
+     * Draw performance statistics under the FPS counter.
+     */
+    private void drawStats() {
+        PathScheduler paths = round.getPathScheduler();
+        LevelOfDetail lod = round.getLevelOfDetail();
+        ProjectileManager projectiles = round.getProjectiles();
+        ParticleSystem particles = round.getParticles();
+        String[] lines = {
+                String.format("Update: %.2f ms, %d mobs; step: %.2f ms, %d contacts", lastUpdateTime / 1e6f,
+                        round.getEntities().getMobs().size(), round.getLastStepTime() / 1e6f, round.getContactCount()),
+                String.format("Substeps: %d (max %d), %s on overflow, %d overflows, %.2f s dropped",
+                        clock.getLastSubsteps(), clock.getMaxSubsteps(),
+                        clock.getOverflowMode() == FixedStepClock.OverflowMode.DROP_TIME ? "drop time" : "slow down",
+                        clock.getOverflowCount(), clock.getDroppedTime()),
+                "Contacts begun: " + round.getContactListener().describeContactCounts(4),
+                round.isKinematicMobs()
+                        ? String.format("Movement: kinematic, %d mobs in %.2f ms",
+                                round.getKinematicMobCount(), round.getLastMoveTime() / 1e6f)
+                        : "Movement: Box2D",
+                String.format("Bodies: %d active, %d inactive, %d map",
+                        round.getActiveBodyCount(), round.getInactiveBodyCount(), round.getEnvironmentBodyCount()),
+                "Flow field rebuilds: " + round.getPlayerFlowField().getRebuildCount(),
+                String.format("AI think: %.2f ms, %s", round.getLastThinkTime() / 1e6f,
+                        round.isParallelAI() ? "parallel" : "serial"),
+                String.format("AI tiers: near %d (%.2f ms), mid %d (%.2f ms), far %d (%.2f ms), frozen %d",
+                        lod.getCount(LevelOfDetail.Tier.NEAR), lod.getTime(LevelOfDetail.Tier.NEAR) / 1e6f,
+                        lod.getCount(LevelOfDetail.Tier.MID), lod.getTime(LevelOfDetail.Tier.MID) / 1e6f,
+                        lod.getCount(LevelOfDetail.Tier.FAR), lod.getTime(LevelOfDetail.Tier.FAR) / 1e6f,
+                        lod.getCount(LevelOfDetail.Tier.FROZEN)),
+                String.format("Paths: %d queued, %d searches (%d shared) in %.2f ms, %.1f ms wait (max %.1f), %d overruns",
+                        paths.getQueueDepth(), paths.getLastServed(), paths.getLastShared(),
+                        paths.getLastTime() / 1e6f, paths.getAverageWait(), paths.getMaxWait(),
+                        paths.getOverrunCount()),
+                String.format("Squads: %d, %d mobs following",
+                        round.getSquads().getSquadCount(), round.getSquads().getFollowerCount()),
+                String.format("Projectiles: %d (peak %d), %d expired",
+                        projectiles.size(), projectiles.getPeak(), projectiles.getExpiredCount()),
+                String.format("Particles: %d/%d, %d drawn, %d dropped",
+                        particles.size(), particles.getCap(), particles.getLastDrawn(), particles.getDroppedCount()),
+        };
+
+        int y = 595;
+        for (String line : lines) {
+            Assets.font.draw(uiBatch, line, 10, y);
+            y -= 35;
+        }
+    }
+
     /**
      * Called to dispose libGDX objects used by this GameScreen.
      */
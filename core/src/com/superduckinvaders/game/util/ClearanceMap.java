@@ -0,0 +1,135 @@
+package com.superduckinvaders.game.util;
+
+/**
+ * How much room there is around each tile of a collision map, so a search can tell whether a mob fits with one lookup.
+ * <p>
+ * The clearance of a tile is its Chebyshev distance, in tiles, to the nearest blocked tile or the edge of the map:
+ * blocked tiles have clearance 0 and free tiles next to them 1. A tile of clearance d is the centre of a free square
+ * 2d - 1 tiles across, so a mob fits there if it is no bigger than that square.
+ */
+public class ClearanceMap {
+
+    private final int width, height;
+
+    /**
+     * The clearance of each tile, row by row starting at y = 0.
+     */
+    private final int[] clearance;
+
+    /**
+     * The tiles narrower than each clearance, up to one more than the largest on the map, which is every tile.
+     * All built up front so that reading them from several threads is safe.
+     */
+    private final TileBitmap[] narrowerThan;
+
+    /**
+     * Works out the clearance of every tile of a collision map.
+     *
+     * @param blocked the tiles that can't be walked through
+     */
+    public ClearanceMap(TileBitmap blocked) {
+        this.width = blocked.getWidth();
+        this.height = blocked.getHeight();
+        this.clearance = new int[width * height];
+
+        // No free tile can be further than this from the edge of the map.
+        int far = Math.max(width, height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                clearance[y * width + x] = blocked.get(x, y) ? 0 : far;
+            }
+        }
+
+        // Two passes of a chessboard distance transform: forwards from the bottom left corner, then back from the top right.
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                relax(x, y, x - 1, y);
+                relax(x, y, x - 1, y - 1);
+                relax(x, y, x, y - 1);
+                relax(x, y, x + 1, y - 1);
+            }
+        }
+        for (int y = height - 1; y >= 0; y--) {
+            for (int x = width - 1; x >= 0; x--) {
+                relax(x, y, x + 1, y);
+                relax(x, y, x + 1, y + 1);
+                relax(x, y, x, y + 1);
+                relax(x, y, x - 1, y + 1);
+            }
+        }
+
+        int largest = 0;
+        for (int value : clearance) {
+            largest = Math.max(largest, value);
+        }
+
+        narrowerThan = new TileBitmap[largest + 2];
+        for (int level = 0; level < narrowerThan.length; level++) {
+            TileBitmap narrow = new TileBitmap(width, height);
+            for (int index = 0; index < clearance.length; index++) {
+                if (clearance[index] < level) {
+                    narrow.set(index % width, index / width);
+                }
+            }
+            narrowerThan[level] = narrow;
+        }
+    }
+
+    private void relax(int x, int y, int nx, int ny) {
+        int index = y * width + x;
+        int through = getClearance(nx, ny) + 1;
+        if (through < clearance[index]) {
+            clearance[index] = through;
+        }
+    }
+
+    /**
+     * @param x the x index of a tile
+     * @param y the y index of a tile
+     * @return the clearance of the tile, or 0 outside the map
+     */
+    public int getClearance(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return 0;
+        }
+        return clearance[y * width + x];
+    }
+
+    /**
+     * Gets the clearance a mob needs, which is 1 for anything up to a tile across.
+     *
+     * @param size     the larger of the mob's width and height, in pixels
+     * @param tileSize the width of a tile, in pixels
+     * @return the smallest clearance d with (2d - 1) * tileSize >= size
+     */
+    public static int requiredClearance(float size, float tileSize) {
+        return Math.max(1, (int) Math.ceil((size / tileSize + 1) / 2));
+    }
+
+    /**
+     * Gets a map of the tiles too narrow for a clearance, which can be searched like a collision map.
+     * With a clearance of 1 this is exactly the blocked tiles.
+     *
+     * @param minClearance the clearance needed
+     * @return the tiles with less clearance
+     */
+    public TileBitmap narrowerThan(int minClearance) {
+        return narrowerThan[Math.min(Math.max(minClearance, 0), narrowerThan.length - 1)];
+    }
+
+    /**
+     * Tests whether a mob can move in a straight line, by walking the tiles under its centre and checking they all
+     * have enough clearance. The tile the mob starts in is always allowed, as it is already there.
+     * All coordinates are in tiles.
+     *
+     * @param x0           the x coordinate of the start of the line
+     * @param y0           the y coordinate of the start of the line
+     * @param x1           the x coordinate of the end of the line
+     * @param y1           the y coordinate of the end of the line
+     * @param minClearance the clearance the mob needs
+     * @return whether the mob fits all the way along the line
+     */
+    public boolean isLineClear(float x0, float y0, float x1, float y1, int minClearance) {
+        return GridRay.isClearFrom(narrowerThan(minClearance), x0, y0, x1, y1);
+    }
+}
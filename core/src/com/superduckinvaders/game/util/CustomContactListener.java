@@ -3,64 +3,238 @@ package com.superduckinvaders.game.util;
 import com.badlogic.gdx.physics.box2d.*;
 import com.superduckinvaders.game.entity.PhysicsEntity;
 
+import java.util.Arrays;
+
 /**
- * Helper class to make contact checks between two PhysicsEntities easier.
+ * Passes Box2D contact events on to the PhysicsEntities involved, through a table indexed by the category bits of
+ * both fixtures.
+ * <p>
+ * An entity only hears about an event if its category was registered for that event against the other fixture's
+ * category, so contacts nobody cares about, such as mobs against walls, cost a table lookup and nothing else.
+ * Nothing is allocated per event. The listener also counts how many contacts have begun between each pair of
+ * categories, to help find pairs that collide when they shouldn't.
  */
 public class CustomContactListener implements ContactListener {
+
+    /**
+     * The events an entity can register for, which can be combined with |.
+     */
+    public static final int BEGIN_COLLISION = 1;
+    public static final int END_COLLISION = 2;
+    public static final int BEGIN_SENSOR_CONTACT = 4;
+    public static final int END_SENSOR_CONTACT = 8;
+    public static final int PRE_SOLVE = 16;
+    public static final int POST_SOLVE = 32;
+
+    /**
+     * How many category bits there are.
+     */
+    public static final int CATEGORY_COUNT = 16;
+
+    /**
+     * The events an entity of each category wants against each other category, indexed by
+     * category * CATEGORY_COUNT + other category, where a category is the index of its bit.
+     */
+    private final int[] handlers = new int[CATEGORY_COUNT * CATEGORY_COUNT];
+
+    /**
+     * How many contacts have begun between each pair of categories, indexed like handlers with the lower category
+     * first.
+     */
+    private final int[] contactCounts = new int[CATEGORY_COUNT * CATEGORY_COUNT];
+
+    /**
+     * Sends events to entities of some categories when they touch entities of others.
+     * Events already registered for the same pairs are kept.
+     *
+     * @param categoryBits the categories of the entities that handle the events
+     * @param otherBits    the categories of the entities they handle them against
+     * @param events       the events, such as BEGIN_COLLISION | END_COLLISION
+     */
+    public void register(short categoryBits, short otherBits, int events) {
+        for (int category = 0; category < CATEGORY_COUNT; category++) {
+            if ((categoryBits & (1 << category)) == 0) {
+                continue;
+            }
+            for (int other = 0; other < CATEGORY_COUNT; other++) {
+                if ((otherBits & (1 << other)) != 0) {
+                    handlers[category * CATEGORY_COUNT + other] |= events;
+                }
+            }
+        }
+    }
+
     @Override
     public void beginContact(Contact contact) {
-        applyCallback(contact,
-                (PhysicsEntity ea, PhysicsEntity eb, boolean sensorA, boolean sensorB) -> {
-                    if (sensorA) {
-                        ea.beginSensorContact(eb, contact);
-                    } else if (!sensorB) {
-                        ea.beginCollision(eb, contact);
-                    }
-                }
-        );
+        Fixture fixtureA = contact.getFixtureA();
+        Fixture fixtureB = contact.getFixtureB();
+        int a = category(fixtureA), b = category(fixtureB);
+        contactCounts[Math.min(a, b) * CATEGORY_COUNT + Math.max(a, b)]++;
+
+        dispatch(contact, fixtureA, fixtureB, a, b, BEGIN_COLLISION, BEGIN_SENSOR_CONTACT);
     }
 
     @Override
     public void endContact(Contact contact) {
-        applyCallback(contact,
-                (PhysicsEntity ea, PhysicsEntity eb, boolean sensorA, boolean sensorB) -> {
-                    if (sensorA) {
-                        ea.endSensorContact(eb, contact);
-                    } else if (!sensorB) {
-                        ea.endCollision(eb, contact);
-                    }
-                }
-        );
+        Fixture fixtureA = contact.getFixtureA();
+        Fixture fixtureB = contact.getFixtureB();
+        dispatch(contact, fixtureA, fixtureB, category(fixtureA), category(fixtureB), END_COLLISION, END_SENSOR_CONTACT);
     }
 
     @Override
     public void preSolve(Contact contact, Manifold manifold) {
-        applyCallback(contact,
-                (PhysicsEntity ea, PhysicsEntity eb, boolean sensorA, boolean sensorB) -> ea.preSolve(eb, contact, manifold)
-        );
+        Fixture fixtureA = contact.getFixtureA();
+        Fixture fixtureB = contact.getFixtureB();
+        int a = category(fixtureA), b = category(fixtureB);
+        int wantsA = handlers[a * CATEGORY_COUNT + b] & PRE_SOLVE;
+        int wantsB = handlers[b * CATEGORY_COUNT + a] & PRE_SOLVE;
+        if ((wantsA | wantsB) == 0) {
+            return;
+        }
+
+        PhysicsEntity entityA = entity(fixtureA), entityB = entity(fixtureB);
+        if (entityA == null || entityB == null) {
+            return;
+        }
+        if (wantsA != 0) {
+            entityA.preSolve(entityB, contact, manifold);
+        }
+        if (wantsB != 0) {
+            entityB.preSolve(entityA, contact, manifold);
+        }
     }
 
     @Override
     public void postSolve(Contact contact, ContactImpulse contactImpulse) {
-        applyCallback(contact,
-                (PhysicsEntity ea, PhysicsEntity eb, boolean sensorA, boolean sensorB) -> ea.postSolve(eb, contact, contactImpulse)
-        );
-    }
-
-    public void applyCallback(Contact contact, Callback cb) {
         Fixture fixtureA = contact.getFixtureA();
         Fixture fixtureB = contact.getFixtureB();
-        Object a = fixtureA.getBody().getUserData();
-        Object b = fixtureB.getBody().getUserData();
-        if (a instanceof PhysicsEntity && b instanceof PhysicsEntity) {
-            PhysicsEntity ea = (PhysicsEntity) a;
-            PhysicsEntity eb = (PhysicsEntity) b;
-            cb.callback(ea, eb, fixtureA.isSensor(), fixtureB.isSensor());
-            cb.callback(eb, ea, fixtureB.isSensor(), fixtureA.isSensor());
+        int a = category(fixtureA), b = category(fixtureB);
+        int wantsA = handlers[a * CATEGORY_COUNT + b] & POST_SOLVE;
+        int wantsB = handlers[b * CATEGORY_COUNT + a] & POST_SOLVE;
+        if ((wantsA | wantsB) == 0) {
+            return;
+        }
+
+        PhysicsEntity entityA = entity(fixtureA), entityB = entity(fixtureB);
+        if (entityA == null || entityB == null) {
+            return;
+        }
+        if (wantsA != 0) {
+            entityA.postSolve(entityB, contact, contactImpulse);
+        }
+        if (wantsB != 0) {
+            entityB.postSolve(entityA, contact, contactImpulse);
+        }
+    }
+
+    /**
+     * Sends a begin or end event to whichever of the two entities registered for it. An entity whose own fixture is
+     * a sensor gets the sensor event; otherwise it gets the collision event, unless the other fixture is a sensor.
+     */
+    private void dispatch(Contact contact, Fixture fixtureA, Fixture fixtureB, int a, int b,
+                          int collisionEvent, int sensorEvent) {
+        int wantsA = handlers[a * CATEGORY_COUNT + b];
+        int wantsB = handlers[b * CATEGORY_COUNT + a];
+        if (((wantsA | wantsB) & (collisionEvent | sensorEvent)) == 0) {
+            return;
+        }
+
+        PhysicsEntity entityA = entity(fixtureA), entityB = entity(fixtureB);
+        if (entityA == null || entityB == null) {
+            return;
+        }
+
+        boolean sensorA = fixtureA.isSensor(), sensorB = fixtureB.isSensor();
+        int eventA = sensorA ? sensorEvent : (sensorB ? 0 : collisionEvent);
+        int eventB = sensorB ? sensorEvent : (sensorA ? 0 : collisionEvent);
+        if ((wantsA & eventA) != 0) {
+            send(eventA, entityA, entityB, contact);
+        }
+        if ((wantsB & eventB) != 0) {
+            send(eventB, entityB, entityA, contact);
+        }
+    }
+
+    private void send(int event, PhysicsEntity entity, PhysicsEntity other, Contact contact) {
+        switch (event) {
+            case BEGIN_COLLISION:
+                entity.beginCollision(other, contact);
+                break;
+            case END_COLLISION:
+                entity.endCollision(other, contact);
+                break;
+            case BEGIN_SENSOR_CONTACT:
+                entity.beginSensorContact(other, contact);
+                break;
+            case END_SENSOR_CONTACT:
+                entity.endSensorContact(other, contact);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * @return the index of the lowest category bit of a fixture
+     */
+    private static int category(Fixture fixture) {
+        return Math.min(CATEGORY_COUNT - 1, Integer.numberOfTrailingZeros(fixture.getFilterData().categoryBits));
+    }
+
+    private static PhysicsEntity entity(Fixture fixture) {
+        Object userData = fixture.getBody().getUserData();
+        return userData instanceof PhysicsEntity ? (PhysicsEntity) userData : null;
+    }
+
+    /**
+     * Gets how many contacts have begun between two categories since the counts were last reset.
+     *
+     * @param categoryA the category bit of one side
+     * @param categoryB the category bit of the other side, which may be the same
+     * @return the number of contacts
+     */
+    public int getContactCount(short categoryA, short categoryB) {
+        int a = Integer.numberOfTrailingZeros(categoryA), b = Integer.numberOfTrailingZeros(categoryB);
+        return contactCounts[Math.min(a, b) * CATEGORY_COUNT + Math.max(a, b)];
+    }
+
+    /**
+     * Lists the pairs of categories with the most contacts, such as "mob-player 40, mob-projectile 3".
+     *
+     * @param limit how many pairs to list at most
+     * @return the pairs, most contacts first
+     */
+    public String describeContactCounts(int limit) {
+        StringBuilder builder = new StringBuilder();
+        boolean[] listed = new boolean[contactCounts.length];
+        for (int n = 0; n < limit; n++) {
+            int best = -1;
+            for (int i = 0; i < contactCounts.length; i++) {
+                if (!listed[i] && contactCounts[i] > 0 && (best == -1 || contactCounts[i] > contactCounts[best])) {
+                    best = i;
+                }
+            }
+            if (best == -1) {
+                break;
+            }
+            listed[best] = true;
+
+            if (builder.length() > 0) {
+                builder.append(", ");
+            }
+            builder.append(PhysicsEntity.getCategoryName((short) (1 << (best / CATEGORY_COUNT))))
+                    .append('-')
+                    .append(PhysicsEntity.getCategoryName((short) (1 << (best % CATEGORY_COUNT))))
+                    .append(' ')
+                    .append(contactCounts[best]);
         }
+        return builder.toString();
     }
 
-    interface Callback {
-        void callback(PhysicsEntity entity, PhysicsEntity other, boolean sensorA, boolean sensorB);
+    /**
+     * Sets every contact count back to zero.
+     */
+    public void resetContactCounts() {
+        Arrays.fill(contactCounts, 0);
     }
 }
@@ -0,0 +1,148 @@
+package com.superduckinvaders.game.util;
+
+/**
+ * Turns variable frame times into a whole number of fixed length steps, with a cap on how many steps one frame can
+ * run so a long frame doesn't cause an even longer one.
+ * <p>
+ * Time left over that doesn't make a whole step is kept for the next frame, and getAlpha says how far it is through
+ * the next step, for drawing between the last two steps. What happens to time beyond the cap depends on the
+ * OverflowMode.
+ */
+public class FixedStepClock {
+
+    /**
+     * What to do with whole steps that didn't fit under the cap.
+     */
+    public enum OverflowMode {
+        /**
+         * Throw them away, so the game skips over a hitch as if it were paused for it.
+         */
+        DROP_TIME,
+        /**
+         * Keep up to another frame's worth for the following frames, so the game runs behind real time while it
+         * catches up instead of losing it. Anything beyond that is still thrown away.
+         */
+        SLOW_DOWN
+    }
+
+    private final float step;
+    private int maxSubsteps;
+    private OverflowMode overflowMode;
+
+    private float accumulator = 0;
+
+    /**
+     * How many steps the last frame ran, how many frames have gone over the cap, and how much time has been thrown
+     * away, in seconds.
+     */
+    private int lastSubsteps = 0;
+    private int overflowCount = 0;
+    private float droppedTime = 0;
+
+    /**
+     * Creates a FixedStepClock.
+     *
+     * @param step         the length of a step, in seconds
+     * @param maxSubsteps  the most steps one frame can run
+     * @param overflowMode what to do with steps beyond maxSubsteps
+     */
+    public FixedStepClock(float step, int maxSubsteps, OverflowMode overflowMode) {
+        this.step = step;
+        this.maxSubsteps = maxSubsteps;
+        this.overflowMode = overflowMode;
+    }
+
+    /**
+     * Adds a frame's time and works out how many steps to run for it.
+     *
+     * @param delta how much time has passed since the last frame, in seconds
+     * @return how many steps to run
+     */
+    public int advance(float delta) {
+        accumulator += delta;
+
+        int substeps = Math.min((int) (accumulator / step), maxSubsteps);
+        accumulator -= substeps * step;
+
+        if (accumulator >= step) {
+            overflowCount++;
+
+            float kept = accumulator % step;
+            if (overflowMode == OverflowMode.SLOW_DOWN) {
+                kept = Math.min(accumulator, maxSubsteps * step + kept);
+            }
+            droppedTime += accumulator - kept;
+            accumulator = kept;
+        }
+
+        lastSubsteps = substeps;
+        return substeps;
+    }
+
+    /**
+     * @return how far the time carried over is through the next step, from 0 to 1
+     */
+    public float getAlpha() {
+        return Math.min(1, accumulator / step);
+    }
+
+    /**
+     * @return the length of a step, in seconds
+     */
+    public float getStep() {
+        return step;
+    }
+
+    /**
+     * @return the most steps one frame can run
+     */
+    public int getMaxSubsteps() {
+        return maxSubsteps;
+    }
+
+    /**
+     * Sets the most steps one frame can run.
+     *
+     * @param maxSubsteps the most steps, at least 1
+     */
+    public void setMaxSubsteps(int maxSubsteps) {
+        this.maxSubsteps = Math.max(1, maxSubsteps);
+    }
+
+    /**
+     * @return what happens to steps beyond the cap
+     */
+    public OverflowMode getOverflowMode() {
+        return overflowMode;
+    }
+
+    /**
+     * Sets what happens to steps beyond the cap.
+     *
+     * @param overflowMode the overflow mode
+     */
+    public void setOverflowMode(OverflowMode overflowMode) {
+        this.overflowMode = overflowMode;
+    }
+
+    /**
+     * @return how many steps the last frame ran
+     */
+    public int getLastSubsteps() {
+        return lastSubsteps;
+    }
+
+    /**
+     * @return how many frames had more steps than the cap
+     */
+    public int getOverflowCount() {
+        return overflowCount;
+    }
+
+    /**
+     * @return how much time has been thrown away because of the cap, in seconds
+     */
+    public float getDroppedTime() {
+        return droppedTime;
+    }
+}
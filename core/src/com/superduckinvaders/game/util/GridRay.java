@@ -0,0 +1,118 @@
+package com.superduckinvaders.game.util;
+
+/**
+ * Line of sight tests against a grid of blocked tiles.
+ * Walks every tile a segment passes through, including both neighbours when it passes exactly through a corner.
+ */
+public class GridRay {
+
+    /**
+     * Returned by cast when the segment reaches its end without entering a blocked tile.
+     */
+    public static final float CLEAR = -1f;
+
+    /**
+     * Finds where a segment first enters a blocked tile. Tiles outside the grid count as blocked.
+     * All coordinates are in tiles, so (1.5, 2.5) is the centre of tile (1, 2).
+     *
+     * @param blocked the blocked tiles
+     * @param x0      the x coordinate of the start of the segment
+     * @param y0      the y coordinate of the start of the segment
+     * @param x1      the x coordinate of the end of the segment
+     * @param y1      the y coordinate of the end of the segment
+     * @return the fraction of the segment travelled before entering a blocked tile, or CLEAR
+     */
+    public static float cast(TileBitmap blocked, float x0, float y0, float x1, float y1) {
+        return cast(blocked, x0, y0, x1, y1, true);
+    }
+
+    private static float cast(TileBitmap blocked, float x0, float y0, float x1, float y1, boolean testStart) {
+        int tileX = (int) Math.floor(x0);
+        int tileY = (int) Math.floor(y0);
+        int endX = (int) Math.floor(x1);
+        int endY = (int) Math.floor(y1);
+
+        if (testStart && isBlocked(blocked, tileX, tileY)) {
+            return 0f;
+        }
+
+        float dx = x1 - x0;
+        float dy = y1 - y0;
+        int stepX = dx > 0 ? 1 : (dx < 0 ? -1 : 0);
+        int stepY = dy > 0 ? 1 : (dy < 0 ? -1 : 0);
+
+        // How far along the segment the next vertical and horizontal tile edges are, and the distance between edges.
+        float deltaX = stepX != 0 ? Math.abs(1f / dx) : Float.POSITIVE_INFINITY;
+        float deltaY = stepY != 0 ? Math.abs(1f / dy) : Float.POSITIVE_INFINITY;
+        float maxX = stepX > 0 ? (tileX + 1 - x0) / dx : (stepX < 0 ? (x0 - tileX) / -dx : Float.POSITIVE_INFINITY);
+        float maxY = stepY > 0 ? (tileY + 1 - y0) / dy : (stepY < 0 ? (y0 - tileY) / -dy : Float.POSITIVE_INFINITY);
+
+        int remaining = Math.abs(endX - tileX) + Math.abs(endY - tileY);
+
+        while (remaining > 0) {
+            float t;
+            if (maxX < maxY) {
+                t = maxX;
+                tileX += stepX;
+                maxX += deltaX;
+                remaining--;
+            } else if (maxY < maxX) {
+                t = maxY;
+                tileY += stepY;
+                maxY += deltaY;
+                remaining--;
+            } else {
+                // Exactly through a corner, so the segment touches both side neighbours.
+                t = maxX;
+                if (isBlocked(blocked, tileX + stepX, tileY) || isBlocked(blocked, tileX, tileY + stepY)) {
+                    return t;
+                }
+                tileX += stepX;
+                tileY += stepY;
+                maxX += deltaX;
+                maxY += deltaY;
+                remaining -= 2;
+            }
+
+            if (isBlocked(blocked, tileX, tileY)) {
+                return t;
+            }
+        }
+
+        return CLEAR;
+    }
+
+    /**
+     * Tests whether a segment stays clear of blocked tiles. Tiles outside the grid count as blocked.
+     * All coordinates are in tiles.
+     *
+     * @param blocked the blocked tiles
+     * @param x0      the x coordinate of the start of the segment
+     * @param y0      the y coordinate of the start of the segment
+     * @param x1      the x coordinate of the end of the segment
+     * @param y1      the y coordinate of the end of the segment
+     * @return whether the segment is clear
+     */
+    public static boolean isClear(TileBitmap blocked, float x0, float y0, float x1, float y1) {
+        return cast(blocked, x0, y0, x1, y1) == CLEAR;
+    }
+
+    /**
+     * Like isClear, but the tile the segment starts in isn't tested, for something already standing there.
+     * All coordinates are in tiles.
+     *
+     * @param blocked the blocked tiles
+     * @param x0      the x coordinate of the start of the segment
+     * @param y0      the y coordinate of the start of the segment
+     * @param x1      the x coordinate of the end of the segment
+     * @param y1      the y coordinate of the end of the segment
+     * @return whether the segment is clear after leaving its first tile
+     */
+    public static boolean isClearFrom(TileBitmap blocked, float x0, float y0, float x1, float y1) {
+        return cast(blocked, x0, y0, x1, y1, false) == CLEAR;
+    }
+
+    private static boolean isBlocked(TileBitmap blocked, int x, int y) {
+        return !blocked.inBounds(x, y) || blocked.get(x, y);
+    }
+}
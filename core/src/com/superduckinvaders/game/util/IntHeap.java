@@ -0,0 +1,87 @@
+package com.superduckinvaders.game.util;
+
+import java.util.Arrays;
+
+/**
+ * A binary min-heap of ints ordered by int priorities, used as the open list of grid searches.
+ * There is no decrease-key: a value may be pushed again with a lower priority and the stale entry
+ * skipped by the caller when it is popped.
+ */
+public class IntHeap {
+
+    private int[] values = new int[256];
+    private int[] priorities = new int[256];
+    private int size = 0;
+
+    /**
+     * Removes every entry.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return the number of entries in the heap
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds a value to the heap.
+     *
+     * @param value    the value to add
+     * @param priority its priority, lowest first
+     */
+    public void push(int value, int priority) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+            priorities = Arrays.copyOf(priorities, size * 2);
+        }
+
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (priorities[parent] <= priority) {
+                break;
+            }
+            values[i] = values[parent];
+            priorities[i] = priorities[parent];
+            i = parent;
+        }
+        values[i] = value;
+        priorities[i] = priority;
+    }
+
+    /**
+     * Removes the value with the lowest priority. The heap must not be empty.
+     *
+     * @return the value removed
+     */
+    public int pop() {
+        int top = values[0];
+        int lastValue = values[--size];
+        int lastPriority = priorities[size];
+
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && priorities[child + 1] < priorities[child]) {
+                child++;
+            }
+            if (priorities[child] >= lastPriority) {
+                break;
+            }
+            values[i] = values[child];
+            priorities[i] = priorities[child];
+            i = child;
+        }
+        values[i] = lastValue;
+        priorities[i] = lastPriority;
+
+        return top;
+    }
+}
@@ -0,0 +1,361 @@
+package com.superduckinvaders.game.util;
+
+import java.util.Arrays;
+
+/**
+ * Moves boxes through a grid of blocked tiles without a physics engine, for mobs in the kinematic movement mode.
+ * <p>
+ * Each update the boxes to move are added with their centres and velocities, then move steps them all at once:
+ * velocities are damped the way Box2D damps them, a boids separation pass pushes apart boxes that overlap their
+ * neighbours, and each box is swept along x then y against the blocked tiles, stopping flush against the first one
+ * it would enter. Neighbours are found through a spatial hash of the boxes rebuilt in every move, and separation
+ * reads the positions from before the move, so the order boxes were added in doesn't matter.
+ */
+public class KinematicMover {
+
+    /**
+     * How far, in tiles, a box edge may be into a tile without counting as overlapping it, so that boxes resting
+     * flush against a wall or sliding along one don't catch on it through rounding.
+     */
+    private static final float EPSILON = 1e-3f;
+
+    /**
+     * The blocked tiles. Tiles outside the grid count as blocked.
+     */
+    private final TileBitmap blocked;
+
+    /**
+     * Width and height of one tile, in pixels.
+     */
+    private final float tileWidth, tileHeight;
+
+    /**
+     * How quickly velocities die away, as Box2D's linear damping.
+     */
+    private final float damping;
+
+    /**
+     * How fast, in pixels per second, two boxes on top of each other are pushed apart. Boxes that only just
+     * overlap are pushed apart more slowly.
+     */
+    private float separationSpeed;
+
+    /**
+     * The spatial hash used by the separation pass, with cells as wide as the widest box so every box overlapping
+     * another is in a neighbouring cell.
+     */
+    private final int columns, rows;
+    private final int[] cellHead;
+    private float cellSize;
+
+    /**
+     * The boxes added since the last clear: centres, half sizes and velocities in pixels, and the index of the next
+     * box in the same cell.
+     */
+    private float[] x, y, halfWidth, halfHeight, velocityX, velocityY;
+    private int[] next;
+    private int size = 0;
+
+    /**
+     * Scratch space for the separation velocity of each box.
+     */
+    private float[] pushX, pushY;
+
+    /**
+     * How many boxes were stopped by a blocked tile in the last move.
+     */
+    private int lastBlocked = 0;
+
+    /**
+     * Creates a KinematicMover for a grid of blocked tiles.
+     *
+     * @param blocked         the blocked tiles, which may change between moves
+     * @param tileWidth       the width of one tile, in pixels
+     * @param tileHeight      the height of one tile, in pixels
+     * @param damping         how quickly velocities die away, as Box2D's linear damping
+     * @param separationSpeed how fast two boxes on top of each other are pushed apart, in pixels per second
+     */
+    public KinematicMover(TileBitmap blocked, float tileWidth, float tileHeight, float damping, float separationSpeed) {
+        this.blocked = blocked;
+        this.tileWidth = tileWidth;
+        this.tileHeight = tileHeight;
+        this.damping = damping;
+        this.separationSpeed = separationSpeed;
+
+        // Cells are at least a tile across, so one per tile is always enough.
+        this.columns = Math.max(1, blocked.getWidth());
+        this.rows = Math.max(1, blocked.getHeight());
+        this.cellHead = new int[columns * rows];
+
+        int capacity = 128;
+        x = new float[capacity];
+        y = new float[capacity];
+        halfWidth = new float[capacity];
+        halfHeight = new float[capacity];
+        velocityX = new float[capacity];
+        velocityY = new float[capacity];
+        next = new int[capacity];
+        pushX = new float[capacity];
+        pushY = new float[capacity];
+    }
+
+    /**
+     * Removes every box.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Adds a box to be moved in the next move.
+     *
+     * @param centreX    the x coordinate of the centre, in pixels
+     * @param centreY    the y coordinate of the centre, in pixels
+     * @param halfWidth  half the width of the box, in pixels
+     * @param halfHeight half the height of the box, in pixels
+     * @param velocityX  the x velocity, in pixels per second
+     * @param velocityY  the y velocity, in pixels per second
+     * @return the index of the box, for reading back where it moved to
+     */
+    public int add(float centreX, float centreY, float halfWidth, float halfHeight, float velocityX, float velocityY) {
+        if (size == x.length) {
+            grow();
+        }
+
+        x[size] = centreX;
+        y[size] = centreY;
+        this.halfWidth[size] = halfWidth;
+        this.halfHeight[size] = halfHeight;
+        this.velocityX[size] = velocityX;
+        this.velocityY[size] = velocityY;
+        return size++;
+    }
+
+    /**
+     * Moves every box on by a time step.
+     *
+     * @param delta the time step, in seconds
+     */
+    public void move(float delta) {
+        lastBlocked = 0;
+        if (size == 0) {
+            return;
+        }
+
+        separate();
+
+        float damp = 1f / (1f + delta * damping);
+        for (int i = 0; i < size; i++) {
+            velocityX[i] *= damp;
+            velocityY[i] *= damp;
+
+            // Separation moves the box without becoming part of its velocity, so pushes don't build up.
+            float dx = (velocityX[i] + pushX[i]) * delta;
+            float dy = (velocityY[i] + pushY[i]) * delta;
+            boolean stopped = false;
+
+            if (dx != 0) {
+                float allowed = sweep(x[i], y[i], halfWidth[i], halfHeight[i], dx, true);
+                if (allowed != dx) {
+                    stopped = true;
+                    velocityX[i] = 0;
+                }
+                x[i] += allowed;
+            }
+            if (dy != 0) {
+                float allowed = sweep(y[i], x[i], halfHeight[i], halfWidth[i], dy, false);
+                if (allowed != dy) {
+                    stopped = true;
+                    velocityY[i] = 0;
+                }
+                y[i] += allowed;
+            }
+
+            if (stopped) {
+                lastBlocked++;
+            }
+        }
+    }
+
+    /**
+     * Works out how far each box is pushed by the boxes overlapping it.
+     */
+    private void separate() {
+        cellSize = Math.max(tileWidth, tileHeight);
+        for (int i = 0; i < size; i++) {
+            cellSize = Math.max(cellSize, 2 * Math.max(halfWidth[i], halfHeight[i]));
+        }
+
+        Arrays.fill(cellHead, -1);
+        for (int i = 0; i < size; i++) {
+            int cell = row(y[i]) * columns + column(x[i]);
+            next[i] = cellHead[cell];
+            cellHead[cell] = i;
+        }
+
+        for (int i = 0; i < size; i++) {
+            float sumX = 0, sumY = 0;
+            int column = column(x[i]), row = row(y[i]);
+
+            for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1, row + 1); r++) {
+                for (int c = Math.max(0, column - 1); c <= Math.min(columns - 1, column + 1); c++) {
+                    for (int j = cellHead[r * columns + c]; j != -1; j = next[j]) {
+                        if (j == i) {
+                            continue;
+                        }
+
+                        // Boxes are kept apart as circles reaching the middle of their longer sides.
+                        float reach = Math.max(halfWidth[i], halfHeight[i]) + Math.max(halfWidth[j], halfHeight[j]);
+                        float dx = x[i] - x[j], dy = y[i] - y[j];
+                        float distance2 = dx * dx + dy * dy;
+                        if (distance2 >= reach * reach) {
+                            continue;
+                        }
+
+                        float distance = (float) Math.sqrt(distance2);
+                        float weight = 1f - distance / reach;
+                        if (distance > 0) {
+                            sumX += dx / distance * weight;
+                            sumY += dy / distance * weight;
+                        } else {
+                            // Exactly on top of each other: split them along x, by index so they go opposite ways.
+                            sumX += (i < j ? -1 : 1) * weight;
+                        }
+                    }
+                }
+            }
+
+            pushX[i] = sumX * separationSpeed;
+            pushY[i] = sumY * separationSpeed;
+        }
+    }
+
+    /**
+     * Sweeps a box along one axis, stopping it flush against the first blocked tile its leading edge would enter.
+     *
+     * @param along      the centre of the box on the axis it is moving along
+     * @param across     the centre of the box on the other axis
+     * @param halfAlong  half the size of the box along the axis it is moving along
+     * @param halfAcross half the size of the box on the other axis
+     * @param distance   how far to move, negative to move backwards
+     * @param horizontal whether the box is moving along x
+     * @return how far the box can move, which has the same sign as distance and is no longer
+     */
+    private float sweep(float along, float across, float halfAlong, float halfAcross, float distance, boolean horizontal) {
+        float alongSize = horizontal ? tileWidth : tileHeight;
+        float acrossSize = horizontal ? tileHeight : tileWidth;
+
+        // The tiles the box overlaps on the other axis, not counting any it just touches.
+        int firstAcross = (int) Math.floor((across - halfAcross) / acrossSize + EPSILON);
+        int lastAcross = (int) Math.ceil((across + halfAcross) / acrossSize - EPSILON) - 1;
+
+        if (distance > 0) {
+            float edge = along + halfAlong;
+            int first = (int) Math.ceil(edge / alongSize - EPSILON);
+            int last = (int) Math.ceil((edge + distance) / alongSize - EPSILON) - 1;
+            for (int tile = first; tile <= last; tile++) {
+                if (isBlocked(tile, firstAcross, lastAcross, horizontal)) {
+                    return Math.max(0, tile * alongSize - edge);
+                }
+            }
+        } else {
+            float edge = along - halfAlong;
+            int first = (int) Math.floor(edge / alongSize + EPSILON) - 1;
+            int last = (int) Math.floor((edge + distance) / alongSize + EPSILON);
+            for (int tile = first; tile >= last; tile--) {
+                if (isBlocked(tile, firstAcross, lastAcross, horizontal)) {
+                    return Math.min(0, (tile + 1) * alongSize - edge);
+                }
+            }
+        }
+        return distance;
+    }
+
+    /**
+     * @return whether any tile in a row or column of tiles is blocked
+     */
+    private boolean isBlocked(int tile, int firstAcross, int lastAcross, boolean horizontal) {
+        for (int other = firstAcross; other <= lastAcross; other++) {
+            int tileX = horizontal ? tile : other;
+            int tileY = horizontal ? other : tile;
+            if (!blocked.inBounds(tileX, tileY) || blocked.get(tileX, tileY)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int column(float x) {
+        return Math.max(0, Math.min(columns - 1, (int) Math.floor(x / cellSize)));
+    }
+
+    private int row(float y) {
+        return Math.max(0, Math.min(rows - 1, (int) Math.floor(y / cellSize)));
+    }
+
+    private void grow() {
+        int capacity = x.length * 2;
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        halfWidth = Arrays.copyOf(halfWidth, capacity);
+        halfHeight = Arrays.copyOf(halfHeight, capacity);
+        velocityX = Arrays.copyOf(velocityX, capacity);
+        velocityY = Arrays.copyOf(velocityY, capacity);
+        next = Arrays.copyOf(next, capacity);
+        pushX = Arrays.copyOf(pushX, capacity);
+        pushY = Arrays.copyOf(pushY, capacity);
+    }
+
+    /**
+     * @return how many boxes have been added since the last clear
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index the index add returned for the box
+     * @return the x coordinate of the box's centre, in pixels
+     */
+    public float getX(int index) {
+        return x[index];
+    }
+
+    /**
+     * @param index the index add returned for the box
+     * @return the y coordinate of the box's centre, in pixels
+     */
+    public float getY(int index) {
+        return y[index];
+    }
+
+    /**
+     * @param index the index add returned for the box
+     * @return the x velocity of the box after damping, and zero if it was stopped on that axis, in pixels per second
+     */
+    public float getVelocityX(int index) {
+        return velocityX[index];
+    }
+
+    /**
+     * @param index the index add returned for the box
+     * @return the y velocity of the box after damping, and zero if it was stopped on that axis, in pixels per second
+     */
+    public float getVelocityY(int index) {
+        return velocityY[index];
+    }
+
+    /**
+     * @return how many boxes were stopped by a blocked tile in the last move
+     */
+    public int getLastBlocked() {
+        return lastBlocked;
+    }
+
+    /**
+     * @param separationSpeed how fast two boxes on top of each other are pushed apart, in pixels per second
+     */
+    public void setSeparationSpeed(float separationSpeed) {
+        this.separationSpeed = separationSpeed;
+    }
+}
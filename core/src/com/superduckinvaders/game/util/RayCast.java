@@ -20,22 +20,17 @@ public class RayCast {
         }
         @Override
         public float reportRayFixture(Fixture fixture, Vector2 point, Vector2 normal, float fraction){
-            /* if multiple fixtures are found, because we return the fraction, subsequent fixtures
-             * will always be closer than the previous ones, but we may not always see more distant fixures
-             * past the first intersection found.
+            /* Fixtures are not reported in any particular order, so one that doesn't match the mask
+             * must be skipped rather than allowed to reset clear: a matching fixture may already
+             * have been found further along, or may still be found closer.
              */
-            if ((fixture.getFilterData().categoryBits & maskBits) != 0){
-                this.clear = false;
-            }
-            else {
-                this.clear = true;
+            if ((fixture.getFilterData().categoryBits & maskBits) == 0){
+                return -1; // ignore this fixture and carry on
             }
+            this.clear = false;
             this.fraction = fraction;
-            /* this reduces the length of the ray to the currently found intersection
-             * this is done because fixtures are not necessarily reported in
-             * in any order, and we only care about the closest intersection
-             */
-            return fraction;
+            // Any matching fixture blocks the ray, so there's no need to keep looking.
+            return 0;
         }
     }
 }
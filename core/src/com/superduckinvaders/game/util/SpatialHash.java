@@ -0,0 +1,211 @@
+package com.superduckinvaders.game.util;
+
+import com.badlogic.gdx.math.Vector2;
+import com.superduckinvaders.game.entity.Entity;
+
+import java.util.Arrays;
+
+/**
+ * A uniform grid of buckets used to find entities near a point without checking every entity.
+ * The grid is rebuilt from scratch once per tick, so queries see entity positions as of the last rebuild.
+ */
+public class SpatialHash {
+
+    /**
+     * Receives the entities found by a query.
+     */
+    public interface Callback {
+        /**
+         * Called for each entity matching a query.
+         *
+         * @param entity the entity found
+         * @return true to keep searching, false to end the query
+         */
+        boolean reportEntity(Entity entity);
+    }
+
+    /**
+     * The width and height of each cell, in pixels.
+     */
+    private final float cellSize;
+
+    /**
+     * The number of cells along each axis.
+     */
+    private final int columns, rows;
+
+    /**
+     * The index of the first entry in each cell, or -1 if the cell is empty.
+     */
+    private final int[] cellHead;
+
+    /**
+     * The index of the next entry in the same cell, or -1.
+     */
+    private int[] next;
+
+    /**
+     * The entities in the grid, and their centres and category bits when they were inserted.
+     */
+    private Entity[] entities;
+    private float[] centreX, centreY;
+    private short[] categoryBits;
+
+    /**
+     * How many entities are in the grid.
+     */
+    private int size = 0;
+
+    /**
+     * Creates an empty SpatialHash covering the specified area. Entities outside it are put in the nearest edge cell.
+     *
+     * @param width    the width of the area, in pixels
+     * @param height   the height of the area, in pixels
+     * @param cellSize the width and height of each cell, in pixels
+     */
+    public SpatialHash(float width, float height, float cellSize) {
+        this.cellSize = cellSize;
+        this.columns = Math.max(1, (int) Math.ceil(width / cellSize));
+        this.rows = Math.max(1, (int) Math.ceil(height / cellSize));
+        this.cellHead = new int[columns * rows];
+        Arrays.fill(cellHead, -1);
+
+        int capacity = 128;
+        next = new int[capacity];
+        entities = new Entity[capacity];
+        centreX = new float[capacity];
+        centreY = new float[capacity];
+        categoryBits = new short[capacity];
+    }
+
+    /**
+     * Removes every entity from the grid.
+     */
+    public void clear() {
+        Arrays.fill(cellHead, -1);
+        Arrays.fill(entities, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Adds an entity to the grid at its current centre.
+     *
+     * @param entity the entity to add
+     */
+    public void insert(Entity entity) {
+        if (size == entities.length) {
+            grow();
+        }
+
+        Vector2 centre = entity.getCentre();
+        int cell = cellIndex(column(centre.x), row(centre.y));
+
+        entities[size] = entity;
+        centreX[size] = centre.x;
+        centreY[size] = centre.y;
+        categoryBits[size] = entity.getCategoryBits();
+        next[size] = cellHead[cell];
+        cellHead[cell] = size;
+        size++;
+    }
+
+    /**
+     * Empties the grid and adds every entity in the list.
+     *
+     * @param entities the entities to add
+     */
+    public void rebuild(Iterable<? extends Entity> entities) {
+        clear();
+        for (Entity entity : entities) {
+            insert(entity);
+        }
+    }
+
+    /**
+     * @return how many entities are in the grid
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds every entity whose centre lies inside a rectangle.
+     *
+     * @param minX     the left edge of the rectangle
+     * @param minY     the bottom edge of the rectangle
+     * @param maxX     the right edge of the rectangle
+     * @param maxY     the top edge of the rectangle
+     * @param maskBits only entities with one of these category bits are reported, or every entity if 0
+     * @param callback receives each entity found
+     */
+    public void queryArea(float minX, float minY, float maxX, float maxY, short maskBits, Callback callback) {
+        int minColumn = column(minX), maxColumn = column(maxX);
+        int minRow = row(minY), maxRow = row(maxY);
+
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                for (int i = cellHead[cellIndex(column, row)]; i != -1; i = next[i]) {
+                    float x = centreX[i], y = centreY[i];
+                    if (x >= minX && x <= maxX && y >= minY && y <= maxY && matches(i, maskBits)) {
+                        if (!callback.reportEntity(entities[i])) {
+                            return;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds every entity whose centre lies strictly within a distance of a point.
+     *
+     * @param x        the x coordinate of the point
+     * @param y        the y coordinate of the point
+     * @param radius   the maximum distance
+     * @param maskBits only entities with one of these category bits are reported, or every entity if 0
+     * @param callback receives each entity found
+     */
+    public void queryRadius(float x, float y, float radius, short maskBits, Callback callback) {
+        int minColumn = column(x - radius), maxColumn = column(x + radius);
+        int minRow = row(y - radius), maxRow = row(y + radius);
+        float radius2 = radius * radius;
+
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                for (int i = cellHead[cellIndex(column, row)]; i != -1; i = next[i]) {
+                    float dx = centreX[i] - x, dy = centreY[i] - y;
+                    if (dx * dx + dy * dy < radius2 && matches(i, maskBits)) {
+                        if (!callback.reportEntity(entities[i])) {
+                            return;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean matches(int i, short maskBits) {
+        return maskBits == 0 || (categoryBits[i] & maskBits) != 0;
+    }
+
+    private int column(float x) {
+        return Math.max(0, Math.min(columns - 1, (int) Math.floor(x / cellSize)));
+    }
+
+    private int row(float y) {
+        return Math.max(0, Math.min(rows - 1, (int) Math.floor(y / cellSize)));
+    }
+
+    private int cellIndex(int column, int row) {
+        return row * columns + column;
+    }
+
+    private void grow() {
+        int capacity = entities.length * 2;
+        next = Arrays.copyOf(next, capacity);
+        entities = Arrays.copyOf(entities, capacity);
+        centreX = Arrays.copyOf(centreX, capacity);
+        centreY = Arrays.copyOf(centreY, capacity);
+        categoryBits = Arrays.copyOf(categoryBits, capacity);
+    }
+}
@@ -0,0 +1,198 @@
+package com.superduckinvaders.game.util;
+
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.math.Rectangle;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A fixed size grid of booleans, one per map tile, packed into longs.
+ */
+public class TileBitmap {
+
+    /**
+     * The size of the grid, in tiles.
+     */
+    private final int width, height;
+
+    /**
+     * The packed bits, row by row starting at y = 0.
+     */
+    private final long[] bits;
+
+    /**
+     * Creates an empty TileBitmap.
+     *
+     * @param width  the width of the grid in tiles
+     * @param height the height of the grid in tiles
+     */
+    public TileBitmap(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.bits = new long[(width * height + 63) >>> 6];
+    }
+
+    /**
+     * Creates a TileBitmap with a bit set for every non-empty cell in any of the given layers.
+     * Null layers are ignored.
+     *
+     * @param width  the width of the grid in tiles
+     * @param height the height of the grid in tiles
+     * @param layers the layers to read
+     * @return the new TileBitmap
+     */
+    public static TileBitmap fromLayers(int width, int height, TiledMapTileLayer... layers) {
+        TileBitmap bitmap = new TileBitmap(width, height);
+
+        for (TiledMapTileLayer layer : layers) {
+            if (layer == null) {
+                continue;
+            }
+
+            int w = Math.min(width, layer.getWidth());
+            int h = Math.min(height, layer.getHeight());
+
+            for (int x = 0; x < w; x++) {
+                for (int y = 0; y < h; y++) {
+                    if (layer.getCell(x, y) != null) {
+                        bitmap.set(x, y);
+                    }
+                }
+            }
+        }
+
+        return bitmap;
+    }
+
+    /**
+     * @return the width of this TileBitmap in tiles
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return the height of this TileBitmap in tiles
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @param x the tile x coordinate
+     * @param y the tile y coordinate
+     * @return whether the tile lies inside this TileBitmap
+     */
+    public boolean inBounds(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    /**
+     * Gets the bit for a tile. Tiles outside the grid are unset.
+     *
+     * @param x the tile x coordinate
+     * @param y the tile y coordinate
+     * @return whether the bit for the tile is set
+     */
+    public boolean get(int x, int y) {
+        if (!inBounds(x, y)) {
+            return false;
+        }
+        int i = y * width + x;
+        return (bits[i >>> 6] & (1L << i)) != 0;
+    }
+
+    /**
+     * Sets the bit for a tile.
+     *
+     * @param x the tile x coordinate
+     * @param y the tile y coordinate
+     */
+    public void set(int x, int y) {
+        int i = y * width + x;
+        bits[i >>> 6] |= 1L << i;
+    }
+
+    /**
+     * Clears the bit for a tile.
+     *
+     * @param x the tile x coordinate
+     * @param y the tile y coordinate
+     */
+    public void clear(int x, int y) {
+        int i = y * width + x;
+        bits[i >>> 6] &= ~(1L << i);
+    }
+
+    /**
+     * @return how many bits are set
+     */
+    public int count() {
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * @return a copy of this TileBitmap
+     */
+    public TileBitmap copy() {
+        TileBitmap copy = new TileBitmap(width, height);
+        System.arraycopy(bits, 0, copy.bits, 0, bits.length);
+        return copy;
+    }
+
+    /**
+     * Covers the set tiles with as few axis-aligned rectangles as a greedy sweep can find.
+     * Each rectangle is grown along x first, then along y for as long as every tile in the new row is set.
+     *
+     * @return the rectangles, in tile coordinates
+     */
+    public List<Rectangle> toRectangles() {
+        List<Rectangle> rectangles = new ArrayList<>();
+        TileBitmap remaining = copy();
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (!remaining.get(x, y)) {
+                    continue;
+                }
+
+                int w = 1;
+                while (remaining.get(x + w, y)) {
+                    w++;
+                }
+
+                int h = 1;
+                while (remaining.rowSet(x, y + h, w)) {
+                    h++;
+                }
+
+                for (int ry = y; ry < y + h; ry++) {
+                    for (int rx = x; rx < x + w; rx++) {
+                        remaining.clear(rx, ry);
+                    }
+                }
+
+                rectangles.add(new Rectangle(x, y, w, h));
+            }
+        }
+
+        return rectangles;
+    }
+
+    /**
+     * @return whether all of the w tiles starting at (x, y) are set
+     */
+    private boolean rowSet(int x, int y, int w) {
+        for (int i = x; i < x + w; i++) {
+            if (!get(i, y)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,151 @@
+package com.superduckinvaders.game.util;
+
+/**
+ * The set of tiles visible from one tile, found by recursive shadowcasting over a grid of blocked tiles.
+ * Blocked tiles that face the origin are visible themselves, but hide everything behind them.
+ */
+public class VisibilityField {
+
+    /**
+     * Octant transforms: each column maps the (dx, dy) of the first octant onto another.
+     */
+    private static final int[][] OCTANTS = {
+            {1, 0, 0, -1, -1, 0, 0, 1},
+            {0, 1, -1, 0, 0, -1, 1, 0},
+            {0, 1, 1, 0, 0, -1, -1, 0},
+            {1, 0, 0, 1, -1, 0, 0, -1}
+    };
+
+    /**
+     * The tiles that block sight.
+     */
+    private final TileBitmap blocked;
+
+    /**
+     * How far sight reaches from the origin, in tiles.
+     */
+    private final int radius;
+
+    /**
+     * The generation in which each tile was last seen. A tile is visible if it was seen in the current generation,
+     * so starting a new computation doesn't need the array cleared.
+     */
+    private final int[] seen;
+    private int generation = 0;
+
+    /**
+     * The tile the field was last computed from.
+     */
+    private int originX, originY;
+
+    /**
+     * Creates an empty VisibilityField.
+     *
+     * @param blocked the tiles that block sight
+     * @param radius  how far sight reaches, in tiles
+     */
+    public VisibilityField(TileBitmap blocked, int radius) {
+        this.blocked = blocked;
+        this.radius = radius;
+        this.seen = new int[blocked.getWidth() * blocked.getHeight()];
+    }
+
+    /**
+     * Recomputes the visible tiles from a new origin.
+     *
+     * @param x the x index of the origin tile
+     * @param y the y index of the origin tile
+     */
+    public void compute(int x, int y) {
+        generation++;
+        originX = x;
+        originY = y;
+
+        see(x, y);
+        for (int octant = 0; octant < 8; octant++) {
+            castLight(1, 1f, 0f, OCTANTS[0][octant], OCTANTS[1][octant], OCTANTS[2][octant], OCTANTS[3][octant]);
+        }
+    }
+
+    /**
+     * @param x the x index of a tile
+     * @param y the y index of a tile
+     * @return whether the tile is close enough to the origin to be covered by this field
+     */
+    public boolean inRange(int x, int y) {
+        int dx = x - originX;
+        int dy = y - originY;
+        return generation > 0 && dx * dx + dy * dy < radius * radius;
+    }
+
+    /**
+     * @param x the x index of a tile
+     * @param y the y index of a tile
+     * @return whether the tile can be seen from the origin
+     */
+    public boolean isVisible(int x, int y) {
+        return blocked.inBounds(x, y) && seen[y * blocked.getWidth() + x] == generation;
+    }
+
+    /**
+     * Scans one octant row by row, recursing past each run of blocked tiles with a narrower view.
+     *
+     * @param row   the first row to scan
+     * @param start the slope of the start of the visible arc
+     * @param end   the slope of the end of the visible arc
+     */
+    private void castLight(int row, float start, float end, int xx, int xy, int yx, int yy) {
+        if (start < end) {
+            return;
+        }
+
+        int radius2 = radius * radius;
+        float newStart = 0f;
+
+        for (int j = row; j <= radius; j++) {
+            int dy = -j;
+            boolean wasBlocked = false;
+
+            for (int dx = -j; dx <= 0; dx++) {
+                int x = originX + dx * xx + dy * xy;
+                int y = originY + dx * yx + dy * yy;
+                float leftSlope = (dx - 0.5f) / (dy + 0.5f);
+                float rightSlope = (dx + 0.5f) / (dy - 0.5f);
+
+                if (start < rightSlope) {
+                    continue;
+                } else if (end > leftSlope) {
+                    break;
+                }
+
+                if (dx * dx + dy * dy < radius2) {
+                    see(x, y);
+                }
+
+                boolean isBlocked = !blocked.inBounds(x, y) || blocked.get(x, y);
+                if (wasBlocked) {
+                    if (isBlocked) {
+                        newStart = rightSlope;
+                    } else {
+                        wasBlocked = false;
+                        start = newStart;
+                    }
+                } else if (isBlocked && j < radius) {
+                    wasBlocked = true;
+                    castLight(j + 1, start, leftSlope, xx, xy, yx, yy);
+                    newStart = rightSlope;
+                }
+            }
+
+            if (wasBlocked) {
+                break;
+            }
+        }
+    }
+
+    private void see(int x, int y) {
+        if (blocked.inBounds(x, y)) {
+            seen[y * blocked.getWidth() + x] = generation;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.superduckinvaders.game.ai;
+
+import com.badlogic.gdx.ai.btree.BehaviorTree;
+import com.badlogic.gdx.ai.btree.LeafTask;
+import com.badlogic.gdx.ai.btree.Task;
+import com.badlogic.gdx.ai.btree.branch.Sequence;
+import com.badlogic.gdx.ai.btree.utils.BehaviorTreeParser;
+import com.superduckinvaders.game.ai.btree.CanSeePlayerTask;
+import org.junit.Test;
+
+import java.io.FileReader;
+import java.io.Reader;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that behaviour trees step at their own rate, and that the shipped tree files parse.
+ */
+public class BehaviourTreeAITest {
+
+    /**
+     * Stays RUNNING for a number of steps, then succeeds.
+     */
+    private static class SlowTask extends LeafTask<BehaviourTreeAI> {
+        private final int steps;
+        private int runs = 0, starts = 0;
+
+        SlowTask(int steps) {
+            this.steps = steps;
+        }
+
+        @Override
+        public void start() {
+            starts++;
+        }
+
+        @Override
+        public void run() {
+            runs++;
+            if (runs % steps == 0) {
+                success();
+            } else {
+                running();
+            }
+        }
+
+        @Override
+        protected Task<BehaviourTreeAI> copyTo(Task<BehaviourTreeAI> task) {
+            return task;
+        }
+    }
+
+    @Test
+    public void StepsAtItsOwnRate() {
+        SlowTask task = new SlowTask(1);
+        BehaviourTreeAI ai = new BehaviourTreeAI(null, new BehaviorTree<BehaviourTreeAI>(task), 0.25f);
+
+        for (int i = 0; i < 60; i++) {
+            ai.think(null, 1 / 60f);
+        }
+
+        // One second at four steps a second, give or take where in its interval the tree started.
+        assertTrue(ai.getSteps() >= 3 && ai.getSteps() <= 5);
+        assertEquals(ai.getSteps(), task.runs);
+    }
+
+    @Test
+    public void RunningTaskCarriesOverSteps() {
+        SlowTask slow = new SlowTask(3);
+        SlowTask after = new SlowTask(1);
+        Sequence<BehaviourTreeAI> sequence = new Sequence<BehaviourTreeAI>();
+        sequence.addChild(slow);
+        sequence.addChild(after);
+        BehaviourTreeAI ai = new BehaviourTreeAI(null, new BehaviorTree<BehaviourTreeAI>(sequence), 0.1f);
+
+        for (int i = 0; i < 3; i++) {
+            ai.think(null, 0.1f);
+        }
+
+        // The slow task was picked up where it left off rather than started again each step.
+        assertEquals(3, slow.runs);
+        assertEquals(1, slow.starts);
+        assertEquals(1, after.runs);
+    }
+
+    @Test
+    public void OnlyTreesThatLookAskForVisibility() {
+        Sequence<BehaviourTreeAI> looking = new Sequence<BehaviourTreeAI>();
+        looking.addChild(new SlowTask(1));
+        looking.addChild(new CanSeePlayerTask());
+
+        assertTrue(new BehaviourTreeAI(null, new BehaviorTree<BehaviourTreeAI>(looking), 0.1f).mayAskVisibility());
+        assertFalse(new BehaviourTreeAI(null, new BehaviorTree<BehaviourTreeAI>(new SlowTask(1)), 0.1f).mayAskVisibility());
+    }
+
+    @Test
+    public void ShippedTreesParse() throws Exception {
+        BehaviorTreeParser<BehaviourTreeAI> parser = new BehaviorTreeParser<BehaviourTreeAI>();
+        for (String file : new String[]{"ai/chaser.tree", "ai/gunner.tree"}) {
+            try (Reader reader = new FileReader(file)) {
+                BehaviorTree<BehaviourTreeAI> tree = parser.parse(reader, null);
+                assertEquals(file, 1, tree.getChildCount());
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.superduckinvaders.game.ai;
+
+import com.superduckinvaders.game.util.TileBitmap;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the flow field followed by FlowFieldAI.
+ */
+public class FlowFieldTest {
+
+    @Test
+    public void CountsDiagonalStepsOnOpenGrid() {
+        FlowField field = new FlowField(new TileBitmap(10, 10));
+        field.setTarget(0, 0);
+
+        assertEquals(0, field.getDistance(0, 0));
+        assertEquals(4, field.getDistance(4, 4));
+        assertEquals(6, field.getDistance(6, 2));
+        assertEquals(3 * 10 + 3, field.getNextTile(4, 4));
+    }
+
+    @Test
+    public void DoesNotCutCorners() {
+        TileBitmap blocked = new TileBitmap(3, 3);
+        blocked.set(1, 0);
+        FlowField field = new FlowField(blocked);
+        field.setTarget(0, 0);
+
+        // Can't go straight from (1, 1) to (0, 0) past the blocked tile at (1, 0).
+        assertEquals(2, field.getDistance(1, 1));
+        assertEquals(1 * 3 + 0, field.getNextTile(1, 1));
+        assertEquals(FlowField.UNREACHABLE, field.getDistance(1, 0));
+    }
+
+    @Test
+    public void UnreachableTilesHaveNoNextTile() {
+        TileBitmap blocked = new TileBitmap(10, 10);
+        for (int y = 0; y < 10; y++) {
+            blocked.set(5, y);
+        }
+        FlowField field = new FlowField(blocked);
+        field.setTarget(0, 0);
+
+        assertEquals(FlowField.UNREACHABLE, field.getDistance(8, 3));
+        assertEquals(-1, field.getNextTile(8, 3));
+        assertEquals(-1, field.getNextTile(0, 0));
+        assertEquals(FlowField.UNREACHABLE, field.getDistance(-1, 0));
+    }
+
+    @Test
+    public void OnlyRebuildsWhenTargetChangesTile() {
+        FlowField field = new FlowField(new TileBitmap(10, 10));
+
+        assertTrue(field.setTarget(2, 2));
+        assertFalse(field.setTarget(2, 2));
+        assertEquals(1, field.getRebuildCount());
+
+        assertTrue(field.setTarget(3, 2));
+        assertEquals(2, field.getRebuildCount());
+        assertEquals(0, field.getDistance(3, 2));
+    }
+}
@@ -0,0 +1,75 @@
+package com.superduckinvaders.game.ai;
+
+import com.badlogic.gdx.utils.IntArray;
+import com.superduckinvaders.game.util.TileBitmap;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the A* search used by PathfindingAI.
+ */
+public class GridSearchTest {
+
+    @Test
+    public void FindsDiagonalPathOnOpenGrid() {
+        GridSearch search = new GridSearch(new TileBitmap(10, 10));
+        IntArray path = new IntArray();
+
+        assertTrue(search.findPath(0, 0, 4, 4, 100, path));
+        assertEquals(5, path.size);
+        assertEquals(0, path.first());
+        assertEquals(4 * 10 + 4, path.peek());
+    }
+
+    @Test
+    public void GoesAroundWall() {
+        TileBitmap blocked = new TileBitmap(10, 10);
+        for (int y = 0; y < 9; y++) {
+            blocked.set(5, y);
+        }
+        GridSearch search = new GridSearch(blocked);
+        IntArray path = new IntArray();
+
+        assertTrue(search.findPath(2, 0, 8, 0, 1000, path));
+        for (int i = 0; i < path.size; i++) {
+            assertFalse(blocked.get(path.get(i) % 10, path.get(i) / 10));
+        }
+        assertTrue(path.contains(9 * 10 + 5));
+    }
+
+    @Test
+    public void DoesNotCutCorners() {
+        TileBitmap blocked = new TileBitmap(3, 3);
+        blocked.set(1, 0);
+        GridSearch search = new GridSearch(blocked);
+        IntArray path = new IntArray();
+
+        assertTrue(search.findPath(0, 0, 2, 1, 100, path));
+        // Can't go straight from (0, 0) to (1, 1) past the blocked tile at (1, 0).
+        assertEquals(1 * 3 + 0, path.get(1));
+    }
+
+    @Test
+    public void FailsWhenGoalIsUnreachable() {
+        TileBitmap blocked = new TileBitmap(10, 10);
+        for (int y = 0; y < 10; y++) {
+            blocked.set(5, y);
+        }
+        GridSearch search = new GridSearch(blocked);
+        IntArray path = new IntArray();
+
+        assertFalse(search.findPath(2, 2, 8, 2, 1000, path));
+        assertEquals(0, path.size);
+        assertFalse(search.findPath(2, 2, 5, 2, 1000, path));
+    }
+
+    @Test
+    public void GivesUpAfterExpansionLimit() {
+        GridSearch search = new GridSearch(new TileBitmap(50, 50));
+        IntArray path = new IntArray();
+
+        assertFalse(search.findPath(0, 0, 49, 49, 10, path));
+        assertTrue(search.findPath(0, 0, 49, 49, 1000, path));
+    }
+}
@@ -0,0 +1,81 @@
+package com.superduckinvaders.game.ai;
+
+import com.badlogic.gdx.utils.IntArray;
+import com.superduckinvaders.game.util.TileBitmap;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the hierarchical path finder.
+ */
+public class HierarchicalSearchTest {
+
+    /**
+     * A 40x40 map with a wall down x = 20 that only has a gap at the top.
+     */
+    private TileBitmap walledMap() {
+        TileBitmap blocked = new TileBitmap(40, 40);
+        for (int y = 0; y < 38; y++) {
+            blocked.set(20, y);
+        }
+        return blocked;
+    }
+
+    @Test
+    public void FindsPathWithinOneCluster() {
+        HierarchicalSearch search = new HierarchicalSearch(new TileBitmap(40, 40));
+        IntArray path = new IntArray();
+
+        assertTrue(search.findPath(1, 1, 5, 3, path));
+        assertEquals(1 * 40 + 1, path.first());
+        assertEquals(3 * 40 + 5, path.peek());
+        assertEquals(5, path.size);
+    }
+
+    @Test
+    public void FindsPathAroundWallAcrossClusters() {
+        TileBitmap blocked = walledMap();
+        HierarchicalSearch search = new HierarchicalSearch(blocked);
+        IntArray path = new IntArray();
+
+        assertTrue(search.findPath(15, 0, 25, 0, path));
+        assertEquals(15, path.first());
+        assertEquals(25, path.peek());
+        for (int i = 0; i < path.size; i++) {
+            assertFalse(blocked.get(path.get(i) % 40, path.get(i) / 40));
+        }
+
+        // The route has to go through the gap at the top.
+        boolean throughGap = false;
+        for (int i = 0; i < path.size; i++) {
+            throughGap |= path.get(i) / 40 >= 38;
+        }
+        assertTrue(throughGap);
+    }
+
+    @Test
+    public void RefinesOnlyTheFirstCluster() {
+        HierarchicalSearch search = new HierarchicalSearch(new TileBitmap(40, 40));
+        IntArray path = new IntArray();
+
+        assertTrue(search.findPath(0, 0, 39, 0, path));
+        // A fully refined path would visit all 40 tiles of the bottom row.
+        assertTrue(path.size < 40);
+        // But the first steps, within the start cluster, are adjacent tiles.
+        assertEquals(0, path.get(0));
+        assertEquals(1, path.get(1));
+    }
+
+    @Test
+    public void FailsWhenGoalIsUnreachable() {
+        TileBitmap blocked = walledMap();
+        blocked.set(20, 38);
+        blocked.set(20, 39);
+        HierarchicalSearch search = new HierarchicalSearch(blocked);
+        IntArray path = new IntArray();
+
+        assertFalse(search.findPath(15, 0, 25, 0, path));
+        assertFalse(search.findPath(15, 0, 20, 0, path));
+    }
+}
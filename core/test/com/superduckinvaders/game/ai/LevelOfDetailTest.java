@@ -0,0 +1,99 @@
+package com.superduckinvaders.game.ai;
+
+import com.badlogic.gdx.math.Vector2;
+import com.superduckinvaders.game.Round;
+import com.superduckinvaders.game.entity.mob.Mob;
+import com.superduckinvaders.game.util.TileBitmap;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests that the cheap tiers only move mobs the full AI would chase with, and only to tiles they fit.
+ */
+public class LevelOfDetailTest {
+    private Round round;
+    private FlowField field;
+    private LevelOfDetail levelOfDetail;
+    private final Vector2 player = new Vector2(8, 8);
+
+    @Before
+    public void setUp() {
+        round = mock(Round.class);
+        when(round.getTileWidth()).thenReturn(16);
+        when(round.getTileHeight()).thenReturn(16);
+        when(round.getPlayerSnapshot()).thenReturn(player);
+
+        field = new FlowField(new TileBitmap(100, 1));
+        field.setTarget(0, 0);
+        levelOfDetail = new LevelOfDetail();
+        levelOfDetail.setMidInterval(1);
+    }
+
+    private Mob mobAt(float x) {
+        Mob mob = mock(Mob.class);
+        when(mob.getCentre()).thenAnswer(invocation -> new Vector2(x, 8));
+        when(mob.getSteering()).thenReturn(new Vector2());
+        when(mob.getSpeed()).thenReturn(10f);
+        when(mob.addHopTime(anyFloat())).thenReturn(1f);
+        when(mob.getSize()).thenReturn(new Vector2(16, 16));
+        return mob;
+    }
+
+    @Test
+    public void MidMobsOnlyChaseWithinChaseRange() {
+        levelOfDetail.setChaseRange(FlowFieldAI.CHASE_RANGE);
+        Mob near = mobAt(8 + FlowFieldAI.CHASE_RANGE / 2);
+        Mob far = mobAt(8 + FlowFieldAI.CHASE_RANGE * 2);
+        far.getSteering().set(1, 1);
+
+        levelOfDetail.updateMid(Arrays.asList(near, far), player);
+
+        assertEquals(player, near.getSteering());
+        assertTrue(far.getSteering().isZero());
+        verify(far, never()).applyVelocity(any(Vector2.class));
+    }
+
+    @Test
+    public void MidMobsMoveByDefault() {
+        LevelOfDetail defaults = new LevelOfDetail();
+        Mob mob = mobAt(8 + 800);
+        when(mob.isBodyActive()).thenReturn(true);
+
+        assertEquals(LevelOfDetail.Tier.MID, defaults.classify(mob, 800));
+        defaults.updateMid(Collections.singletonList(mob), player);
+
+        assertEquals(player, mob.getSteering());
+        verify(mob).applyVelocity(any(Vector2.class));
+    }
+
+    @Test
+    public void FarMobsStandStillBeyondChaseRange() {
+        levelOfDetail.setChaseRange(FlowFieldAI.CHASE_RANGE);
+        Mob far = mobAt(8 + FlowFieldAI.CHASE_RANGE * 2);
+        when(round.mobFits(anyInt(), anyInt(), any(Vector2.class))).thenReturn(true);
+
+        levelOfDetail.updateFar(Collections.singletonList(far), field, round, 1f);
+
+        verify(far, never()).setCentre(anyFloat(), anyFloat());
+    }
+
+    @Test
+    public void FarMobsOnlyHopWhereTheyFit() {
+        Mob mob = mobAt(8 + 16 * 10);
+
+        when(round.mobFits(anyInt(), anyInt(), any(Vector2.class))).thenReturn(false);
+        levelOfDetail.updateFar(Collections.singletonList(mob), field, round, 1f);
+        verify(mob, never()).setCentre(anyFloat(), anyFloat());
+
+        when(round.mobFits(anyInt(), anyInt(), any(Vector2.class))).thenReturn(true);
+        levelOfDetail.updateFar(Collections.singletonList(mob), field, round, 1f);
+        verify(mob).setCentre(8 + 16 * 9, 8);
+    }
+}
@@ -0,0 +1,120 @@
+package com.superduckinvaders.game.ai;
+
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+import com.superduckinvaders.game.util.GridRay;
+import com.superduckinvaders.game.util.TileBitmap;
+import com.superduckinvaders.game.util.TmxGrid;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the navigation mesh and its funnel paths.
+ */
+public class NavMeshTest {
+
+    /**
+     * Just under half a tile, for checking that a mob nearly a tile wide fits along a path.
+     */
+    private static final float HALF_MOB = 0.45f;
+
+    @Test
+    public void OpenRoomGivesStraightLine() {
+        NavMesh mesh = new NavMesh(new TileBitmap(10, 10));
+        FloatArray path = new FloatArray();
+
+        assertEquals(1, mesh.getPolygonCount());
+        assertTrue(mesh.findPath(0.5f, 0.5f, 8.5f, 7.5f, path));
+        assertEquals(2, path.size);
+        assertEquals(8.5f, path.get(0), 0);
+        assertEquals(7.5f, path.get(1), 0);
+    }
+
+    @Test
+    public void TurnsOnceRoundCorner() {
+        // An L: the left column, and the top two rows.
+        TileBitmap blocked = new TileBitmap(5, 5);
+        for (int y = 0; y < 3; y++) {
+            for (int x = 1; x < 5; x++) {
+                blocked.set(x, y);
+            }
+        }
+        NavMesh mesh = new NavMesh(blocked);
+        FloatArray path = new FloatArray();
+
+        assertTrue(mesh.findPath(0.5f, 0.5f, 4.5f, 3.5f, path));
+        assertEquals(4, path.size);
+        assertEquals(0.5f, path.get(0), 0);
+        assertEquals(3.5f, path.get(1), 0);
+        assertEquals(4.5f, path.get(2), 0);
+        assertEquals(3.5f, path.get(3), 0);
+    }
+
+    @Test
+    public void FailsWhenGoalIsUnreachable() {
+        TileBitmap blocked = new TileBitmap(10, 10);
+        for (int y = 0; y < 10; y++) {
+            blocked.set(5, y);
+        }
+        NavMesh mesh = new NavMesh(blocked);
+        FloatArray path = new FloatArray();
+
+        assertFalse(mesh.findPath(1.5f, 1.5f, 8.5f, 1.5f, path));
+        assertFalse(mesh.findPath(1.5f, 1.5f, 5.5f, 1.5f, path));
+        assertEquals(0, path.size);
+    }
+
+    @Test
+    public void PathsOnShippedMapsMatchGridAndFit() throws Exception {
+        File[] maps = new File("maps").listFiles((dir, name) -> name.endsWith(".tmx"));
+        assertNotNull(maps);
+
+        FloatArray corners = new FloatArray();
+        IntArray tiles = new IntArray();
+        for (File file : maps) {
+            TileBitmap blocked = TmxGrid.load(file);
+            NavMesh mesh = new NavMesh(blocked);
+            GridSearch grid = new GridSearch(blocked);
+            Random random = new Random(file.getName().hashCode());
+
+            for (int i = 0; i < 200; i++) {
+                int sx = random.nextInt(blocked.getWidth()), sy = random.nextInt(blocked.getHeight());
+                int gx = random.nextInt(blocked.getWidth()), gy = random.nextInt(blocked.getHeight());
+                if (blocked.get(sx, sy) || blocked.get(gx, gy)) {
+                    continue;
+                }
+
+                boolean found = mesh.findPath(sx + 0.5f, sy + 0.5f, gx + 0.5f, gy + 0.5f, corners);
+                assertEquals(file.getName(), grid.findPath(sx, sy, gx, gy, Integer.MAX_VALUE, tiles), found);
+                if (!found) {
+                    continue;
+                }
+
+                float x = sx + 0.5f, y = sy + 0.5f;
+                for (int c = 0; c < corners.size; c += 2) {
+                    assertTrue(file.getName(), fits(blocked, x, y, corners.get(c), corners.get(c + 1)));
+                    x = corners.get(c);
+                    y = corners.get(c + 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether a mob nearly a tile wide can move in a straight line between two points.
+     */
+    private boolean fits(TileBitmap blocked, float x0, float y0, float x1, float y1) {
+        for (int corner = 0; corner < 4; corner++) {
+            float dx = (corner & 1) == 0 ? HALF_MOB : -HALF_MOB;
+            float dy = (corner & 2) == 0 ? HALF_MOB : -HALF_MOB;
+            if (!GridRay.isClear(blocked, x0 + dx, y0 + dy, x1 + dx, y1 + dy)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
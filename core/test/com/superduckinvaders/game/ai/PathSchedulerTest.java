@@ -0,0 +1,164 @@
+package com.superduckinvaders.game.ai;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the time-budgeted path request queue.
+ */
+public class PathSchedulerTest {
+
+    private final List<String> served = new ArrayList<String>();
+
+    private PathScheduler.Request request(final String name) {
+        return new PathScheduler.Request() {
+            @Override
+            protected void serve() {
+                served.add(name);
+            }
+        };
+    }
+
+    private PathScheduler.Request request(final String name, final long key) {
+        return new PathScheduler.Request() {
+            @Override
+            protected long getKey() {
+                return key;
+            }
+
+            @Override
+            protected void serve() {
+                served.add(name);
+            }
+
+            @Override
+            protected void share(PathScheduler.Request other) {
+                served.add(name + " shared");
+            }
+        };
+    }
+
+    @Test
+    public void ServesInPriorityOrder() {
+        PathScheduler scheduler = new PathScheduler(100000);
+        scheduler.request(request("far"), 300f);
+        scheduler.request(request("near"), 10f);
+        scheduler.request(request("middle"), 100f);
+
+        scheduler.update();
+
+        assertEquals(3, scheduler.getLastServed());
+        assertEquals("near", served.get(0));
+        assertEquals("middle", served.get(1));
+        assertEquals("far", served.get(2));
+        assertEquals(0, scheduler.getQueueDepth());
+    }
+
+    @Test
+    public void QueuesEachRequestOnce() {
+        PathScheduler scheduler = new PathScheduler(100000);
+        PathScheduler.Request request = request("mob");
+
+        assertTrue(scheduler.request(request, 10f));
+        assertFalse(scheduler.request(request, 5f));
+        assertEquals(1, scheduler.getQueueDepth());
+
+        scheduler.update();
+        assertEquals(1, served.size());
+        assertFalse(request.isQueued());
+    }
+
+    @Test
+    public void ServesAtLeastOneRequestOverBudget() {
+        PathScheduler scheduler = new PathScheduler(0);
+        scheduler.request(request("a"), 1f);
+        scheduler.request(request("b"), 2f);
+
+        scheduler.update();
+        assertEquals(1, scheduler.getLastServed());
+        assertEquals(1, scheduler.getQueueDepth());
+
+        scheduler.update();
+        assertEquals(2, served.size());
+        assertEquals(2, scheduler.getOverrunCount());
+    }
+
+    @Test
+    public void OlderRequestsAreNotStarved() {
+        PathScheduler scheduler = new PathScheduler(0);
+        scheduler.request(request("first"), 0f);
+        scheduler.request(request("old"), 100f);
+        scheduler.update();
+
+        // Asked for an update later, so it ranks behind the old request despite being nearer.
+        scheduler.request(request("new"), 100f - PathScheduler.AGING_PER_UPDATE / 2);
+        scheduler.update();
+
+        assertEquals("old", served.get(1));
+    }
+
+    @Test
+    public void CancelledRequestsAreNotServed() {
+        PathScheduler scheduler = new PathScheduler(100000);
+        PathScheduler.Request request = request("mob");
+        scheduler.request(request, 10f);
+        scheduler.cancel(request);
+
+        scheduler.update();
+        assertTrue(served.isEmpty());
+        assertEquals(0, scheduler.getQueueDepth());
+    }
+
+    @Test
+    public void SameKeyRequestsShareOneSearch() {
+        PathScheduler scheduler = new PathScheduler(100000);
+        scheduler.request(request("a", 7), 10f);
+        scheduler.request(request("b", 7), 5f);
+        scheduler.request(request("c", 8), 20f);
+
+        assertEquals(2, scheduler.getQueueDepth());
+        scheduler.update();
+
+        assertEquals(2, scheduler.getLastServed());
+        assertEquals(1, scheduler.getLastShared());
+        assertEquals("a", served.get(0));
+        assertEquals("b shared", served.get(1));
+        assertEquals("c", served.get(2));
+    }
+
+    @Test
+    public void OnlySameUpdateRequestsShare() {
+        PathScheduler scheduler = new PathScheduler(100000);
+        scheduler.request(request("a", 7), 10f);
+        scheduler.update();
+        scheduler.request(request("b", 7), 10f);
+        scheduler.update();
+
+        assertEquals("b", served.get(1));
+    }
+
+    @Test
+    public void CancellingSharedRequestPassesItOn() {
+        PathScheduler scheduler = new PathScheduler(100000);
+        PathScheduler.Request first = request("a", 7);
+        PathScheduler.Request second = request("b", 7);
+        PathScheduler.Request third = request("c", 7);
+        scheduler.request(first, 10f);
+        scheduler.request(second, 10f);
+        scheduler.request(third, 10f);
+
+        scheduler.cancel(first);
+        scheduler.cancel(third);
+        assertFalse(third.isQueued());
+        assertEquals(1, scheduler.getQueueDepth());
+
+        scheduler.update();
+        assertEquals(1, served.size());
+        assertEquals("b", served.get(0));
+        assertFalse(second.isQueued());
+    }
+}
@@ -0,0 +1,372 @@
+package com.superduckinvaders.game.ai;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+import com.superduckinvaders.game.util.GridRay;
+import com.superduckinvaders.game.util.TileBitmap;
+import com.superduckinvaders.game.util.TmxGrid;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Compares the old PathfindingAI search with GridSearch, HierarchicalSearch and NavMesh on the shipped maps.
+ * Run with "gradle core:pathfindingBenchmark", or from core/assets with the test classpath.
+ */
+public class PathfindingBenchmark {
+
+    private static final int TILE_SIZE = 32;
+    private static final int QUERIES = 2000;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int SHORT_DISTANCE = 10;
+    private static final int EXPANSION_LIMIT = 2000;
+    private static final Vector2 MOB_SIZE = new Vector2(24, 24);
+
+    public static void main(String[] args) throws Exception {
+        File[] maps = new File("maps").listFiles((dir, name) -> name.endsWith(".tmx"));
+        if (maps == null) {
+            System.err.println("Run from core/assets so that maps/ can be found.");
+            return;
+        }
+
+        System.out.println("Short queries, at most " + SHORT_DISTANCE + " tiles apart on each axis (us per query, paths found):");
+        System.out.printf("%-16s %10s %10s %10s %8s %8s %8s%n", "map", "legacy", "grid", "hpa", "legacy", "grid", "hpa");
+        for (File file : maps) {
+            TileBitmap blocked = TmxGrid.load(file);
+            int[] queries = makeQueries(blocked, SHORT_DISTANCE, new Random(file.getName().hashCode()));
+
+            LegacySearch legacy = new LegacySearch(blocked);
+            GridSearch grid = new GridSearch(blocked);
+            HierarchicalSearch hierarchical = new HierarchicalSearch(blocked);
+            IntArray path = new IntArray();
+
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                runLegacy(legacy, queries);
+                runGrid(grid, path, queries, EXPANSION_LIMIT);
+                runHierarchical(hierarchical, path, queries);
+            }
+
+            long start = System.nanoTime();
+            int legacyFound = runLegacy(legacy, queries);
+            long legacyTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int gridFound = runGrid(grid, path, queries, EXPANSION_LIMIT);
+            long gridTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int hierarchicalFound = runHierarchical(hierarchical, path, queries);
+            long hierarchicalTime = System.nanoTime() - start;
+
+            System.out.printf("%-16s %10.2f %10.2f %10.2f %8d %8d %8d%n", file.getName(),
+                    perQuery(legacyTime), perQuery(gridTime), perQuery(hierarchicalTime),
+                    legacyFound, gridFound, hierarchicalFound);
+        }
+
+        System.out.println();
+        System.out.println("Long queries between any two free tiles, with no expansion limit on the grid search:");
+        System.out.printf("%-16s %10s %8s %8s %10s %10s %8s %8s%n",
+                "map", "build ms", "nodes", "edges", "grid us", "hpa us", "grid", "hpa");
+        for (File file : maps) {
+            TileBitmap blocked = TmxGrid.load(file);
+            int[] queries = makeQueries(blocked, Math.max(blocked.getWidth(), blocked.getHeight()),
+                    new Random(file.getName().hashCode()));
+
+            GridSearch grid = new GridSearch(blocked);
+            HierarchicalSearch hierarchical = null;
+            IntArray path = new IntArray();
+
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                hierarchical = new HierarchicalSearch(blocked);
+                runGrid(grid, path, queries, Integer.MAX_VALUE);
+                runHierarchical(hierarchical, path, queries);
+            }
+
+            long start = System.nanoTime();
+            int gridFound = runGrid(grid, path, queries, Integer.MAX_VALUE);
+            long gridTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int hierarchicalFound = runHierarchical(hierarchical, path, queries);
+            long hierarchicalTime = System.nanoTime() - start;
+
+            System.out.printf("%-16s %10.2f %8d %8d %10.2f %10.2f %8d %8d%n", file.getName(),
+                    hierarchical.getBuildTime() / 1e6, hierarchical.getNodeCount(), hierarchical.getEdgeCount(),
+                    perQuery(gridTime), perQuery(hierarchicalTime), gridFound, hierarchicalFound);
+        }
+
+        System.out.println();
+        System.out.println("The same long queries on the navigation mesh, against the grid search (waypoints per path):");
+        System.out.printf("%-16s %10s %8s %8s %10s %10s %8s %8s %8s%n",
+                "map", "build ms", "polygons", "portals", "grid us", "mesh us", "grid", "mesh", "found");
+        for (File file : maps) {
+            TileBitmap blocked = TmxGrid.load(file);
+            int[] queries = makeQueries(blocked, Math.max(blocked.getWidth(), blocked.getHeight()),
+                    new Random(file.getName().hashCode()));
+
+            GridSearch grid = new GridSearch(blocked);
+            NavMesh mesh = null;
+            IntArray path = new IntArray();
+            FloatArray corners = new FloatArray();
+
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                mesh = new NavMesh(blocked);
+                runGrid(grid, path, queries, Integer.MAX_VALUE);
+                runNavMesh(mesh, corners, queries);
+            }
+
+            long start = System.nanoTime();
+            int gridFound = runGrid(grid, path, queries, Integer.MAX_VALUE);
+            long gridTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int meshFound = runNavMesh(mesh, corners, queries);
+            long meshTime = System.nanoTime() - start;
+
+            // Count the waypoints each one hands the AI, outside the timed runs.
+            long gridNodes = 0, meshNodes = 0;
+            for (int i = 0; i < queries.length; i += 4) {
+                if (grid.findPath(queries[i], queries[i + 1], queries[i + 2], queries[i + 3], Integer.MAX_VALUE, path)) {
+                    gridNodes += path.size;
+                }
+                if (mesh.findPath(queries[i] + 0.5f, queries[i + 1] + 0.5f, queries[i + 2] + 0.5f, queries[i + 3] + 0.5f, corners)) {
+                    meshNodes += corners.size / 2;
+                }
+            }
+
+            System.out.printf("%-16s %10.2f %8d %8d %10.2f %10.2f %8.1f %8.1f %8s%n", file.getName(),
+                    mesh.getBuildTime() / 1e6, mesh.getPolygonCount(), mesh.getPortalCount(),
+                    perQuery(gridTime), perQuery(meshTime),
+                    (double) gridNodes / Math.max(1, gridFound), (double) meshNodes / Math.max(1, meshFound),
+                    gridFound == meshFound ? "same" : gridFound + "/" + meshFound);
+        }
+    }
+
+    private static double perQuery(long nanos) {
+        return nanos / 1000.0 / QUERIES;
+    }
+
+    /**
+     * Picks pairs of free tiles no more than a distance apart on each axis, packed as startX, startY, goalX, goalY.
+     */
+    private static int[] makeQueries(TileBitmap blocked, int distance, Random random) {
+        int[] queries = new int[QUERIES * 4];
+        for (int i = 0; i < QUERIES; ) {
+            int sx = random.nextInt(blocked.getWidth());
+            int sy = random.nextInt(blocked.getHeight());
+            int gx = sx + random.nextInt(2 * distance + 1) - distance;
+            int gy = sy + random.nextInt(2 * distance + 1) - distance;
+            if (!blocked.inBounds(gx, gy) || blocked.get(sx, sy) || blocked.get(gx, gy)) {
+                continue;
+            }
+            queries[i * 4] = sx;
+            queries[i * 4 + 1] = sy;
+            queries[i * 4 + 2] = gx;
+            queries[i * 4 + 3] = gy;
+            i++;
+        }
+        return queries;
+    }
+
+    private static int runLegacy(LegacySearch legacy, int[] queries) {
+        int found = 0;
+        for (int i = 0; i < queries.length; i += 4) {
+            Vector2 mobPos = new Vector2((queries[i] + 0.5f) * TILE_SIZE, (queries[i + 1] + 0.5f) * TILE_SIZE);
+            Vector2 playerPos = new Vector2((queries[i + 2] + 0.5f) * TILE_SIZE, (queries[i + 3] + 0.5f) * TILE_SIZE);
+            if (legacy.findPath(mobPos, playerPos) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    private static int runGrid(GridSearch grid, IntArray path, int[] queries, int maxExpansions) {
+        int found = 0;
+        for (int i = 0; i < queries.length; i += 4) {
+            if (grid.findPath(queries[i], queries[i + 1], queries[i + 2], queries[i + 3], maxExpansions, path)) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    private static int runHierarchical(HierarchicalSearch hierarchical, IntArray path, int[] queries) {
+        int found = 0;
+        for (int i = 0; i < queries.length; i += 4) {
+            if (hierarchical.findPath(queries[i], queries[i + 1], queries[i + 2], queries[i + 3], path)) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    private static int runNavMesh(NavMesh mesh, FloatArray corners, int[] queries) {
+        int found = 0;
+        for (int i = 0; i < queries.length; i += 4) {
+            if (mesh.findPath(queries[i] + 0.5f, queries[i + 1] + 0.5f, queries[i + 2] + 0.5f, queries[i + 3] + 0.5f, corners)) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * The search PathfindingAI used before GridSearch, kept as it was apart from reading the
+     * collision grid directly instead of going through a Round.
+     */
+    private static class LegacySearch {
+
+        private static final int PATHFINDING_ITERATION_LIMIT = 20;
+
+        private final TileBitmap blocked;
+        private Vector2 playerPos;
+
+        LegacySearch(TileBitmap blocked) {
+            this.blocked = blocked;
+        }
+
+        Coordinate findPath(Vector2 mobPos, Vector2 playerPos) {
+            this.playerPos = playerPos;
+            Coordinate startCoord = roundToTile(mobPos);
+            Coordinate finalCoord = roundToTile(playerPos);
+            boolean finalFound = false;
+
+            PriorityQueue<Coordinate> fringe = new PriorityQueue<Coordinate>();
+            HashMap<Coordinate, SearchNode> visitedStates = new HashMap<Coordinate, SearchNode>();
+            fringe.add(startCoord);
+            visitedStates.put(startCoord, new SearchNode(null, startCoord, 0));
+
+            while (!fringe.isEmpty()) {
+                Coordinate currentCoord = fringe.poll();
+                SearchNode currentState = visitedStates.get(currentCoord);
+
+                if (currentState.iteration >= PATHFINDING_ITERATION_LIMIT) {
+                    continue;
+                }
+
+                if (currentCoord.inSameTile(finalCoord)) {
+                    finalCoord = currentCoord;
+                    finalFound = true;
+                    break;
+                }
+
+                Coordinate[] perm = {
+                    new Coordinate(currentCoord.x,             currentCoord.y + TILE_SIZE),
+                    new Coordinate(currentCoord.x + TILE_SIZE, currentCoord.y            ),
+                    new Coordinate(currentCoord.x,             currentCoord.y - TILE_SIZE),
+                    new Coordinate(currentCoord.x - TILE_SIZE, currentCoord.y            )
+                };
+
+                for (Coordinate currentPerm : perm) {
+                    if (!visitedStates.containsKey(currentPerm) && !collidePoint(currentPerm.vector())) {
+                        fringe.add(currentPerm);
+                        visitedStates.put(currentPerm, new SearchNode(currentState, currentPerm, currentState.iteration + 1));
+                    }
+                }
+            }
+            if (!finalFound) {
+                return null;
+            }
+
+            List<SearchNode> path = new ArrayList<SearchNode>();
+            path.add(visitedStates.get(finalCoord));
+            while (path.get(path.size() - 1) != visitedStates.get(startCoord)) {
+                SearchNode pred = path.get(path.size() - 1).predecessor;
+                if (pred == null) {
+                    break;
+                }
+                path.add(pred);
+            }
+            int index = path.size() - 1;
+            while (index > 0) {
+                SearchNode tempNode = path.get(index - 1);
+                if (!pathIsClear(mobPos, MOB_SIZE, tempNode.coord.vector())) {
+                    break;
+                }
+                index--;
+            }
+            return path.get(index).coord;
+        }
+
+        private boolean collidePoint(Vector2 p) {
+            int x = (int) Math.floor(p.x / TILE_SIZE);
+            int y = (int) Math.floor(p.y / TILE_SIZE);
+            return !blocked.inBounds(x, y) || blocked.get(x, y);
+        }
+
+        private boolean pathIsClear(Vector2 pos, Vector2 size, Vector2 target) {
+            float halfWidth = size.x / 2 / TILE_SIZE;
+            float halfHeight = size.y / 2 / TILE_SIZE;
+            float px = pos.x / TILE_SIZE, py = pos.y / TILE_SIZE;
+            float tx = target.x / TILE_SIZE, ty = target.y / TILE_SIZE;
+
+            return GridRay.isClear(blocked, px + halfWidth, py + halfHeight, tx + halfWidth, ty + halfHeight)
+                && GridRay.isClear(blocked, px - halfWidth, py + halfHeight, tx - halfWidth, ty + halfHeight)
+                && GridRay.isClear(blocked, px - halfWidth, py - halfHeight, tx - halfWidth, ty - halfHeight)
+                && GridRay.isClear(blocked, px + halfWidth, py - halfHeight, tx + halfWidth, ty - halfHeight);
+        }
+
+        private Coordinate roundToTile(Vector2 pos) {
+            int nx = (int) (((int) (pos.x / TILE_SIZE) + 0.5f) * TILE_SIZE);
+            int ny = (int) (((int) (pos.y / TILE_SIZE) + 0.5f) * TILE_SIZE);
+            return new Coordinate(nx, ny);
+        }
+
+        private class Coordinate implements Comparable<Coordinate> {
+            int x, y;
+
+            Coordinate(int x, int y) {
+                this.x = x;
+                this.y = y;
+            }
+
+            @Override
+            public int compareTo(Coordinate o) {
+                float playerDistanceA = this.vector().sub(playerPos).len();
+                float playerDistanceB =    o.vector().sub(playerPos).len();
+                return Float.compare(playerDistanceA, playerDistanceB);
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                if (o == null) return false;
+                if (getClass() != o.getClass()) return false;
+                final Coordinate other = (Coordinate) o;
+                return (this.x == other.x && this.y == other.y);
+            }
+
+            @Override
+            public int hashCode() {
+                int hash = 17;
+                hash = hash * 31 + this.x;
+                hash = hash * 31 + this.y;
+                return hash;
+            }
+
+            boolean inSameTile(Coordinate b) {
+                return (this.x / TILE_SIZE == b.x / TILE_SIZE && this.y / TILE_SIZE == b.y / TILE_SIZE);
+            }
+
+            Vector2 vector() {
+                return new Vector2(x, y);
+            }
+        }
+
+        private static class SearchNode {
+            SearchNode predecessor;
+            Coordinate coord;
+            int iteration;
+
+            SearchNode(SearchNode predecessor, Coordinate coord, int iteration) {
+                this.predecessor = predecessor;
+                this.coord = coord;
+                this.iteration = iteration;
+            }
+        }
+    }
+}
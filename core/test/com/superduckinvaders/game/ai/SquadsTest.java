@@ -0,0 +1,117 @@
+package com.superduckinvaders.game.ai;
+
+import com.badlogic.gdx.math.Vector2;
+import com.superduckinvaders.game.Round;
+import com.superduckinvaders.game.entity.mob.Mob;
+import com.superduckinvaders.game.util.GridRay;
+import com.superduckinvaders.game.util.SpatialHash;
+import com.superduckinvaders.game.util.TileBitmap;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests that bunched up mobs share their leader's search instead of each finding a path.
+ */
+public class SquadsTest {
+    private Round round;
+    private TileBitmap map;
+    private PathScheduler scheduler;
+    private Squads squads;
+    private final Vector2 player = new Vector2();
+    private final List<Mob> mobs = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        // A wall between the mobs and the player, with a gap at the top.
+        map = new TileBitmap(40, 10);
+        for (int y = 0; y < 9; y++) {
+            map.set(20, y);
+        }
+        scheduler = new PathScheduler(1000000);
+        squads = new Squads();
+
+        round = mock(Round.class);
+        when(round.getTileWidth()).thenReturn(16);
+        when(round.getTileHeight()).thenReturn(16);
+        when(round.getCollisionMap()).thenReturn(map);
+        when(round.getPathScheduler()).thenReturn(scheduler);
+        when(round.getPathfinder(any(Vector2.class))).thenReturn(new HierarchicalSearch(map));
+        when(round.getRequiredClearance(any(Vector2.class))).thenReturn(1);
+        when(round.getPlayerSnapshot()).thenReturn(player);
+        when(round.pathFits(any(Vector2.class), any(Vector2.class), any(Vector2.class))).thenAnswer(invocation -> {
+            Vector2 from = (Vector2) invocation.getArguments()[0];
+            Vector2 to = (Vector2) invocation.getArguments()[2];
+            return GridRay.isClear(map, from.x / 16, from.y / 16, to.x / 16, to.y / 16);
+        });
+        doAnswer(invocation -> {
+            Object[] args = invocation.getArguments();
+            for (Mob mob : mobs) {
+                if (mob.getSnapshotCentre().dst((Float) args[0], (Float) args[1]) <= (Float) args[2]) {
+                    ((SpatialHash.Callback) args[4]).reportEntity(mob);
+                }
+            }
+            return null;
+        }).when(round).queryRadius(anyFloat(), anyFloat(), anyFloat(), anyShort(), any(SpatialHash.Callback.class));
+
+        for (int i = 0; i < 6; i++) {
+            AI ai = new PathfindingAI(round, 0);
+            Mob mob = mock(Mob.class);
+            when(mob.getAI()).thenReturn(ai);
+            when(mob.getSnapshotCentre()).thenReturn(new Vector2(100 + 20 * i, 88));
+            when(mob.getSize()).thenReturn(new Vector2(16, 16));
+            mobs.add(mob);
+        }
+    }
+
+    /**
+     * Runs one update the way Round does, and returns how many searches the PathScheduler did.
+     */
+    private int update() {
+        squads.form(mobs, round);
+        for (Mob mob : mobs) {
+            mob.getAI().think(mob, 1f);
+        }
+        for (Mob mob : mobs) {
+            mob.getAI().act(mob);
+        }
+        scheduler.update();
+        return scheduler.getLastServed();
+    }
+
+    @Test
+    public void BunchedMobsShareTheLeadersSearch() {
+        player.set(24 * 16 + 8, 5 * 16 + 8);
+        assertEquals(6, update());
+
+        update();
+        int followers = squads.getFollowerCount();
+        assertTrue(followers >= 3);
+        assertTrue(squads.getSquadCount() > 0);
+
+        // Only the leaders search for the player's new tile, and their squads wait for them.
+        player.x += 16;
+        assertEquals(6 - followers, update());
+        assertEquals(followers, squads.getFollowerCount());
+    }
+
+    @Test
+    public void SquadsBreakUpWhenTheLeaderSeesThePlayer() {
+        player.set(24 * 16 + 8, 5 * 16 + 8);
+        update();
+        update();
+        assertTrue(squads.getFollowerCount() > 0);
+
+        // Move the player into sight of everyone on the near side of the wall.
+        player.set(15 * 16 + 8, 5 * 16 + 8);
+        assertEquals(0, update());
+        update();
+        assertEquals(0, squads.getFollowerCount());
+    }
+}
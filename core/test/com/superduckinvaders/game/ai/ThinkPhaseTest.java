@@ -0,0 +1,178 @@
+package com.superduckinvaders.game.ai;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.superduckinvaders.game.Round;
+import com.superduckinvaders.game.entity.mob.Mob;
+import com.superduckinvaders.game.util.GridRay;
+import com.superduckinvaders.game.util.TileBitmap;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests that thinking in parallel gives the same decisions as thinking serially.
+ */
+public class ThinkPhaseTest {
+
+    /**
+     * Makes a decision from its own random numbers and the delta, like an AI with a seeded generator.
+     */
+    private static class CountingThinker implements ThinkPhase.Thinker {
+        private final Random random;
+        private int thoughts = 0;
+        private double decision = 0;
+
+        CountingThinker(long seed) {
+            random = new Random(seed);
+        }
+
+        @Override
+        public void think(float delta) {
+            thoughts++;
+            decision = decision * 31 + random.nextDouble() * delta;
+        }
+    }
+
+    private List<CountingThinker> makeThinkers(int count) {
+        List<CountingThinker> thinkers = new ArrayList<CountingThinker>();
+        for (int i = 0; i < count; i++) {
+            thinkers.add(new CountingThinker(i));
+        }
+        return thinkers;
+    }
+
+    @Test
+    public void EveryThinkerThinksOncePerRun() {
+        List<CountingThinker> thinkers = makeThinkers(1000);
+        ThinkPhase phase = new ThinkPhase(true);
+
+        phase.run(thinkers, 1f);
+        phase.run(thinkers, 1f);
+
+        for (CountingThinker thinker : thinkers) {
+            assertEquals(2, thinker.thoughts);
+        }
+    }
+
+    @Test
+    public void ParallelMatchesSerial() {
+        List<CountingThinker> serial = makeThinkers(500);
+        List<CountingThinker> parallel = makeThinkers(500);
+        ThinkPhase serialPhase = new ThinkPhase(false);
+        ThinkPhase parallelPhase = new ThinkPhase(true);
+
+        for (int i = 0; i < 10; i++) {
+            serialPhase.run(serial, 1 / 60f);
+            parallelPhase.run(parallel, 1 / 60f);
+        }
+
+        for (int i = 0; i < serial.size(); i++) {
+            assertEquals(serial.get(i).decision, parallel.get(i).decision, 0);
+        }
+    }
+
+    /**
+     * Builds a round around a fixed snapshot: the player in the middle of a 40 by 40 tile map, with walls
+     * scattered by a fixed seed.
+     */
+    private Round makeRound(TileBitmap map, Vector2 player) {
+        FlowField field = new FlowField(map);
+        field.setTarget(20, 20);
+
+        Round round = mock(Round.class);
+        when(round.getTileWidth()).thenReturn(16);
+        when(round.getTileHeight()).thenReturn(16);
+        when(round.getCollisionMap()).thenReturn(map);
+        when(round.getPathScheduler()).thenReturn(new PathScheduler(1000000));
+        when(round.getPathfinder(any(Vector2.class))).thenReturn(new HierarchicalSearch(map));
+        when(round.getRequiredClearance(any(Vector2.class))).thenReturn(1);
+        when(round.getPlayerSnapshot()).thenReturn(player);
+        when(round.getPlayerFlowField()).thenReturn(field);
+        when(round.pathFits(any(Vector2.class), any(Vector2.class), any(Vector2.class))).thenAnswer(invocation -> {
+            Vector2 from = (Vector2) invocation.getArguments()[0];
+            Vector2 to = (Vector2) invocation.getArguments()[2];
+            return GridRay.isClear(map, from.x / 16, from.y / 16, to.x / 16, to.y / 16);
+        });
+        return round;
+    }
+
+    /**
+     * Runs real FlowFieldAIs and PathfindingAIs for a few updates, and records where each mob headed and which
+     * path it asked for after every update.
+     */
+    private List<String> runMobs(boolean parallel) {
+        TileBitmap map = new TileBitmap(40, 40);
+        Random walls = new Random(1);
+        for (int i = 0; i < 200; i++) {
+            map.set(walls.nextInt(40), walls.nextInt(40));
+        }
+        map.clear(20, 20);
+        Round round = makeRound(map, new Vector2(20 * 16 + 8, 20 * 16 + 8));
+
+        // PathfindingAI seeds its own generator from the shared one.
+        MathUtils.random.setSeed(2);
+        Random positions = new Random(3);
+        List<Mob> mobs = new ArrayList<Mob>();
+        List<List<Vector2>> headings = new ArrayList<List<Vector2>>();
+        while (mobs.size() < 200) {
+            int x = 4 + positions.nextInt(32), y = 4 + positions.nextInt(32);
+            if (map.get(x, y)) {
+                continue;
+            }
+            AI ai = (mobs.size() % 2 == 0) ? new FlowFieldAI(round, 0) : new PathfindingAI(round, 0);
+            List<Vector2> headed = new ArrayList<Vector2>();
+            Mob mob = mock(Mob.class);
+            when(mob.getAI()).thenReturn(ai);
+            when(mob.getSnapshotCentre()).thenReturn(new Vector2(x * 16 + 5, y * 16 + 11));
+            when(mob.getSize()).thenReturn(new Vector2(12, 12));
+            doAnswer(invocation -> headed.add(new Vector2((Vector2) invocation.getArguments()[0])))
+                    .when(mob).applyVelocity(any(Vector2.class));
+            mobs.add(mob);
+            headings.add(headed);
+        }
+
+        List<ThinkPhase.Thinker> thinkers = new ArrayList<ThinkPhase.Thinker>();
+        for (Mob mob : mobs) {
+            thinkers.add(delta -> mob.getAI().think(mob, delta));
+        }
+
+        ThinkPhase phase = new ThinkPhase(parallel);
+        List<String> decisions = new ArrayList<String>();
+        for (int update = 0; update < 5; update++) {
+            phase.run(thinkers, 0.25f);
+            for (int i = 0; i < mobs.size(); i++) {
+                Mob mob = mobs.get(i);
+                mob.getAI().act(mob);
+                String decision = update + " " + i + " " + headings.get(i);
+                if (mob.getAI() instanceof PathfindingAI) {
+                    PathfindingAI.PathRequest request = ((PathfindingAI) mob.getAI()).request;
+                    decision += request.isQueued() ? " asks " + request.getKey() : " asks nothing";
+                }
+                decisions.add(decision);
+                headings.get(i).clear();
+            }
+            round.getPathScheduler().update();
+        }
+        return decisions;
+    }
+
+    @Test
+    public void MobsDecideTheSameInParallel() {
+        assertEquals(runMobs(false), runMobs(true));
+    }
+
+    @Test
+    public void CanSwitchMode() {
+        ThinkPhase phase = new ThinkPhase(true);
+        assertTrue(phase.isParallel());
+        phase.setParallel(false);
+        assertFalse(phase.isParallel());
+    }
+}
@@ -1,16 +1,23 @@
 package com.superduckinvaders.game.entity;
 
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.math.Vector2;
 import com.superduckinvaders.game.Round;
 import com.superduckinvaders.game.entity.Character;
 import com.superduckinvaders.game.util.LwjglTestRunner;
+import com.superduckinvaders.game.util.SpatialHash;
+import com.superduckinvaders.game.util.TileBitmap;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
-import static org.mockito.Mockito.mock;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
 
 /**
  * Test the Character class's special methods.
@@ -26,11 +33,53 @@ public class CharacterTest {
         public void render(SpriteBatch spriteBatch) {}
     }
 
+    /**
+     * A character with no body, standing still at a point, ready to attack.
+     */
+    private class MeleeCharacter extends MyCharacter {
+        private final Vector2 centre;
+
+        MeleeCharacter(Round round, float x, float y, short enemyBits) {
+            super(round, 0, 0, 10);
+            centre = new Vector2(x, y);
+            this.enemyBits = enemyBits;
+            meleeAttackTimer = Float.MAX_VALUE;
+        }
+
+        @Override
+        public Vector2 getCentre() {
+            return centre.cpy();
+        }
+    }
+
     private Round round;
 
+    /**
+     * The characters the round's spatial hash finds, whatever the query.
+     */
+    private final List<Entity> nearby = new ArrayList<>();
+
     @Before
     public void setUp() {
         round = mock(Round.class);
+        doAnswer(invocation -> {
+            for (Entity entity : nearby) {
+                ((SpatialHash.Callback) invocation.getArguments()[4]).reportEntity(entity);
+            }
+            return null;
+        }).when(round).queryRadius(anyFloat(), anyFloat(), anyFloat(), anyShort(), any(SpatialHash.Callback.class));
+    }
+
+    /**
+     * Puts a 16 by 16 character near the attacker.
+     */
+    private Character addTarget(float x, float y) {
+        Character target = mock(Character.class);
+        when(target.getCentre()).thenReturn(new Vector2(x, y));
+        when(target.getWidth()).thenReturn(16f);
+        when(target.getHeight()).thenReturn(16f);
+        nearby.add(target);
+        return target;
     }
 
     @Test
@@ -74,4 +123,53 @@ public class CharacterTest {
         ch.heal(25);
         assertEquals(ch.getCurrentHealth(), ch.getMaximumHealth());
     }
+
+    @Test
+    public void FindsEnemiesByDistanceToTheirEdge() {
+        MeleeCharacter attacker = new MeleeCharacter(round, 100, 100, PhysicsEntity.MOB_BITS);
+        // MELEE_RANGE is 30, and the targets' edges are 8 from their centres.
+        Character inside = addTarget(100 + 30 + 8 - 1, 100);
+        addTarget(100, 100 - 30 - 8 - 1);
+
+        List<PhysicsEntity> found = attacker.findEnemiesInRange();
+        assertEquals(1, found.size());
+        assertEquals(inside, found.get(0));
+    }
+
+    @Test
+    public void MeleeOnlyHitsInFront() {
+        MeleeCharacter attacker = new MeleeCharacter(round, 100, 100, PhysicsEntity.MOB_BITS);
+        Character ahead = addTarget(120, 110);
+        Character beside = addTarget(100, 120);
+        Character behind = addTarget(80, 100);
+
+        assertTrue(attacker.meleeAttack(new Vector2(1, 0), 3));
+        verify(ahead).damage(3);
+        verify(beside, never()).damage(anyInt());
+        verify(behind, never()).damage(anyInt());
+    }
+
+    @Test
+    public void MeleeDeflectsProjectiles() {
+        ProjectileManager projectiles = new ProjectileManager(round, new TileBitmap(20, 20), 16, 16, 4, 4);
+        when(round.getProjectiles()).thenReturn(projectiles);
+        MeleeCharacter attacker = new MeleeCharacter(round, 100, 100,
+                (short) (PhysicsEntity.MOB_BITS | PhysicsEntity.PROJECTILE_BITS));
+        PhysicsEntity shooter = mock(PhysicsEntity.class);
+        when(shooter.getCategoryBits()).thenReturn(PhysicsEntity.MOB_BITS);
+
+        projectiles.spawn(120, 100, new Vector2(-5, 0), 1, shooter);
+        projectiles.spawn(80, 100, new Vector2(5, 0), 1, shooter);
+        attacker.meleeAttack(new Vector2(1, 0), 1);
+
+        assertEquals(attacker, projectiles.getOwner(0));
+        assertEquals(10, projectiles.getSpeed(0), 0.001f);
+        assertEquals(shooter, projectiles.getOwner(1));
+        assertEquals(5, projectiles.getSpeed(1), 0.001f);
+
+        // It now flies away from the attacker.
+        float x = projectiles.getX(0);
+        projectiles.update(0.1f);
+        assertTrue(projectiles.getX(0) > x);
+    }
 }
@@ -0,0 +1,89 @@
+package com.superduckinvaders.game.entity;
+
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.superduckinvaders.game.Round;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Test the entity registry's buckets and sweeping.
+ */
+public class EntityRegistryTest {
+
+    /**
+     * An entity of no particular kind, which can be marked as removed.
+     */
+    private static class Marker extends Entity {
+        Marker(Round round) {
+            super(round, 0, 0);
+        }
+
+        void remove() {
+            removed = true;
+        }
+
+        @Override
+        public void render(SpriteBatch spriteBatch) {
+        }
+    }
+
+    private Round round;
+    private EntityRegistry registry;
+
+    @Before
+    public void setUp() {
+        round = mock(Round.class);
+        registry = new EntityRegistry();
+    }
+
+    @Test
+    public void PutsOtherEntitiesInTheirOwnBucket() {
+        registry.add(new Marker(round));
+        assertEquals(0, registry.getMobs().size());
+        assertEquals(0, registry.getItems().size());
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    public void SweepRemovesOnlyRemovedEntities() {
+        Marker removedMarker = new Marker(round);
+        Marker alive = new Marker(round);
+        registry.add(removedMarker);
+        registry.add(alive);
+        removedMarker.remove();
+
+        List<Entity> removed = new ArrayList<>();
+        registry.sweep((Entity entity) -> removed.add(entity));
+
+        assertEquals(1, removed.size());
+        assertTrue(removed.contains(removedMarker));
+        assertEquals(1, registry.size());
+
+        boolean aliveLeft = false;
+        for (Entity entity : registry) {
+            assertFalse(entity == removedMarker);
+            aliveLeft |= entity == alive;
+        }
+        assertTrue(aliveLeft);
+    }
+
+    @Test
+    public void IteratesOverEveryEntity() {
+        registry.add(new Marker(round));
+        registry.add(new Marker(round));
+
+        int count = 0;
+        for (Entity entity : registry) {
+            count++;
+        }
+        assertEquals(2, count);
+    }
+}
@@ -0,0 +1,79 @@
+package com.superduckinvaders.game.entity;
+
+import com.badlogic.gdx.graphics.g2d.Animation;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests that particles expire, and which particle is replaced when the system is full.
+ */
+public class ParticleSystemTest {
+    private Animation anim;
+
+    @Before
+    public void setUp() {
+        anim = mock(Animation.class);
+    }
+
+    @Test
+    public void ParticlesExpire() {
+        ParticleSystem particles = new ParticleSystem(8);
+        particles.spawn(0, 0, 0.5f, anim);
+        particles.spawn(0, 0, 1f, anim);
+        particles.spawn(0, 0, 0.5f, anim);
+
+        particles.update(0.6f);
+        assertEquals(1, particles.size());
+
+        particles.update(0.6f);
+        assertEquals(0, particles.size());
+    }
+
+    @Test
+    public void FullSystemReplacesOldest() {
+        ParticleSystem particles = new ParticleSystem(2);
+        particles.spawn(0, 0, 1f, anim);
+        particles.update(0.5f);
+        particles.spawn(0, 0, 1f, anim);
+        particles.spawn(0, 0, 1f, anim);
+
+        assertEquals(2, particles.size());
+        assertEquals(1, particles.getDroppedCount());
+
+        // The half finished particle was replaced, so both that remain last another second.
+        particles.update(0.9f);
+        assertEquals(2, particles.size());
+    }
+
+    @Test
+    public void FullSystemReplacesOffScreenFirst() {
+        ParticleSystem particles = new ParticleSystem(2);
+        particles.setView(0, 0, 100, 100);
+        particles.spawn(50, 50, 1f, anim);
+        particles.update(0.5f);
+        particles.spawn(500, 500, 1f, anim);
+        particles.spawn(60, 60, 1f, anim);
+
+        // The older on screen particle survives and the off screen one is gone.
+        particles.update(0.6f);
+        assertEquals(1, particles.size());
+        particles.render(mock(SpriteBatch.class));
+        assertEquals(1, particles.getLastDrawn());
+    }
+
+    @Test
+    public void RaisingCapFromZeroLetsParticlesSpawn() {
+        ParticleSystem particles = new ParticleSystem(0);
+        particles.spawn(0, 0, 1f, anim);
+        assertEquals(0, particles.size());
+
+        particles.setCap(2);
+        particles.spawn(0, 0, 1f, anim);
+        particles.spawn(0, 0, 1f, anim);
+        assertEquals(2, particles.size());
+    }
+}
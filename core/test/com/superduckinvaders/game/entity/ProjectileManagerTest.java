@@ -0,0 +1,112 @@
+package com.superduckinvaders.game.entity;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.IntArray;
+import com.superduckinvaders.game.Round;
+import com.superduckinvaders.game.util.SpatialHash;
+import com.superduckinvaders.game.util.TileBitmap;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests that projectiles stop at walls and characters, and run out of time.
+ */
+public class ProjectileManagerTest {
+    private Round round;
+    private TileBitmap blocked;
+    private SpatialHash spatialHash;
+    private PhysicsEntity owner;
+    private ProjectileManager projectiles;
+
+    @Before
+    public void setUp() {
+        round = mock(Round.class);
+        blocked = new TileBitmap(10, 10);
+        spatialHash = new SpatialHash(160, 160, 32);
+        doAnswer(invocation -> {
+            Object[] args = invocation.getArguments();
+            spatialHash.queryArea((float) args[0], (float) args[1], (float) args[2], (float) args[3],
+                    (short) args[4], (SpatialHash.Callback) args[5]);
+            return null;
+        }).when(round).queryArea(anyFloat(), anyFloat(), anyFloat(), anyFloat(), anyShort(), any(SpatialHash.Callback.class));
+
+        owner = mock(PhysicsEntity.class);
+        when(owner.getCategoryBits()).thenReturn(PhysicsEntity.PLAYER_BITS);
+        projectiles = new ProjectileManager(round, blocked, 16, 16, 4, 4);
+    }
+
+    @Test
+    public void StopsAtWall() {
+        blocked.set(5, 3);
+        projectiles.spawn(40, 56, new Vector2(20, 0), 5, owner);
+
+        projectiles.update(0.1f);
+        assertEquals(1, projectiles.size());
+        assertEquals(72, projectiles.getX(0), 0.01f);
+
+        projectiles.update(0.1f);
+        assertEquals(0, projectiles.size());
+    }
+
+    @Test
+    public void HitsCharacterButNotOwner() {
+        Character target = mock(Character.class);
+        when(target.getX()).thenReturn(80f);
+        when(target.getY()).thenReturn(40f);
+        when(target.getWidth()).thenReturn(16f);
+        when(target.getHeight()).thenReturn(16f);
+        when(target.getCentre()).thenReturn(new Vector2(88, 48));
+        when(target.getCategoryBits()).thenReturn(PhysicsEntity.MOB_BITS);
+        spatialHash.insert(target);
+
+        // Fired from inside its owner, which it passes through.
+        Character shooter = mock(Character.class);
+        when(shooter.getX()).thenReturn(32f);
+        when(shooter.getY()).thenReturn(40f);
+        when(shooter.getWidth()).thenReturn(16f);
+        when(shooter.getHeight()).thenReturn(16f);
+        when(shooter.getCentre()).thenReturn(new Vector2(40, 48));
+        when(shooter.getCategoryBits()).thenReturn(PhysicsEntity.PLAYER_BITS);
+        spatialHash.insert(shooter);
+
+        projectiles.spawn(40, 48, new Vector2(20, 0), 5, shooter);
+        projectiles.update(0.1f);
+        assertEquals(1, projectiles.size());
+        verify(shooter, never()).damage(anyInt());
+
+        projectiles.update(0.1f);
+        assertEquals(0, projectiles.size());
+        verify(target).damage(5);
+    }
+
+    @Test
+    public void ExpiresAfterMaxLifetime() {
+        projectiles.spawn(40, 40, new Vector2(0, 0), 5, owner);
+        projectiles.update(ProjectileManager.MAX_LIFETIME / 2);
+        assertEquals(1, projectiles.size());
+
+        projectiles.update(ProjectileManager.MAX_LIFETIME);
+        assertEquals(0, projectiles.size());
+        assertEquals(1, projectiles.getExpiredCount());
+    }
+
+    @Test
+    public void FindsOnlyOtherOwnersProjectilesInRange() {
+        PhysicsEntity other = mock(PhysicsEntity.class);
+        when(other.getCategoryBits()).thenReturn(PhysicsEntity.MOB_BITS);
+        projectiles.spawn(40, 40, new Vector2(), 5, owner);
+        projectiles.spawn(50, 40, new Vector2(), 5, other);
+        projectiles.spawn(120, 40, new Vector2(), 5, other);
+
+        IntArray found = new IntArray();
+        assertEquals(1, projectiles.findInRange(40, 40, 20, owner, found));
+        assertEquals(50, projectiles.getX(found.get(0)), 0);
+
+        projectiles.setOwner(found.get(0), owner);
+        assertEquals(0, projectiles.findInRange(40, 40, 20, owner, found));
+    }
+}
@@ -0,0 +1,61 @@
+package com.superduckinvaders.game.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the clearance map used to check whether mobs fit through gaps.
+ */
+public class ClearanceMapTest {
+
+    @Test
+    public void MeasuresDistanceToNearestBlockedTileOrEdge() {
+        TileBitmap blocked = new TileBitmap(9, 9);
+        blocked.set(4, 4);
+        ClearanceMap clearance = new ClearanceMap(blocked);
+
+        assertEquals(0, clearance.getClearance(4, 4));
+        assertEquals(1, clearance.getClearance(3, 3));
+        assertEquals(1, clearance.getClearance(0, 2));
+        assertEquals(2, clearance.getClearance(2, 2));
+        assertEquals(2, clearance.getClearance(6, 1));
+        assertEquals(0, clearance.getClearance(-1, 0));
+    }
+
+    @Test
+    public void WorksOutRequiredClearance() {
+        assertEquals(1, ClearanceMap.requiredClearance(20, 32));
+        assertEquals(1, ClearanceMap.requiredClearance(32, 32));
+        assertEquals(2, ClearanceMap.requiredClearance(33, 32));
+        assertEquals(2, ClearanceMap.requiredClearance(96, 32));
+        assertEquals(3, ClearanceMap.requiredClearance(97, 32));
+    }
+
+    @Test
+    public void RejectsLinesThroughNarrowGaps() {
+        // A wall across y = 5 with a gap one tile wide at x = 5.
+        TileBitmap blocked = new TileBitmap(11, 11);
+        for (int x = 0; x < 11; x++) {
+            if (x != 5) {
+                blocked.set(x, 5);
+            }
+        }
+        ClearanceMap clearance = new ClearanceMap(blocked);
+
+        assertTrue(clearance.isLineClear(5.5f, 2.5f, 5.5f, 8.5f, 1));
+        assertFalse(clearance.isLineClear(5.5f, 2.5f, 5.5f, 8.5f, 2));
+        assertTrue(clearance.narrowerThan(2).get(5, 5));
+        assertFalse(clearance.narrowerThan(1).get(5, 5));
+    }
+
+    @Test
+    public void AllowsStartTile() {
+        TileBitmap blocked = new TileBitmap(5, 5);
+        ClearanceMap clearance = new ClearanceMap(blocked);
+
+        // The edge tiles are too narrow for clearance 2, but a mob already there can still move inwards.
+        assertTrue(clearance.isLineClear(0.5f, 2.5f, 2.5f, 2.5f, 2));
+        assertFalse(clearance.isLineClear(2.5f, 2.5f, 0.5f, 2.5f, 2));
+    }
+}
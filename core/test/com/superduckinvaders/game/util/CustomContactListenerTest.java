@@ -0,0 +1,104 @@
+package com.superduckinvaders.game.util;
+
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.Contact;
+import com.badlogic.gdx.physics.box2d.World;
+import com.superduckinvaders.game.Round;
+import com.superduckinvaders.game.entity.PhysicsEntity;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests that contacts only reach the entities registered for them, and are counted by category.
+ */
+public class CustomContactListenerTest {
+
+    /**
+     * A box that counts the events it gets.
+     */
+    private static class Box extends PhysicsEntity {
+        int collisions = 0, sensorContacts = 0;
+
+        Box(Round round, float x, float y, BodyDef.BodyType type, short categoryBits, boolean isSensor) {
+            super(round, x, y);
+            this.width = 16;
+            this.height = 16;
+            createBody(type, categoryBits, ALL_BITS, NO_GROUP, isSensor);
+        }
+
+        @Override
+        public void beginCollision(PhysicsEntity other, Contact contact) {
+            collisions++;
+        }
+
+        @Override
+        public void beginSensorContact(PhysicsEntity other, Contact contact) {
+            sensorContacts++;
+        }
+
+        @Override
+        public void render(SpriteBatch spriteBatch) {
+        }
+    }
+
+    private Round round;
+    private CustomContactListener listener;
+
+    @Before
+    public void setUp() {
+        round = mock(Round.class);
+        round.world = new World(new Vector2(), true);
+        listener = new CustomContactListener();
+        round.world.setContactListener(listener);
+    }
+
+    @After
+    public void tearDown() {
+        round.world.dispose();
+    }
+
+    @Test
+    public void OnlyRegisteredSideHearsCollision() {
+        listener.register(PhysicsEntity.PROJECTILE_BITS, PhysicsEntity.ALL_BITS, CustomContactListener.BEGIN_COLLISION);
+        Box wall = new Box(round, 0, 0, BodyDef.BodyType.StaticBody, PhysicsEntity.WORLD_BITS, false);
+        Box projectile = new Box(round, 8, 0, BodyDef.BodyType.DynamicBody, PhysicsEntity.PROJECTILE_BITS, false);
+        Box mob = new Box(round, 100, 0, BodyDef.BodyType.DynamicBody, PhysicsEntity.MOB_BITS, false);
+        Box other = new Box(round, 92, 0, BodyDef.BodyType.StaticBody, PhysicsEntity.WORLD_BITS, false);
+
+        round.world.step(1 / 60f, 6, 2);
+
+        assertEquals(1, projectile.collisions);
+        assertEquals(0, wall.collisions);
+        assertEquals(0, mob.collisions);
+        assertEquals(0, other.collisions);
+        assertEquals(1, listener.getContactCount(PhysicsEntity.WORLD_BITS, PhysicsEntity.PROJECTILE_BITS));
+        assertEquals(1, listener.getContactCount(PhysicsEntity.MOB_BITS, PhysicsEntity.WORLD_BITS));
+    }
+
+    @Test
+    public void SensorSideGetsSensorEvent() {
+        listener.register(PhysicsEntity.ITEM_BITS, PhysicsEntity.PLAYER_BITS, CustomContactListener.BEGIN_SENSOR_CONTACT);
+        listener.register(PhysicsEntity.PLAYER_BITS, PhysicsEntity.ALL_BITS, CustomContactListener.BEGIN_COLLISION);
+        Box item = new Box(round, 0, 0, BodyDef.BodyType.StaticBody, PhysicsEntity.ITEM_BITS, true);
+        Box player = new Box(round, 8, 0, BodyDef.BodyType.DynamicBody, PhysicsEntity.PLAYER_BITS, false);
+
+        round.world.step(1 / 60f, 6, 2);
+
+        assertEquals(1, item.sensorContacts);
+        assertEquals(0, player.collisions);
+        assertEquals(0, player.sensorContacts);
+        assertEquals("player-item 1", listener.describeContactCounts(4));
+    }
+
+    @Test
+    public void ItemsAndWaterAreDifferentCategories() {
+        assertNotEquals(PhysicsEntity.ITEM_BITS, PhysicsEntity.WATER_BITS);
+        assertEquals("water", PhysicsEntity.getCategoryName(PhysicsEntity.WATER_BITS));
+    }
+}
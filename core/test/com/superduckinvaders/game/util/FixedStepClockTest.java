@@ -0,0 +1,43 @@
+package com.superduckinvaders.game.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the step cap and what happens to time beyond it.
+ */
+public class FixedStepClockTest {
+
+    @Test
+    public void CarriesPartStepsOver() {
+        FixedStepClock clock = new FixedStepClock(0.1f, 5, FixedStepClock.OverflowMode.DROP_TIME);
+        assertEquals(0, clock.advance(0.05f));
+        assertEquals(0.5f, clock.getAlpha(), 1e-4f);
+
+        assertEquals(1, clock.advance(0.1f));
+        assertEquals(0.5f, clock.getAlpha(), 1e-4f);
+    }
+
+    @Test
+    public void DropTimeThrowsAwayOverflow() {
+        FixedStepClock clock = new FixedStepClock(0.1f, 3, FixedStepClock.OverflowMode.DROP_TIME);
+        assertEquals(3, clock.advance(1.05f));
+        assertEquals(0.5f, clock.getAlpha(), 1e-3f);
+        assertEquals(0.7f, clock.getDroppedTime(), 1e-3f);
+        assertEquals(1, clock.getOverflowCount());
+
+        assertEquals(0, clock.advance(0.01f));
+    }
+
+    @Test
+    public void SlowDownCatchesUpOverLaterFrames() {
+        FixedStepClock clock = new FixedStepClock(0.1f, 3, FixedStepClock.OverflowMode.SLOW_DOWN);
+        assertEquals(3, clock.advance(1.05f));
+        assertEquals(1, clock.getAlpha(), 0);
+        assertEquals(0.4f, clock.getDroppedTime(), 1e-3f);
+
+        assertEquals(3, clock.advance(0.01f));
+        assertEquals(0.6f, clock.getAlpha(), 1e-3f);
+    }
+}
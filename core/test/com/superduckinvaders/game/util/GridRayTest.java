@@ -0,0 +1,49 @@
+package com.superduckinvaders.game.util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test line of sight on the tile grid.
+ */
+public class GridRayTest {
+    private TileBitmap blocked;
+
+    @Before
+    public void setUp() {
+        blocked = new TileBitmap(10, 10);
+        blocked.set(5, 5);
+    }
+
+    @Test
+    public void ClearWhenNothingInTheWay() {
+        assertTrue(GridRay.isClear(blocked, 0.5f, 0.5f, 9.5f, 0.5f));
+    }
+
+    @Test
+    public void BlockedByTileOnTheLine() {
+        assertFalse(GridRay.isClear(blocked, 0.5f, 5.5f, 9.5f, 5.5f));
+    }
+
+    @Test
+    public void ReportsWhereTheBlockedTileIsEntered() {
+        assertEquals(0.25f, GridRay.cast(blocked, 4.5f, 5.5f, 6.5f, 5.5f), 1e-5f);
+    }
+
+    @Test
+    public void BlockedWhenPassingThroughACorner() {
+        // The diagonal from (4, 4) to (5, 5) passes exactly through the corner of (5, 4).
+        blocked.clear(5, 5);
+        blocked.set(5, 4);
+        assertFalse(GridRay.isClear(blocked, 4.5f, 4.5f, 5.5f, 5.5f));
+    }
+
+    @Test
+    public void OutsideTheGridIsBlocked() {
+        assertFalse(GridRay.isClear(blocked, 0.5f, 0.5f, -1.5f, 0.5f));
+    }
+}
@@ -0,0 +1,97 @@
+package com.superduckinvaders.game.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that the KinematicMover keeps boxes out of blocked tiles and apart from each other.
+ */
+public class KinematicMoverTest {
+
+    private static final float TILE = 32;
+
+    /**
+     * A 10x10 room with a wall down column 5.
+     */
+    private TileBitmap wallAtColumnFive() {
+        TileBitmap blocked = new TileBitmap(10, 10);
+        for (int y = 0; y < 10; y++) {
+            blocked.set(5, y);
+        }
+        return blocked;
+    }
+
+    @Test
+    public void StopsFlushAgainstWall() {
+        KinematicMover mover = new KinematicMover(wallAtColumnFive(), TILE, TILE, 0, 0);
+        mover.add(100, 100, 12, 12, 1000, 0);
+        mover.move(1);
+
+        // The wall starts at x = 160, so the centre stops half a box short of it.
+        assertEquals(148, mover.getX(0), 1e-3f);
+        assertEquals(0, mover.getVelocityX(0), 0);
+        assertEquals(1, mover.getLastBlocked());
+
+        // Pushing into the wall again doesn't get it any further.
+        mover.clear();
+        mover.add(148, 100, 12, 12, 100, 0);
+        mover.move(1 / 60f);
+        assertEquals(148, mover.getX(0), 1e-3f);
+    }
+
+    @Test
+    public void SlidesAlongWall() {
+        KinematicMover mover = new KinematicMover(wallAtColumnFive(), TILE, TILE, 0, 0);
+        float x = 148, y = 100;
+        for (int i = 0; i < 60; i++) {
+            mover.clear();
+            mover.add(x, y, 12, 12, 60, 60);
+            mover.move(1 / 60f);
+            x = mover.getX(0);
+            y = mover.getY(0);
+        }
+
+        assertEquals(148, x, 1e-3f);
+        assertEquals(160, y, 1e-2f);
+    }
+
+    @Test
+    public void StaysInsideMap() {
+        KinematicMover mover = new KinematicMover(new TileBitmap(4, 4), TILE, TILE, 0, 0);
+        mover.add(64, 64, 16, 16, -500, 500);
+        mover.move(1);
+
+        assertEquals(16, mover.getX(0), 1e-3f);
+        assertEquals(112, mover.getY(0), 1e-3f);
+    }
+
+    @Test
+    public void DampsLikeBox2D() {
+        KinematicMover mover = new KinematicMover(new TileBitmap(10, 10), TILE, TILE, 20, 0);
+        mover.add(160, 160, 12, 12, 60, 0);
+        mover.move(1 / 60f);
+
+        float damped = 60 / (1 + 20 / 60f);
+        assertEquals(damped, mover.getVelocityX(0), 1e-3f);
+        assertEquals(160 + damped / 60, mover.getX(0), 1e-3f);
+    }
+
+    @Test
+    public void PushesOverlappingBoxesApart() {
+        KinematicMover mover = new KinematicMover(new TileBitmap(10, 10), TILE, TILE, 0, 60);
+        mover.add(160, 160, 12, 12, 0, 0);
+        mover.add(170, 160, 12, 12, 0, 0);
+        mover.add(160, 160, 12, 12, 0, 0);
+        mover.add(250, 160, 12, 12, 0, 0);
+        mover.move(1 / 60f);
+
+        assertTrue(mover.getX(0) < 160);
+        assertTrue(mover.getX(1) > 170);
+        assertNotEquals(mover.getX(0), mover.getX(2), 1e-3f);
+        assertEquals(160, mover.getY(0), 1e-3f);
+
+        // Too far from the others to be pushed.
+        assertEquals(250, mover.getX(3), 0);
+    }
+}
@@ -0,0 +1,159 @@
+package com.superduckinvaders.game.util;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.FixtureDef;
+import com.badlogic.gdx.physics.box2d.PolygonShape;
+import com.badlogic.gdx.physics.box2d.World;
+import com.superduckinvaders.game.Round;
+import com.superduckinvaders.game.entity.PhysicsEntity;
+import com.superduckinvaders.game.entity.mob.Mob;
+
+import java.io.File;
+import java.util.Random;
+
+/**
+ * Compares the frame time of moving crowds of mobs with Box2D dynamic bodies against the KinematicMover, on the
+ * shipped maps. Mobs head straight for a point that moves every couple of seconds, the way they chase the player,
+ * and pile up against walls and each other. The kinematic run still steps a world holding kinematic bodies for the
+ * mobs, as the Round does to keep their contacts with the player and projectiles.
+ * Run with "gradle core:movementBenchmark", or from core/assets with the test classpath.
+ */
+public class MovementBenchmark {
+
+    private static final int TILE_SIZE = 32;
+    private static final int[] MOB_COUNTS = {100, 250, 500, 1000};
+    private static final int WARMUP_FRAMES = 120;
+    private static final int FRAMES = 600;
+    private static final int TARGET_INTERVAL = 120;
+    private static final float STEP = 1 / 60f;
+    private static final float MOB_SIZE = 24;
+    private static final float MOB_SPEED = 5;
+
+    public static void main(String[] args) throws Exception {
+        File[] maps = new File("maps").listFiles((dir, name) -> name.endsWith(".tmx"));
+        if (maps == null) {
+            System.err.println("Run from core/assets so that maps/ can be found.");
+            return;
+        }
+
+        System.out.println("Milliseconds per frame, moving every mob and stepping the world:");
+        System.out.printf("%-16s %6s %10s %10s %8s%n", "map", "mobs", "box2d", "kinematic", "speedup");
+        for (File file : maps) {
+            TileBitmap blocked = TmxGrid.load(file);
+            for (int count : MOB_COUNTS) {
+                double box2d = run(blocked, count, false);
+                double kinematic = run(blocked, count, true);
+                System.out.printf("%-16s %6d %10.3f %10.3f %8.1f%n", file.getName(), count, box2d, kinematic,
+                        box2d / kinematic);
+            }
+        }
+    }
+
+    /**
+     * Runs one crowd of mobs on a map, and returns the average time per frame in milliseconds after warming up.
+     */
+    private static double run(TileBitmap blocked, int count, boolean kinematic) {
+        Random random = new Random(count);
+        World world = new World(new Vector2(), true);
+        for (Rectangle rectangle : blocked.toRectangles()) {
+            createBox(world, BodyDef.BodyType.StaticBody,
+                    (rectangle.x + rectangle.width / 2) * TILE_SIZE, (rectangle.y + rectangle.height / 2) * TILE_SIZE,
+                    rectangle.width * TILE_SIZE, rectangle.height * TILE_SIZE,
+                    PhysicsEntity.WORLD_BITS, PhysicsEntity.ALL_BITS, PhysicsEntity.NO_GROUP);
+        }
+
+        Body[] bodies = new Body[count];
+        float[] velocityX = new float[count], velocityY = new float[count];
+        for (int i = 0; i < count; i++) {
+            int tile = randomFreeTile(blocked, random);
+            bodies[i] = createBox(world, kinematic ? BodyDef.BodyType.KinematicBody : BodyDef.BodyType.DynamicBody,
+                    (tile % blocked.getWidth() + 0.5f) * TILE_SIZE, (tile / blocked.getWidth() + 0.5f) * TILE_SIZE,
+                    MOB_SIZE, MOB_SIZE, PhysicsEntity.MOB_BITS,
+                    (short) (PhysicsEntity.ALL_BITS & ~PhysicsEntity.MOB_BITS), PhysicsEntity.MOB_GROUP);
+            bodies[i].setLinearDamping(Mob.LINEAR_DAMPING);
+        }
+
+        KinematicMover mover = new KinematicMover(blocked, TILE_SIZE, TILE_SIZE, Mob.LINEAR_DAMPING,
+                Round.MOB_SEPARATION_SPEED);
+        Vector2 target = new Vector2();
+        Vector2 velocity = new Vector2();
+        long time = 0;
+
+        for (int frame = 0; frame < WARMUP_FRAMES + FRAMES; frame++) {
+            if (frame % TARGET_INTERVAL == 0) {
+                int tile = randomFreeTile(blocked, random);
+                target.set((tile % blocked.getWidth() + 0.5f) * TILE_SIZE, (tile / blocked.getWidth() + 0.5f) * TILE_SIZE)
+                        .scl(PhysicsEntity.METRES_PER_PIXEL);
+            }
+
+            long start = System.nanoTime();
+            if (kinematic) {
+                mover.clear();
+                for (int i = 0; i < count; i++) {
+                    Vector2 position = bodies[i].getPosition();
+                    velocity.set(target).sub(position).nor().scl(MOB_SPEED);
+                    velocity.sub(velocityX[i], velocityY[i]).clamp(0, 4f).add(velocityX[i], velocityY[i]);
+                    mover.add(position.x * PhysicsEntity.PIXELS_PER_METRE, position.y * PhysicsEntity.PIXELS_PER_METRE,
+                            MOB_SIZE / 2, MOB_SIZE / 2,
+                            velocity.x * PhysicsEntity.PIXELS_PER_METRE, velocity.y * PhysicsEntity.PIXELS_PER_METRE);
+                }
+                mover.move(STEP);
+                for (int i = 0; i < count; i++) {
+                    bodies[i].setTransform(mover.getX(i) * PhysicsEntity.METRES_PER_PIXEL,
+                            mover.getY(i) * PhysicsEntity.METRES_PER_PIXEL, 0);
+                    velocityX[i] = mover.getVelocityX(i) * PhysicsEntity.METRES_PER_PIXEL;
+                    velocityY[i] = mover.getVelocityY(i) * PhysicsEntity.METRES_PER_PIXEL;
+                }
+            } else {
+                for (int i = 0; i < count; i++) {
+                    Body body = bodies[i];
+                    velocity.set(target).sub(body.getPosition()).nor().scl(MOB_SPEED);
+                    velocity.sub(body.getLinearVelocity()).clamp(0, 4f).scl(body.getMass());
+                    body.applyLinearImpulse(velocity, body.getWorldCenter(), true);
+                }
+            }
+            world.step(STEP, 6, 2);
+
+            if (frame >= WARMUP_FRAMES) {
+                time += System.nanoTime() - start;
+            }
+        }
+
+        world.dispose();
+        return time / 1e6 / FRAMES;
+    }
+
+    private static Body createBox(World world, BodyDef.BodyType type, float x, float y, float width, float height,
+                                  short categoryBits, short maskBits, short groupIndex) {
+        BodyDef bodyDef = new BodyDef();
+        bodyDef.type = type;
+        bodyDef.position.set(x * PhysicsEntity.METRES_PER_PIXEL, y * PhysicsEntity.METRES_PER_PIXEL);
+
+        PolygonShape shape = new PolygonShape();
+        shape.setAsBox(width / 2 * PhysicsEntity.METRES_PER_PIXEL, height / 2 * PhysicsEntity.METRES_PER_PIXEL);
+
+        FixtureDef fixtureDef = new FixtureDef();
+        fixtureDef.shape = shape;
+        fixtureDef.filter.categoryBits = categoryBits;
+        fixtureDef.filter.maskBits = maskBits;
+        fixtureDef.filter.groupIndex = groupIndex;
+
+        Body body = world.createBody(bodyDef);
+        body.createFixture(fixtureDef);
+        shape.dispose();
+        return body;
+    }
+
+    private static int randomFreeTile(TileBitmap blocked, Random random) {
+        while (true) {
+            int x = random.nextInt(blocked.getWidth());
+            int y = random.nextInt(blocked.getHeight());
+            if (!blocked.get(x, y)) {
+                return y * blocked.getWidth() + x;
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.superduckinvaders.game.util;
+
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.superduckinvaders.game.Round;
+import com.superduckinvaders.game.entity.Entity;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Test the entity spatial hash queries.
+ */
+@RunWith(LwjglTestRunner.class)
+public class SpatialHashTest {
+    private class Point extends Entity {
+        private short bits;
+
+        Point(float x, float y, short bits) {
+            super(round, x, y);
+            this.bits = bits;
+        }
+
+        @Override
+        public short getCategoryBits() {
+            return bits;
+        }
+
+        @Override
+        public void render(SpriteBatch spriteBatch) {
+        }
+    }
+
+    private Round round;
+    private SpatialHash hash;
+    private List<Entity> found;
+    private SpatialHash.Callback collect;
+
+    @Before
+    public void setUp() {
+        round = mock(Round.class);
+        hash = new SpatialHash(1000, 1000, 100);
+        found = new ArrayList<>();
+        collect = (Entity entity) -> found.add(entity);
+    }
+
+    @Test
+    public void FindsEntitiesInRadius() {
+        Entity near = new Point(500, 500, (short) 1);
+        Entity far = new Point(900, 900, (short) 1);
+        hash.insert(near);
+        hash.insert(far);
+
+        hash.queryRadius(520, 520, 100, (short) 0, collect);
+        assertEquals(1, found.size());
+        assertTrue(found.contains(near));
+    }
+
+    @Test
+    public void FindsEntitiesInArea() {
+        Entity inside = new Point(150, 250, (short) 1);
+        hash.insert(inside);
+        hash.insert(new Point(450, 250, (short) 1));
+
+        hash.queryArea(100, 200, 300, 300, (short) 0, collect);
+        assertEquals(1, found.size());
+        assertTrue(found.contains(inside));
+    }
+
+    @Test
+    public void FiltersByCategoryBits() {
+        Entity wanted = new Point(10, 10, (short) 4);
+        hash.insert(wanted);
+        hash.insert(new Point(20, 20, (short) 2));
+
+        hash.queryRadius(15, 15, 50, (short) 4, collect);
+        assertEquals(1, found.size());
+        assertTrue(found.contains(wanted));
+    }
+
+    @Test
+    public void KeepsEntitiesOutsideTheGrid() {
+        Entity outside = new Point(-50, 1200, (short) 1);
+        hash.insert(outside);
+
+        hash.queryRadius(-50, 1200, 10, (short) 0, collect);
+        assertEquals(1, found.size());
+    }
+
+    @Test
+    public void ClearRemovesEverything() {
+        hash.insert(new Point(10, 10, (short) 1));
+        hash.clear();
+
+        hash.queryArea(0, 0, 1000, 1000, (short) 0, collect);
+        assertEquals(0, hash.size());
+        assertEquals(0, found.size());
+    }
+}
@@ -0,0 +1,65 @@
+package com.superduckinvaders.game.util;
+
+import com.badlogic.gdx.math.Rectangle;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test the packed tile grid and its rectangle merging.
+ */
+public class TileBitmapTest {
+
+    @Test
+    public void SetAndClearBits() {
+        TileBitmap bitmap = new TileBitmap(70, 3);
+        bitmap.set(65, 1);
+        assertTrue(bitmap.get(65, 1));
+        assertFalse(bitmap.get(64, 1));
+        bitmap.clear(65, 1);
+        assertFalse(bitmap.get(65, 1));
+    }
+
+    @Test
+    public void OutOfBoundsIsUnset() {
+        TileBitmap bitmap = new TileBitmap(2, 2);
+        assertFalse(bitmap.get(-1, 0));
+        assertFalse(bitmap.get(0, 2));
+    }
+
+    @Test
+    public void MergesFilledBlockIntoOneRectangle() {
+        TileBitmap bitmap = new TileBitmap(10, 10);
+        for (int x = 2; x < 6; x++) {
+            for (int y = 3; y < 8; y++) {
+                bitmap.set(x, y);
+            }
+        }
+
+        List<Rectangle> rectangles = bitmap.toRectangles();
+        assertEquals(1, rectangles.size());
+        assertEquals(new Rectangle(2, 3, 4, 5), rectangles.get(0));
+    }
+
+    @Test
+    public void RectanglesCoverEveryTileExactlyOnce() {
+        TileBitmap bitmap = new TileBitmap(5, 5);
+        // An L shape.
+        bitmap.set(0, 0);
+        bitmap.set(1, 0);
+        bitmap.set(2, 0);
+        bitmap.set(0, 1);
+        bitmap.set(0, 2);
+
+        int area = 0;
+        for (Rectangle rectangle : bitmap.toRectangles()) {
+            area += rectangle.width * rectangle.height;
+        }
+        assertEquals(bitmap.count(), area);
+        assertEquals(2, bitmap.toRectangles().size());
+    }
+}
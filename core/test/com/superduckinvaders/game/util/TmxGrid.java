@@ -0,0 +1,52 @@
+package com.superduckinvaders.game.util;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.File;
+
+/**
+ * Reads the collision grid of a TMX map straight from the XML, so benchmarks can work on the
+ * shipped maps without starting libGDX.
+ */
+public final class TmxGrid {
+
+    private TmxGrid() {
+    }
+
+    /**
+     * Loads the tiles a Round would treat as blocked: the Collision layer plus the first obstacle layer.
+     * Rows are flipped so that y = 0 is the bottom row, as in TiledMapTileLayer.
+     *
+     * @param file the TMX file, which must use CSV layer data
+     * @return the blocked tiles
+     */
+    public static TileBitmap load(File file) throws Exception {
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(file);
+        Element map = document.getDocumentElement();
+        int width = Integer.parseInt(map.getAttribute("width"));
+        int height = Integer.parseInt(map.getAttribute("height"));
+
+        TileBitmap blocked = new TileBitmap(width, height);
+        NodeList layers = map.getElementsByTagName("layer");
+
+        for (int i = 0; i < layers.getLength(); i++) {
+            Element layer = (Element) layers.item(i);
+            String name = layer.getAttribute("name");
+            if (!name.equals("Collision") && !name.equals("Obstacles0")) {
+                continue;
+            }
+
+            String[] cells = layer.getElementsByTagName("data").item(0).getTextContent().trim().split("\\s*,\\s*");
+            for (int j = 0; j < cells.length; j++) {
+                if (!cells[j].equals("0")) {
+                    blocked.set(j % width, height - 1 - j / width);
+                }
+            }
+        }
+
+        return blocked;
+    }
+}
@@ -0,0 +1,94 @@
+package com.superduckinvaders.game.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test shadowcasting visibility on hand built grids.
+ */
+public class VisibilityFieldTest {
+
+    @Test
+    public void SeesAllOfAnOpenRoom() {
+        TileBitmap blocked = new TileBitmap(11, 11);
+        VisibilityField field = new VisibilityField(blocked, 20);
+        field.compute(5, 5);
+
+        for (int y = 0; y < 11; y++) {
+            for (int x = 0; x < 11; x++) {
+                assertTrue(x + ", " + y, field.isVisible(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void PillarCastsAShadow() {
+        TileBitmap blocked = new TileBitmap(11, 11);
+        blocked.set(5, 7);
+        VisibilityField field = new VisibilityField(blocked, 20);
+        field.compute(5, 5);
+
+        // The pillar itself faces the origin, but hides the tiles straight behind it.
+        assertTrue(field.isVisible(5, 7));
+        assertFalse(field.isVisible(5, 8));
+        assertFalse(field.isVisible(5, 10));
+
+        // Everything to the side is still in view.
+        assertTrue(field.isVisible(2, 8));
+        assertTrue(field.isVisible(8, 8));
+        assertTrue(field.isVisible(5, 3));
+    }
+
+    @Test
+    public void CannotSeeRoundACorridorCorner() {
+        // A corridor along row 2 from x = 1 to 8, turning up column 8 to y = 8.
+        TileBitmap blocked = new TileBitmap(10, 10);
+        for (int y = 0; y < 10; y++) {
+            for (int x = 0; x < 10; x++) {
+                blocked.set(x, y);
+            }
+        }
+        for (int x = 1; x <= 8; x++) {
+            blocked.clear(x, 2);
+        }
+        for (int y = 2; y <= 8; y++) {
+            blocked.clear(8, y);
+        }
+
+        VisibilityField field = new VisibilityField(blocked, 20);
+        field.compute(1, 2);
+
+        assertTrue(field.isVisible(8, 2));
+        assertTrue(field.isVisible(4, 3));
+        assertFalse(field.isVisible(8, 6));
+        assertFalse(field.isVisible(8, 8));
+    }
+
+    @Test
+    public void StopsAtTheMapEdge() {
+        TileBitmap blocked = new TileBitmap(10, 10);
+        VisibilityField field = new VisibilityField(blocked, 20);
+        field.compute(0, 0);
+
+        assertTrue(field.isVisible(0, 0));
+        assertTrue(field.isVisible(9, 9));
+        assertTrue(field.isVisible(9, 0));
+        assertFalse(field.isVisible(-1, 0));
+        assertFalse(field.isVisible(0, 10));
+    }
+
+    @Test
+    public void OnlyReachesItsRadius() {
+        TileBitmap blocked = new TileBitmap(20, 20);
+        VisibilityField field = new VisibilityField(blocked, 5);
+        assertFalse(field.inRange(0, 0));
+
+        field.compute(10, 10);
+        assertTrue(field.inRange(13, 13));
+        assertTrue(field.isVisible(13, 13));
+        assertFalse(field.inRange(10, 16));
+        assertFalse(field.isVisible(10, 16));
+    }
+}